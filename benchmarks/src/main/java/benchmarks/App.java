@@ -0,0 +1,101 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Calls into the application from the benchmarks. JMH only accepts
+ * benchmarks in a named package, and code in a named package can't refer
+ * to the classes of the application, which are in the default package.
+ * Every method that is benchmarked is looked up once as a MethodHandle
+ * held in a static final field, which the JIT treats as a constant and
+ * inlines through, so calling through a handle costs the same as calling
+ * the method directly.
+ *
+ * Each handle takes and returns Object, so it is called with
+ * invokeExact(Object...) and its result cast to Object.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+final class App {
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+	static final Class<?> LIBRARY = type("Library");
+	static final Class<?> BOOK = type("Book");
+	static final Class<?> STORE = type("LibraryStore");
+	static final Class<?> STATS = type("LibraryStats");
+	static final Class<?> GENERATOR = type("DataGenerator");
+	static final Class<?> PARALLEL = type("Parallel");
+
+	private App() {
+	}
+
+	/**
+	 * @param name The name of a class of the application
+	 * @return The class
+	 */
+	static Class<?> type(String name) {
+		try {
+			return Class.forName(name);
+		}
+		catch(ClassNotFoundException e) {
+			throw new IllegalStateException("The application isn't on the class path", e);
+		}
+	}
+
+	/**
+	 * Finds an instance method
+	 * @param owner The class the method is in
+	 * @param name The name of the method
+	 * @param returns The return type of the method
+	 * @param params The parameter types of the method
+	 * @return A handle taking the instance and the parameters as Object and returning Object
+	 */
+	static MethodHandle method(Class<?> owner, String name, Class<?> returns, Class<?>... params) {
+		try {
+			MethodHandle h = LOOKUP.findVirtual(owner, name, MethodType.methodType(returns, params));
+			return h.asType(h.type().generic());
+		}
+		catch(ReflectiveOperationException e) {
+			throw new IllegalStateException("Missing " + owner.getName() + "." + name, e);
+		}
+	}
+
+	/**
+	 * Finds a static method
+	 * @param owner The class the method is in
+	 * @param name The name of the method
+	 * @param returns The return type of the method
+	 * @param params The parameter types of the method
+	 * @return A handle taking the parameters as Object and returning Object
+	 */
+	static MethodHandle staticMethod(Class<?> owner, String name, Class<?> returns, Class<?>... params) {
+		try {
+			MethodHandle h = LOOKUP.findStatic(owner, name, MethodType.methodType(returns, params));
+			return h.asType(h.type().generic());
+		}
+		catch(ReflectiveOperationException e) {
+			throw new IllegalStateException("Missing " + owner.getName() + "." + name, e);
+		}
+	}
+
+	/**
+	 * Finds a constructor
+	 * @param owner The class to construct
+	 * @param params The parameter types of the constructor
+	 * @return A handle taking the parameters as Object and returning the new instance as Object
+	 */
+	static MethodHandle constructor(Class<?> owner, Class<?>... params) {
+		try {
+			MethodHandle h = LOOKUP.findConstructor(owner, MethodType.methodType(void.class, params));
+			return h.asType(h.type().generic());
+		}
+		catch(ReflectiveOperationException e) {
+			throw new IllegalStateException("Missing constructor of " + owner.getName(), e);
+		}
+	}
+
+}
@@ -0,0 +1,41 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The number of threads the parallel sorts and statistics are split
+ * across, set through Parallel.setParallelism before each trial. Giving
+ * several values, such as -p cores=1,2,4,8, shows how they scale. The
+ * default of 0 leaves Parallel at every core.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+@State(Scope.Benchmark)
+public class Cores {
+
+	private static final MethodHandle GET_PARALLELISM = App.staticMethod(App.PARALLEL, "getParallelism", int.class);
+	private static final MethodHandle SET_PARALLELISM = App.staticMethod(App.PARALLEL, "setParallelism", void.class, int.class);
+
+	@Param({"0"})
+	public int cores;
+
+	private Object before;  // The parallelism to put back after the trial
+
+	@Setup(Level.Trial)
+	public void apply() throws Throwable {
+
+		this.before = (Object) GET_PARALLELISM.invokeExact();
+		if(this.cores > 0) {
+			Object unused = (Object) SET_PARALLELISM.invokeExact((Object) this.cores);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void restore() throws Throwable {
+		Object unused = (Object) SET_PARALLELISM.invokeExact(this.before);
+	}
+
+}
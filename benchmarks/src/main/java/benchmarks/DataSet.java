@@ -0,0 +1,62 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The books and reading data every benchmark runs against. Both are made
+ * by DataGenerator from a fixed seed and end date, so every run of a
+ * benchmark at the same size sees exactly the same data.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+@State(Scope.Benchmark)
+public class DataSet {
+
+	static final long SEED = 20200305L;                   // Seed used for every generated data set
+	static final int READING_YEARS = 10;                  // Years of daily reading data to generate
+	static final LocalDate END = LocalDate.of(2020, 3, 5); // Last day of the reading data
+
+	private static final MethodHandle NEW_GENERATOR = App.constructor(App.GENERATOR, long.class, int.class, LocalDate.class);
+	private static final MethodHandle GENERATE_LIBRARY = App.method(App.GENERATOR, "generateLibrary", App.LIBRARY, int.class);
+	private static final MethodHandle GENERATE_READING = App.method(App.GENERATOR, "generateReadingData", TreeMap.class);
+	private static final MethodHandle NEW_LIBRARY = App.constructor(App.LIBRARY);
+	private static final MethodHandle GET = App.method(App.LIBRARY, "get", App.BOOK, int.class);
+	private static final MethodHandle GET_ALL = App.method(App.LIBRARY, "getAll", ArrayList.class);
+	private static final MethodHandle ADD_ALL = App.method(App.LIBRARY, "add", void.class, ArrayList.class);
+
+	@Param({"1000", "100000", "1000000"})
+	public int books;
+
+	Object library;     // Library of generated books
+	Object readingMap;  // TreeMap<LocalDate, Double> of pages read each day
+	Object target;      // The Book in the middle of the Library
+
+	@Setup(Level.Trial)
+	public void generate() throws Throwable {
+
+		Object gen = (Object) NEW_GENERATOR.invokeExact((Object) SEED, (Object) READING_YEARS, (Object) END);
+		this.library = (Object) GENERATE_LIBRARY.invokeExact(gen, (Object) this.books);
+		this.readingMap = (Object) GENERATE_READING.invokeExact(gen);
+		this.target = (Object) GET.invokeExact(this.library, (Object) (this.books / 2));
+	}
+
+	/**
+	 * @return A new Library holding the same Book objects, so a sort doesn't change the original
+	 * @throws Throwable If the Library could not be copied
+	 */
+	Object copy() throws Throwable {
+
+		Object copy = (Object) NEW_LIBRARY.invokeExact();
+		List<?> all = (List<?>) (Object) GET_ALL.invokeExact(this.library);
+		Object unused = (Object) ADD_ALL.invokeExact(copy, (Object) new ArrayList<Object>(all));
+		return copy;
+	}
+
+}
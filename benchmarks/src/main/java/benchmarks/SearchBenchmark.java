@@ -0,0 +1,58 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Every search in Library, each looking for the book in the middle of the
+ * generated Library. The search text is read from a field on every call
+ * so the JIT can't fold the search away.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SearchBenchmark {
+
+	private static final MethodHandle TITLE = App.method(App.BOOK, "getTitle", String.class);
+	private static final MethodHandle AUTHOR = App.method(App.BOOK, "getAuthor", String.class);
+	private static final MethodHandle SERIES = App.method(App.BOOK, "getSeries", String.class);
+	private static final MethodHandle SEARCH_TITLE = App.method(App.LIBRARY, "searchTitle", App.BOOK, String.class);
+	private static final MethodHandle SEARCH_AUTHOR = App.method(App.LIBRARY, "searchAuthor", ArrayList.class, String.class);
+	private static final MethodHandle SEARCH_SERIES = App.method(App.LIBRARY, "searchSeries", ArrayList.class, String.class);
+
+	private Object title;
+	private Object author;
+	private Object series;
+
+	@Setup(Level.Trial)
+	public void pick(DataSet data) throws Throwable {
+		this.title = (Object) TITLE.invokeExact(data.target);
+		this.author = (Object) AUTHOR.invokeExact(data.target);
+		this.series = (Object) SERIES.invokeExact(data.target);
+	}
+
+	@Benchmark
+	public Object searchTitle(DataSet data) throws Throwable {
+		return (Object) SEARCH_TITLE.invokeExact(data.library, this.title);
+	}
+
+	@Benchmark
+	public Object searchAuthor(DataSet data) throws Throwable {
+		return (Object) SEARCH_AUTHOR.invokeExact(data.library, this.author);
+	}
+
+	@Benchmark
+	public Object searchSeries(DataSet data) throws Throwable {
+		return (Object) SEARCH_SERIES.invokeExact(data.library, this.series);
+	}
+
+}
@@ -0,0 +1,74 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Every sort in Library. Each sort starts from a fresh copy of the
+ * generated Library in file order, made outside of the measured time.
+ * Runs with the number of threads given by the cores parameter.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SortBenchmark {
+
+	private static final MethodHandle BY_TITLE = App.method(App.LIBRARY, "sortByTitle", void.class);
+	private static final MethodHandle BY_AUTHOR = App.method(App.LIBRARY, "sortByAuthor", void.class);
+	private static final MethodHandle BY_SERIES = App.method(App.LIBRARY, "sortBySeries", void.class);
+	private static final MethodHandle BY_PAGES = App.method(App.LIBRARY, "sortByPages", void.class);
+	private static final MethodHandle BY_WORDS = App.method(App.LIBRARY, "sortByWords", void.class);
+	private static final MethodHandle BY_END_DATE = App.method(App.LIBRARY, "sortByEndDate", void.class);
+
+	private Object library;
+
+	@Setup(Level.Invocation)
+	public void copy(DataSet data, Cores cores) throws Throwable {
+		this.library = data.copy();
+	}
+
+	@Benchmark
+	public Object sortByTitle() throws Throwable {
+		Object unused = (Object) BY_TITLE.invokeExact(this.library);
+		return this.library;
+	}
+
+	@Benchmark
+	public Object sortByAuthor() throws Throwable {
+		Object unused = (Object) BY_AUTHOR.invokeExact(this.library);
+		return this.library;
+	}
+
+	@Benchmark
+	public Object sortBySeries() throws Throwable {
+		Object unused = (Object) BY_SERIES.invokeExact(this.library);
+		return this.library;
+	}
+
+	@Benchmark
+	public Object sortByPages() throws Throwable {
+		Object unused = (Object) BY_PAGES.invokeExact(this.library);
+		return this.library;
+	}
+
+	@Benchmark
+	public Object sortByWords() throws Throwable {
+		Object unused = (Object) BY_WORDS.invokeExact(this.library);
+		return this.library;
+	}
+
+	@Benchmark
+	public Object sortByEndDate() throws Throwable {
+		Object unused = (Object) BY_END_DATE.invokeExact(this.library);
+		return this.library;
+	}
+
+}
@@ -0,0 +1,67 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The statistics behind the Statistics page and the book page:
+ * getGenStats, the day and month data, getDayAverages (the data behind
+ * genDayGraph) and getRankingData (the data behind getRankings). Runs
+ * with the number of threads given by the cores parameter.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StatsBenchmark {
+
+	private static final MethodHandle NEW_STATS = App.constructor(App.STATS);
+	private static final MethodHandle GEN_STATS = App.method(App.STATS, "getGenStats", ArrayList.class, App.LIBRARY, TreeMap.class);
+	private static final MethodHandle DAY_AVERAGES = App.method(App.STATS, "getDayAverages", Map.class, TreeMap.class);
+	private static final MethodHandle DAY_DATA = App.method(App.STATS, "getDayData", double[].class, TreeMap.class);
+	private static final MethodHandle MONTH_DATA = App.method(App.STATS, "getMonthData", double[].class, App.LIBRARY, TreeMap.class);
+	private static final MethodHandle RANKING_DATA = App.method(App.STATS, "getRankingData", double[].class, App.LIBRARY, App.BOOK);
+
+	private Object stats;
+
+	@Setup(Level.Trial)
+	public void create(Cores cores) throws Throwable {
+		this.stats = (Object) NEW_STATS.invokeExact();
+	}
+
+	@Benchmark
+	public Object getGenStats(DataSet data) throws Throwable {
+		return (Object) GEN_STATS.invokeExact(this.stats, data.library, data.readingMap);
+	}
+
+	@Benchmark
+	public Object getDayAverages(DataSet data) throws Throwable {
+		return (Object) DAY_AVERAGES.invokeExact(this.stats, data.readingMap);
+	}
+
+	@Benchmark
+	public Object getDayData(DataSet data) throws Throwable {
+		return (Object) DAY_DATA.invokeExact(this.stats, data.readingMap);
+	}
+
+	@Benchmark
+	public Object getMonthData(DataSet data) throws Throwable {
+		return (Object) MONTH_DATA.invokeExact(this.stats, data.library, data.readingMap);
+	}
+
+	@Benchmark
+	public Object getRankingData(DataSet data) throws Throwable {
+		return (Object) RANKING_DATA.invokeExact(this.stats, data.library, data.target);
+	}
+
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Loading and saving the Book data file and the reading data file. The
+ * files are temporary, so the users own data files are never touched, and
+ * are written once before the loads are measured.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StoreBenchmark {
+
+	private static final MethodHandle NEW_STORE = App.constructor(App.STORE, String.class, String.class);
+	private static final MethodHandle SAVE = App.method(App.STORE, "save", boolean.class, App.LIBRARY);
+	private static final MethodHandle LOAD = App.method(App.STORE, "load", App.LIBRARY);
+	private static final MethodHandle SAVE_READ_DATA = App.method(App.STORE, "saveReadData", boolean.class, TreeMap.class);
+	private static final MethodHandle LOAD_READING_DATA = App.method(App.STORE, "loadReadingData", TreeMap.class);
+
+	private File dataFile;
+	private File readFile;
+	private Object store;
+	private Object library;  // Saving sorts the Library, so each save gets its own copy
+
+	@Setup(Level.Trial)
+	public void createFiles(DataSet data) throws Throwable {
+
+		this.dataFile = File.createTempFile("bookData", ".bench");
+		this.readFile = File.createTempFile("ReadingData", ".bench");
+		this.store = (Object) NEW_STORE.invokeExact((Object) this.dataFile.getPath(), (Object) this.readFile.getPath());
+
+		Object unused = (Object) SAVE.invokeExact(this.store, data.copy());
+		unused = (Object) SAVE_READ_DATA.invokeExact(this.store, data.readingMap);
+	}
+
+	@Setup(Level.Invocation)
+	public void copy(DataSet data) throws Throwable {
+		this.library = data.copy();
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteFiles() throws IOException {
+
+		// Remove the indexes and delta files written next to the data file too
+		File dir = this.dataFile.getParentFile();
+		String name = this.dataFile.getName();
+		File[] written = dir.listFiles((d, n) -> n.startsWith(name) || n.equals(this.readFile.getName()));
+		if(written != null) {
+			for(File f : written) f.delete();
+		}
+	}
+
+	@Benchmark
+	public Object save() throws Throwable {
+		return (Object) SAVE.invokeExact(this.store, this.library);
+	}
+
+	@Benchmark
+	public Object load() throws Throwable {
+		return (Object) LOAD.invokeExact(this.store);
+	}
+
+	@Benchmark
+	public Object saveReadData(DataSet data) throws Throwable {
+		return (Object) SAVE_READ_DATA.invokeExact(this.store, data.readingMap);
+	}
+
+	@Benchmark
+	public Object loadReadingData() throws Throwable {
+		return (Object) LOAD_READING_DATA.invokeExact(this.store);
+	}
+
+}
@@ -0,0 +1,32 @@
+#!/bin/sh
+# Compiles the application and creates an AppCDS archive from a training run.
+#
+# The training run starts the desktop application with -Dlibrary.training=true,
+# which builds every screen once after the first frame and then exits. Every
+# class that was loaded is written to build/app.jsa, which later launches map
+# in instead of loading and verifying the classes again.
+#
+# Usage: JAVAFX_HOME=/path/to/javafx-sdk scripts/build-cds.sh [dataDir]
+#
+# dataDir holds the bookData and ReadingData files used for training and
+# defaults to the current directory.
+
+set -e
+
+if [ -z "$JAVAFX_HOME" ]; then
+	echo "Set JAVAFX_HOME to the JavaFX SDK directory" >&2
+	exit 1
+fi
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+BUILD="$ROOT/build"
+FX="--module-path $JAVAFX_HOME/lib --add-modules javafx.controls"
+
+rm -rf "$BUILD/classes"
+mkdir -p "$BUILD/classes"
+javac $FX -nowarn -d "$BUILD/classes" "$ROOT"/src/*.java
+
+cd "${1:-.}"
+java $FX -XX:ArchiveClassesAtExit="$BUILD/app.jsa" -Dlibrary.training=true -cp "$BUILD/classes" Main
+
+echo "Wrote $BUILD/app.jsa"
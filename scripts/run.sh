@@ -0,0 +1,20 @@
+#!/bin/sh
+# Starts the desktop application, using the AppCDS archive from
+# scripts/build-cds.sh when it exists.
+#
+# Usage: JAVAFX_HOME=/path/to/javafx-sdk scripts/run.sh [java options]
+
+if [ -z "$JAVAFX_HOME" ]; then
+	echo "Set JAVAFX_HOME to the JavaFX SDK directory" >&2
+	exit 1
+fi
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+BUILD="$ROOT/build"
+CDS=""
+
+if [ -f "$BUILD/app.jsa" ]; then
+	CDS="-XX:SharedArchiveFile=$BUILD/app.jsa -Xshare:auto"
+fi
+
+exec java --module-path "$JAVAFX_HOME/lib" --add-modules javafx.controls $CDS "$@" -cp "$BUILD/classes" Main
@@ -0,0 +1,45 @@
+#!/bin/sh
+# Measures the time to first frame of the desktop application, with and
+# without the AppCDS archive, against a generated library.
+#
+# Usage: JAVAFX_HOME=/path/to/javafx-sdk scripts/startup-bench.sh [numBooks] [runs]
+#
+# Run scripts/build-cds.sh first so that build/classes and build/app.jsa exist.
+
+set -e
+
+if [ -z "$JAVAFX_HOME" ]; then
+	echo "Set JAVAFX_HOME to the JavaFX SDK directory" >&2
+	exit 1
+fi
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+BUILD="$ROOT/build"
+BOOKS=${1:-100000}
+RUNS=${2:-10}
+DATA=$(mktemp -d)
+FX="--module-path $JAVAFX_HOME/lib --add-modules javafx.controls"
+
+trap 'rm -rf "$DATA"' EXIT
+
+cd "$DATA"
+java -cp "$BUILD/classes" DataGenerator "$BOOKS" 10 20200305 bookData ReadingData > /dev/null
+
+# Prints the median time to first frame of RUNS launches with the given options
+median() {
+	i=0
+	while [ $i -lt "$RUNS" ]; do
+		java $FX "$@" -Dlibrary.timing=true -Dlibrary.exitAfterFirstFrame=true -cp "$BUILD/classes" Main \
+			| sed -n 's/^First frame: \([0-9]*\) ms$/\1/p'
+		i=$((i + 1))
+	done | sort -n | awk '{ t[NR] = $1 } END { print t[int((NR + 1) / 2)] }'
+}
+
+echo "Time to first frame with $BOOKS books, median of $RUNS runs"
+echo "  default:  $(median -Xshare:auto) ms"
+
+if [ -f "$BUILD/app.jsa" ]; then
+	echo "  AppCDS:   $(median -XX:SharedArchiveFile="$BUILD/app.jsa" -Xshare:auto) ms"
+else
+	echo "  AppCDS:   skipped, run scripts/build-cds.sh first"
+fi
@@ -0,0 +1,463 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * A read-only B+tree stored in a file of fixed size pages. Maps string keys
+ * to string values, and allows more than one value for the same key. The
+ * tree is bulk loaded from sorted entries in a single pass, so every page
+ * is full and the leaves are in key order on disk.
+ *
+ * The file is read through memory mapped pages, and the most recently used
+ * pages are kept decoded in a small cache. Looking up a key reads one page
+ * per level of the tree, so only a few pages of a large index are ever
+ * touched and nothing is loaded up front.
+ *
+ * File layout, every number is big endian:
+ *   Page 0     Header: magic, version, page size, root page, height, entries,
+ *              and the length and modified time of the file the index was built from
+ *   Leaf       type 1, count (2 bytes), next leaf page (0 for the last leaf),
+ *              then count entries of key length (2), key, value length (2), value
+ *   Internal   type 2, count (2 bytes), first child page,
+ *              then count entries of key length (2), key, child page.
+ *              Each key is the first key in the child that follows it.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class BTreeIndex implements Closeable {
+
+	private static final int MAGIC = 0x4C494258;       // "LIBX"
+	private static final int VERSION = 1;
+	private static final int PAGE_SIZE = 4096;
+	private static final int REGION_SIZE = 1 << 30;    // Largest piece of the file mapped at once, a multiple of PAGE_SIZE
+	private static final int CACHE_PAGES = 256;        // Decoded pages kept in memory
+	private static final byte LEAF = 1;
+	private static final byte INTERNAL = 2;
+	private static final int LEAF_HEADER = 7;          // type, count, next
+	private static final int INTERNAL_HEADER = 7;      // type, count, first child
+
+	private final FileChannel channel;
+	private final MappedByteBuffer[] regions;
+	private final int root;
+	private final int height;
+	private final long entries;
+	private final long sourceLength;
+	private final long sourceModified;
+
+	// The most recently used pages, decoded
+	private final LinkedHashMap<Integer, Node> cache = new LinkedHashMap<Integer, Node>(CACHE_PAGES, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, Node> eldest) {
+			return size() > CACHE_PAGES;
+		}
+	};
+
+	/**
+	 * Opens an index file
+	 * @param file The path of the index file
+	 * @throws IOException If the file can't be read or isn't an index file
+	 */
+	public BTreeIndex(String file) throws IOException {
+
+		this.channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+
+		try {
+			long size = this.channel.size();
+			this.regions = new MappedByteBuffer[(int) ((size + REGION_SIZE - 1) / REGION_SIZE)];
+			for(int i = 0; i < this.regions.length; i++) {
+				long start = (long) i * REGION_SIZE;
+				this.regions[i] = this.channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_SIZE, size - start));
+			}
+
+			if(size < PAGE_SIZE) throw new IOException(file + " is not an index file");
+			ByteBuffer header = page(0);
+			if(header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != PAGE_SIZE) {
+				throw new IOException(file + " is not an index file");
+			}
+			this.root = header.getInt();
+			this.height = header.getInt();
+			this.entries = header.getLong();
+			this.sourceLength = header.getLong();
+			this.sourceModified = header.getLong();
+		}
+		catch(IOException | RuntimeException e) {
+			this.channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Builds an index file. The file is written next to its final name and
+	 * renamed into place, so readers never see a half written index.
+	 * @param file The path of the index file
+	 * @param entries Pairs of key and value, in any order. Sorted by this method
+	 * @param sourceLength The length of the file the entries came from
+	 * @param sourceModified The modified time of the file the entries came from
+	 * @return true if the index was written. false otherwise.
+	 */
+	public static boolean build(String file, List<String[]> entries, long sourceLength, long sourceModified) {
+
+		long timer = Metrics.start();  // Time how long the build takes
+
+		entries.sort((a, b) -> {
+			int c = a[0].compareTo(b[0]);
+			return c != 0 ? c : a[1].compareTo(b[1]);
+		});
+
+		Path target = Paths.get(file).toAbsolutePath();
+		Path temp = null;
+
+		try {
+			temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+
+			try(FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				Builder builder = new Builder(out);
+				int skipped = 0;
+
+				for(String[] e : entries) {
+					if(!builder.add(e[0], e[1])) skipped++;
+				}
+				builder.finish(entries.size() - skipped, sourceLength, sourceModified);
+				out.force(true);
+
+				if(skipped > 0) {
+					System.out.println("ERROR: " + skipped + " entries were too long to be added to " + file);
+				}
+			}
+
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch(AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch(IOException e) {
+			System.out.println("ERROR: The index " + file + " could not be written");
+			try {
+				if(temp != null) Files.deleteIfExists(temp);
+			}
+			catch(IOException ex) {
+				// Left for the next build to replace
+			}
+			return false;
+		}
+
+		Metrics.stop("index.build", timer);
+		return true;
+	}
+
+	/**
+	 * Puts a key in the form it is stored in the index, so that lookups
+	 * ignore case and surrounding spaces
+	 * @param key The key as entered
+	 * @return The key in lower case without leading or trailing spaces
+	 */
+	public static String normalize(String key) {
+		return key.strip().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Finds every value stored under a key
+	 * @param key The normalized key
+	 * @return The values in order, empty if the key isn't in the index
+	 */
+	public List<String> get(String key) {
+		return range(key, key + '\0', Integer.MAX_VALUE);  // key + '\0' is the smallest key after key
+	}
+
+	/**
+	 * Finds the values of every key from one key up to another
+	 * @param from The first key, inclusive
+	 * @param to The last key, exclusive. null to read to the end of the index
+	 * @param limit The most values to return
+	 * @return The values in key order
+	 */
+	public List<String> range(String from, String to, int limit) {
+
+		long timer = Metrics.start();  // Time how long the lookup takes
+		List<String> values = new ArrayList<String>();
+
+		// Walk down to the first leaf that can hold from
+		Node node = node(this.root);
+		while(!node.leaf) {
+			node = node(node.children[lowerBound(node.keys, from)]);
+		}
+
+		// Then along the leaves until a key reaches to
+		int i = lowerBound(node.keys, from);
+
+		while(values.size() < limit) {
+			if(i == node.keys.length) {
+				if(node.next == 0) break;
+				node = node(node.next);
+				i = 0;
+				continue;
+			}
+			if(to != null && node.keys[i].compareTo(to) >= 0) break;
+			values.add(node.values[i]);
+			i++;
+		}
+
+		Metrics.stop("index.lookup", timer);
+		return values;
+	}
+
+	/**
+	 * @return The number of entries in the index
+	 */
+	public long size() {
+		return this.entries;
+	}
+
+	/**
+	 * @return The number of levels in the tree
+	 */
+	public int getHeight() {
+		return this.height;
+	}
+
+	/**
+	 * @return The length of the file the index was built from
+	 */
+	public long getSourceLength() {
+		return this.sourceLength;
+	}
+
+	/**
+	 * @return The modified time of the file the index was built from
+	 */
+	public long getSourceModified() {
+		return this.sourceModified;
+	}
+
+	/**
+	 * Closes the file. The mapped pages are released once they are garbage collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+
+	/**
+	 * @param keys Sorted keys
+	 * @param key The key being looked for
+	 * @return The number of keys that are smaller than key
+	 */
+	private static int lowerBound(String[] keys, String key) {
+
+		int low = 0;
+		int high = keys.length;
+
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			if(keys[mid].compareTo(key) < 0) low = mid + 1;
+			else high = mid;
+		}
+		return low;
+	}
+
+	/**
+	 * @param n The page number
+	 * @return A buffer over the page, positioned at its start
+	 */
+	private ByteBuffer page(int n) {
+
+		long offset = (long) n * PAGE_SIZE;
+		return this.regions[(int) (offset / REGION_SIZE)].slice((int) (offset % REGION_SIZE), PAGE_SIZE);
+	}
+
+	/**
+	 * Gets a decoded page, from the cache if it is there
+	 * @param n The page number
+	 * @return The decoded page
+	 */
+	private synchronized Node node(int n) {
+
+		Node node = this.cache.get(n);
+
+		if(node == null) {
+			Metrics.count("index.pageMiss");
+			node = new Node(page(n));
+			this.cache.put(n, node);
+		}
+		return node;
+	}
+
+	/**
+	 * A decoded leaf or internal page
+	 */
+	private static class Node {
+
+		final boolean leaf;
+		final String[] keys;
+		final String[] values;  // The value of each key, for a leaf
+		final int[] children;   // One more child than keys, for an internal page
+		final int next;         // The next leaf, 0 if this is the last one
+
+		Node(ByteBuffer page) {
+
+			this.leaf = page.get() == LEAF;
+			int count = page.getShort() & 0xFFFF;
+			this.keys = new String[count];
+
+			if(this.leaf) {
+				this.next = page.getInt();
+				this.values = new String[count];
+				this.children = null;
+				for(int i = 0; i < count; i++) {
+					this.keys[i] = readString(page);
+					this.values[i] = readString(page);
+				}
+			}
+			else {
+				this.next = 0;
+				this.values = null;
+				this.children = new int[count + 1];
+				this.children[0] = page.getInt();
+				for(int i = 0; i < count; i++) {
+					this.keys[i] = readString(page);
+					this.children[i + 1] = page.getInt();
+				}
+			}
+		}
+
+		private static String readString(ByteBuffer page) {
+			byte[] bytes = new byte[page.getShort() & 0xFFFF];
+			page.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Writes the pages of a tree from entries in key order. Leaves are
+	 * written as they fill up, then each level of internal pages is built
+	 * from the first key of every page in the level below it.
+	 */
+	private static class Builder {
+
+		private final FileChannel out;
+		private final ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+		private final List<String> firstKeys = new ArrayList<String>();  // First key of each page in the current level
+		private final List<Integer> pages = new ArrayList<Integer>();    // Page number of each page in the current level
+		private int nextPage = 1;                                        // Page 0 is the header
+		private int count;                                               // Entries in the page being filled
+
+		Builder(FileChannel out) {
+			this.out = out;
+			startPage(LEAF);
+		}
+
+		/**
+		 * Adds the next entry to the leaves
+		 * @return false if the entry is too long to fit in a page
+		 */
+		boolean add(String key, String value) throws IOException {
+
+			byte[] k = key.getBytes(StandardCharsets.UTF_8);
+			byte[] v = value.getBytes(StandardCharsets.UTF_8);
+			int size = 4 + k.length + v.length;
+
+			// The key also has to fit in an internal page along with two children
+			if(size > PAGE_SIZE - LEAF_HEADER || k.length > PAGE_SIZE - INTERNAL_HEADER - 10) return false;
+
+			if(this.page.remaining() < size) {
+				writePage(this.nextPage + 1);  // Leaves are written in order, so the next leaf is the next page
+				startPage(LEAF);
+			}
+			if(this.count == 0) this.firstKeys.add(key);
+
+			this.page.putShort((short) k.length).put(k);
+			this.page.putShort((short) v.length).put(v);
+			this.count++;
+			return true;
+		}
+
+		/**
+		 * Writes the last leaf, the internal pages and the header
+		 */
+		void finish(long entries, long sourceLength, long sourceModified) throws IOException {
+
+			if(this.firstKeys.isEmpty()) this.firstKeys.add("");  // An empty index still has one leaf
+			writePage(0);
+			int height = 1;
+
+			// Build levels of internal pages until a single root is left
+			while(this.pages.size() > 1) {
+
+				List<String> childKeys = new ArrayList<String>(this.firstKeys);
+				List<Integer> childPages = new ArrayList<Integer>(this.pages);
+				this.firstKeys.clear();
+				this.pages.clear();
+
+				startPage(INTERNAL);
+				this.firstKeys.add(childKeys.get(0));
+				this.page.putInt(childPages.get(0));
+
+				for(int i = 1; i < childPages.size(); i++) {
+
+					byte[] k = childKeys.get(i).getBytes(StandardCharsets.UTF_8);
+
+					// Start a new page if this child doesn't fit. It becomes the first child of that page
+					if(this.page.remaining() < 6 + k.length && this.count > 0) {
+						writePage(-1);
+						startPage(INTERNAL);
+						this.firstKeys.add(childKeys.get(i));
+						this.page.putInt(childPages.get(i));
+						continue;
+					}
+
+					this.page.putShort((short) k.length).put(k);
+					this.page.putInt(childPages.get(i));
+					this.count++;
+				}
+
+				writePage(-1);
+				height++;
+			}
+
+			ByteBuffer header = ByteBuffer.allocate(PAGE_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putInt(PAGE_SIZE);
+			header.putInt(this.pages.get(0)).putInt(height).putLong(entries);
+			header.putLong(sourceLength).putLong(sourceModified);
+			header.rewind();
+			writeFully(header, 0);
+		}
+
+		private void startPage(byte type) {
+			this.page.clear();
+			this.page.put(type);
+			this.page.putShort((short) 0);  // The count, filled in by writePage()
+			if(type == LEAF) this.page.putInt(0);  // The next leaf, filled in by writePage()
+			this.count = 0;
+		}
+
+		/**
+		 * Writes the page being filled
+		 * @param next The next leaf, or -1 for an internal page
+		 */
+		private void writePage(int next) throws IOException {
+
+			this.page.putShort(1, (short) this.count);
+			if(next >= 0) this.page.putInt(3, next);
+
+			this.page.rewind();
+			this.page.limit(PAGE_SIZE);
+			writeFully(this.page, (long) this.nextPage * PAGE_SIZE);
+			this.pages.add(this.nextPage);
+			this.nextPage++;
+		}
+
+		private void writeFully(ByteBuffer buffer, long position) throws IOException {
+			while(buffer.hasRemaining()) {
+				position += this.out.write(buffer, position);
+			}
+		}
+	}
+
+}
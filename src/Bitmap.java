@@ -0,0 +1,399 @@
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed set of non-negative ints, laid out like a Roaring bitmap.
+ * The ints are split into chunks of 65536 by their upper 16 bits, and each
+ * chunk holds its lower 16 bits in whichever form is smaller: a sorted
+ * array while it has at most 4096 ints, and a 65536 bit set above that.
+ * A chunk never takes more than 8 KB, and a few scattered ints take a few
+ * bytes each.
+ *
+ * and() and or() go through the two bitmaps chunk by chunk, comparing bit
+ * sets 64 bits at a time and merging arrays, so combining two filters
+ * never looks at ints that are in neither of them. The number of ints in
+ * each chunk is kept as it changes, so getCardinality() costs one addition
+ * per chunk.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class Bitmap {
+
+	private static final int ARRAY_MAX = 4096;  // Most ints held in a sorted array, 8 KB like a bit set
+	private static final int WORDS = 1024;      // longs in the bit set of a chunk
+
+	private char[] keys = new char[0];           // Upper 16 bits of each chunk, in order
+	private Chunk[] chunks = new Chunk[0];
+	private int size;                            // Chunks in use
+
+	/**
+	 * Adds an int to the set
+	 * @param x The int, at least 0
+	 * @return true if it wasn't already in the set
+	 */
+	public boolean add(int x) {
+
+		char key = (char) (x >>> 16);
+		int i = find(key);
+		if(i < 0) {
+			i = -i - 1;
+			insert(i, key, new Chunk());
+		}
+		return this.chunks[i].add((char) x);
+	}
+
+	/**
+	 * Removes an int from the set
+	 * @param x The int
+	 * @return true if it was in the set
+	 */
+	public boolean remove(int x) {
+
+		int i = find((char) (x >>> 16));
+		if(i < 0 || !this.chunks[i].remove((char) x)) return false;
+
+		if(this.chunks[i].count == 0) {
+			System.arraycopy(this.keys, i + 1, this.keys, i, this.size - i - 1);
+			System.arraycopy(this.chunks, i + 1, this.chunks, i, this.size - i - 1);
+			this.chunks[--this.size] = null;
+		}
+		return true;
+	}
+
+	/**
+	 * @param x An int
+	 * @return true if x is in the set
+	 */
+	public boolean contains(int x) {
+		int i = find((char) (x >>> 16));
+		return i >= 0 && this.chunks[i].contains((char) x);
+	}
+
+	/**
+	 * @return The number of ints in the set
+	 */
+	public int getCardinality() {
+
+		int total = 0;
+		for(int i = 0; i < this.size; i++) {
+			total += this.chunks[i].count;
+		}
+		return total;
+	}
+
+	/**
+	 * @return true if the set has no ints
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * @return The smallest int in the set, or -1 if it is empty
+	 */
+	public int first() {
+		return this.size == 0 ? -1 : this.keys[0] << 16 | this.chunks[0].first();
+	}
+
+	/**
+	 * Passes every int in the set to an action, smallest first
+	 * @param action The action
+	 */
+	public void forEach(IntConsumer action) {
+		for(int i = 0; i < this.size; i++) {
+			this.chunks[i].forEach(this.keys[i] << 16, action);
+		}
+	}
+
+	/**
+	 * @param other Another set
+	 * @return A new set of the ints in both sets
+	 */
+	public Bitmap and(Bitmap other) {
+
+		Bitmap result = new Bitmap();
+		int i = 0;
+		int j = 0;
+
+		while(i < this.size && j < other.size) {
+			if(this.keys[i] < other.keys[j]) {
+				i++;
+			}
+			else if(this.keys[i] > other.keys[j]) {
+				j++;
+			}
+			else {
+				Chunk c = this.chunks[i].and(other.chunks[j]);
+				if(c.count > 0) result.insert(result.size, this.keys[i], c);
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param other Another set
+	 * @return A new set of the ints in either set
+	 */
+	public Bitmap or(Bitmap other) {
+
+		Bitmap result = new Bitmap();
+		int i = 0;
+		int j = 0;
+
+		while(i < this.size || j < other.size) {
+			if(j == other.size || (i < this.size && this.keys[i] < other.keys[j])) {
+				result.insert(result.size, this.keys[i], this.chunks[i].copy());
+				i++;
+			}
+			else if(i == this.size || this.keys[i] > other.keys[j]) {
+				result.insert(result.size, other.keys[j], other.chunks[j].copy());
+				j++;
+			}
+			else {
+				result.insert(result.size, this.keys[i], this.chunks[i].or(other.chunks[j]));
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return A new set of the same ints
+	 */
+	public Bitmap copy() {
+		return or(new Bitmap());
+	}
+
+	@Override
+	public String toString() {
+
+		StringJoiner sj = new StringJoiner(", ", "{", "}");
+		forEach(x -> sj.add(String.valueOf(x)));
+		return sj.toString();
+	}
+
+	/**
+	 * @param key The upper 16 bits of a chunk
+	 * @return The position of the chunk, or -(the position it would go at) - 1
+	 */
+	private int find(char key) {
+		return Arrays.binarySearch(this.keys, 0, this.size, key);
+	}
+
+	private void insert(int i, char key, Chunk chunk) {
+
+		if(this.size == this.keys.length) {
+			int grown = Math.max(4, this.size * 2);
+			this.keys = Arrays.copyOf(this.keys, grown);
+			this.chunks = Arrays.copyOf(this.chunks, grown);
+		}
+		System.arraycopy(this.keys, i, this.keys, i + 1, this.size - i);
+		System.arraycopy(this.chunks, i, this.chunks, i + 1, this.size - i);
+		this.keys[i] = key;
+		this.chunks[i] = chunk;
+		this.size++;
+	}
+
+	/**
+	 * The lower 16 bits of the ints in one chunk, either as a sorted array
+	 * or as a bit set
+	 */
+	private static class Chunk {
+
+		char[] array = new char[4];  // Sorted, while bits is null
+		long[] bits;                 // Once there are more than ARRAY_MAX ints
+		int count;
+
+		boolean add(char x) {
+
+			if(this.bits != null) {
+				long before = this.bits[x >>> 6];
+				this.bits[x >>> 6] |= 1L << x;
+				if(before == this.bits[x >>> 6]) return false;
+				this.count++;
+				return true;
+			}
+
+			int i = Arrays.binarySearch(this.array, 0, this.count, x);
+			if(i >= 0) return false;
+			i = -i - 1;
+
+			if(this.count == ARRAY_MAX) {
+				toBits();
+				return add(x);
+			}
+			if(this.count == this.array.length) {
+				this.array = Arrays.copyOf(this.array, Math.min(ARRAY_MAX, this.count * 2));
+			}
+			System.arraycopy(this.array, i, this.array, i + 1, this.count - i);
+			this.array[i] = x;
+			this.count++;
+			return true;
+		}
+
+		boolean remove(char x) {
+
+			if(this.bits != null) {
+				long before = this.bits[x >>> 6];
+				this.bits[x >>> 6] &= ~(1L << x);
+				if(before == this.bits[x >>> 6]) return false;
+				if(--this.count <= ARRAY_MAX / 2) toArray();  // Not at ARRAY_MAX, so one int can't flip it back and forth
+				return true;
+			}
+
+			int i = Arrays.binarySearch(this.array, 0, this.count, x);
+			if(i < 0) return false;
+			System.arraycopy(this.array, i + 1, this.array, i, this.count - i - 1);
+			this.count--;
+			return true;
+		}
+
+		boolean contains(char x) {
+			if(this.bits != null) return (this.bits[x >>> 6] & (1L << x)) != 0;
+			return Arrays.binarySearch(this.array, 0, this.count, x) >= 0;
+		}
+
+		int first() {
+
+			if(this.bits == null) return this.array[0];
+			int w = 0;
+			while(this.bits[w] == 0) w++;
+			return (w << 6) + Long.numberOfTrailingZeros(this.bits[w]);
+		}
+
+		void forEach(int high, IntConsumer action) {
+
+			if(this.bits == null) {
+				for(int i = 0; i < this.count; i++) {
+					action.accept(high | this.array[i]);
+				}
+				return;
+			}
+
+			for(int w = 0; w < WORDS; w++) {
+				long word = this.bits[w];
+				while(word != 0) {
+					action.accept(high | (w << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		}
+
+		Chunk and(Chunk other) {
+
+			Chunk result = new Chunk();
+
+			if(this.bits != null && other.bits != null) {
+				result.bits = new long[WORDS];
+				for(int w = 0; w < WORDS; w++) {
+					result.bits[w] = this.bits[w] & other.bits[w];
+					result.count += Long.bitCount(result.bits[w]);
+				}
+				if(result.count <= ARRAY_MAX) result.toArray();
+			}
+			else if(this.bits != null || other.bits != null) {
+				// Keep the ints of the array that are set in the bit set
+				Chunk array = this.bits == null ? this : other;
+				Chunk set = this.bits == null ? other : this;
+				result.array = new char[Math.max(4, array.count)];
+				for(int i = 0; i < array.count; i++) {
+					if(set.contains(array.array[i])) result.array[result.count++] = array.array[i];
+				}
+			}
+			else {
+				// Walk both sorted arrays together
+				result.array = new char[Math.max(4, Math.min(this.count, other.count))];
+				int i = 0;
+				int j = 0;
+				while(i < this.count && j < other.count) {
+					if(this.array[i] < other.array[j]) i++;
+					else if(this.array[i] > other.array[j]) j++;
+					else {
+						result.array[result.count++] = this.array[i];
+						i++;
+						j++;
+					}
+				}
+			}
+			return result;
+		}
+
+		Chunk or(Chunk other) {
+
+			if(this.bits == null && other.bits == null && this.count + other.count <= ARRAY_MAX) {
+				// Merge both sorted arrays
+				Chunk result = new Chunk();
+				result.array = new char[Math.max(4, this.count + other.count)];
+				int i = 0;
+				int j = 0;
+				while(i < this.count || j < other.count) {
+					char x;
+					if(j == other.count || (i < this.count && this.array[i] < other.array[j])) x = this.array[i++];
+					else if(i == this.count || this.array[i] > other.array[j]) x = other.array[j++];
+					else {
+						x = this.array[i++];
+						j++;
+					}
+					result.array[result.count++] = x;
+				}
+				return result;
+			}
+
+			Chunk result = this.copy();
+			if(result.bits == null) result.toBits();
+
+			if(other.bits != null) {
+				result.count = 0;
+				for(int w = 0; w < WORDS; w++) {
+					result.bits[w] |= other.bits[w];
+					result.count += Long.bitCount(result.bits[w]);
+				}
+			}
+			else {
+				for(int i = 0; i < other.count; i++) {
+					result.add(other.array[i]);
+				}
+			}
+			if(result.count <= ARRAY_MAX / 2) result.toArray();
+			return result;
+		}
+
+		Chunk copy() {
+
+			Chunk c = new Chunk();
+			c.count = this.count;
+			c.array = this.bits == null ? Arrays.copyOf(this.array, Math.max(4, this.count)) : null;
+			c.bits = this.bits == null ? null : this.bits.clone();
+			return c;
+		}
+
+		private void toBits() {
+
+			this.bits = new long[WORDS];
+			for(int i = 0; i < this.count; i++) {
+				this.bits[this.array[i] >>> 6] |= 1L << this.array[i];
+			}
+			this.array = null;
+		}
+
+		private void toArray() {
+
+			char[] array = new char[Math.max(4, this.count)];
+			int n = 0;
+			for(int w = 0; w < WORDS; w++) {
+				long word = this.bits[w];
+				while(word != 0) {
+					array[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+			this.array = array;
+			this.bits = null;
+		}
+	}
+
+}
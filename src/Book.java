@@ -1,3 +1,4 @@
+import java.util.Locale;
 
 /**
  * 
@@ -8,8 +9,9 @@
 public class Book {
 
 	private String title;
-	private String author;
-	private String series;
+	private String titleKey;             // The title in lower case, worked out the first time it is sorted
+	private StringPool.Value author;     // Shared with every other Book by the same author
+	private StringPool.Value series;     // Shared with every other Book in the same series
 	private int numPages;
 	private int wordCount;
 	private String startDate;
@@ -28,8 +30,8 @@ public class Book {
 	public Book(String title, String author, String series, int numPages, int wordCount) {
 		
 		this.title = title;
-		this.author = author;
-		this.series = series;
+		setAuthor(author);
+		setSeries(series);
 		this.numPages = numPages;
 		this.wordCount = wordCount;
 	}
@@ -47,8 +49,8 @@ public class Book {
 	public Book(String title, String author, String series, int numPages, int wordCount, String startDate, String endDate) {
 		
 		this.title = title;
-		this.author = author;
-		this.series = series;
+		setAuthor(author);
+		setSeries(series);
 		this.numPages = numPages;
 		this.wordCount = wordCount;
 		this.startDate = startDate;
@@ -63,8 +65,9 @@ public class Book {
 	public void copy(Book book) {
 		// Set all of the attributes to the attributes in book
 		this.title = book.getTitle();
-		this.author = book.getAuthor();
-		this.series = book.getSeries();
+		this.titleKey = book.titleKey;
+		this.author = book.author;
+		this.series = book.series;
 		this.numPages = book.getNumPages();
 		this.wordCount = book.getWordCount();
 		this.startDate = book.getStartDate();
@@ -79,7 +82,7 @@ public class Book {
 		sb.append("\n");
 		sb.append(this.title);
 		sb.append(" by ");
-		sb.append(this.author);
+		sb.append(getAuthor());
 		sb.append("\nBook Stats:\n Number of Pages: ");
 		sb.append(this.numPages);
 		sb.append("\n Word Count: ");
@@ -92,6 +95,15 @@ public class Book {
 		return sb.toString();
 	}
 	
+	/**
+	 * Gets the value that identifies this Book. Two Books have the same
+	 * key when equals() returns true for them.
+	 * @return The title, author and series in lower case
+	 */
+	public String getKey() {
+		return (this.title + "@!@" + getAuthor() + "@!@" + getSeries()).toLowerCase(Locale.ROOT);
+	}
+	
 	/**
 	 * Compares the current Book object with a Book object passed as 
 	 * an argument
@@ -102,8 +114,9 @@ public class Book {
 		
 		boolean isEqual = false;  // Initialize return value to false
 		
-		if((this.title.equalsIgnoreCase(b.getTitle())) && (this.author.equalsIgnoreCase(b.getAuthor())) 
-				&& (this.series.equalsIgnoreCase(b.getSeries()))) {
+		// Authors and series that are equal ignoring case share a StringPool code
+		if((this.title.equalsIgnoreCase(b.getTitle())) && (getAuthorCode() == b.getAuthorCode()) 
+				&& (getSeriesCode() == b.getSeriesCode())) {
 			isEqual = true;
 		}
 		
@@ -129,26 +142,66 @@ public class Book {
 	
 	public void setTitle(String title) {
 		this.title = title;
+		this.titleKey = null;
 	}
 	
 	public String getTitle() {
 		return this.title;
 	}
 	
+	/**
+	 * @return The title in lower case, which is what the Book is sorted by
+	 */
+	public String getTitleKey() {
+		
+		if(this.titleKey == null && this.title != null) {
+			this.titleKey = this.title.toLowerCase(Locale.ROOT);
+		}
+		return this.titleKey;
+	}
+	
 	public void setAuthor(String author) {
-		this.author = author;
+		this.author = StringPool.AUTHORS.get(author);
 	}
 	
 	public String getAuthor() {
-		return this.author;
+		return this.author == null ? null : this.author.getValue();
+	}
+	
+	/**
+	 * @return A code that is the same for every Book whose author is equal ignoring case
+	 */
+	public int getAuthorCode() {
+		return this.author == null ? -1 : this.author.getCode();
+	}
+	
+	/**
+	 * @return The author surname first and in lower case, which is what the Book is sorted by
+	 */
+	public String getAuthorKey() {
+		return this.author == null ? null : this.author.getSortKey();
 	}
 	
 	public void setSeries(String series) {
-		this.series = series;
+		this.series = StringPool.SERIES.get(series);
 	}
 	
 	public String getSeries() {
-		return this.series;
+		return this.series == null ? null : this.series.getValue();
+	}
+	
+	/**
+	 * @return A code that is the same for every Book whose series is equal ignoring case
+	 */
+	public int getSeriesCode() {
+		return this.series == null ? -1 : this.series.getCode();
+	}
+	
+	/**
+	 * @return The series in lower case, which is what the Book is sorted by
+	 */
+	public String getSeriesKey() {
+		return this.series == null ? null : this.series.getSortKey();
 	}
 	
 	public int getNumPages() {
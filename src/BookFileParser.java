@@ -0,0 +1,258 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Parses a Book data file on every core. The file is split into byte
+ * ranges that each start at the beginning of a line, every range is read
+ * through a FileChannel and parsed on its own thread, and the books from
+ * each range are then joined back together in file order. The file is
+ * UTF-8, and as a range always starts after a newline byte it never splits
+ * a character.
+ *
+ * Files smaller than a single range are parsed on the calling thread.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class BookFileParser {
+
+	private static final int MIN_CHUNK = 4 * 1024 * 1024;   // Smallest range worth its own thread
+	private static final int MAX_CHUNK = 64 * 1024 * 1024;  // Largest range read into memory at once
+	private static final int SCAN_SIZE = 8 * 1024;          // Bytes read at a time when looking for the end of a line
+
+	private final ArrayList<Book> books = new ArrayList<Book>();
+	private int corrupt;  // Records that were skipped because they were damaged
+	private long bytes;   // Size of the file
+
+	private BookFileParser() {
+	}
+
+	/**
+	 * Parses every record in a Book data file
+	 * @param file The path of the data file
+	 * @return The parsed file
+	 * @throws IOException If the file could not be read
+	 */
+	public static BookFileParser parse(String file) throws IOException {
+
+		BookFileParser result = new BookFileParser();
+
+		try(FileChannel fc = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+
+			result.bytes = fc.size();
+			long[] bounds = split(fc, result.bytes);
+
+			List<Chunk> chunks;
+			if(bounds.length == 2) {
+				chunks = Collections.singletonList(Chunk.parse(fc, 0, result.bytes));
+			}
+			else {
+				List<Callable<Chunk>> tasks = new ArrayList<Callable<Chunk>>();
+				for(int i = 0; i < bounds.length - 1; i++) {
+					long from = bounds[i];
+					long to = bounds[i + 1];
+					tasks.add(() -> Chunk.parse(fc, from, to));
+				}
+				chunks = Parallel.invokeAll(tasks);
+			}
+
+			result.merge(chunks);
+		}
+		catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
+		catch(ExecutionException e) {
+			Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+			if(cause instanceof IOException) throw (IOException) cause;
+			if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+			throw new IOException(cause);
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return The books in the file, in the order they were in the file
+	 */
+	public ArrayList<Book> getBooks() {
+		return this.books;
+	}
+
+	/**
+	 * @return The number of records that were skipped because they were damaged
+	 */
+	public int getCorrupt() {
+		return this.corrupt;
+	}
+
+	/**
+	 * @return The size of the file in bytes
+	 */
+	public long getBytes() {
+		return this.bytes;
+	}
+
+	/**
+	 * Splits a file into ranges that each start at the beginning of a line
+	 * @param fc The file
+	 * @param size The size of the file
+	 * @return The offset each range starts at, followed by the size of the file
+	 * @throws IOException If the file could not be read
+	 */
+	private static long[] split(FileChannel fc, long size) throws IOException {
+
+		// A few ranges per thread so that one slow range doesn't hold the rest up
+		long chunks = Math.min(size / MIN_CHUNK, Parallel.getParallelism() * 4L);
+		chunks = Math.max(chunks, (size + MAX_CHUNK - 1) / MAX_CHUNK);
+		chunks = Math.max(chunks, 1);
+
+		long[] bounds = new long[(int) chunks + 1];
+		bounds[bounds.length - 1] = size;
+
+		for(int i = 1; i < chunks; i++) {
+			long start = Math.max(size * i / chunks, bounds[i - 1]);
+			bounds[i] = nextLine(fc, start, size);
+		}
+		return bounds;
+	}
+
+	/**
+	 * Finds the start of the first line that begins at or after an offset
+	 * @param fc The file
+	 * @param offset The offset to start looking from
+	 * @param size The size of the file
+	 * @return The offset of the start of the line, or size if there isn't one
+	 * @throws IOException If the file could not be read
+	 */
+	private static long nextLine(FileChannel fc, long offset, long size) throws IOException {
+
+		if(offset == 0) return 0;
+
+		ByteBuffer buf = ByteBuffer.allocate(SCAN_SIZE);
+		long pos = offset - 1;  // The line starts after a newline, which may be the byte before offset
+
+		while(pos < size) {
+			buf.clear();
+			int read = fc.read(buf, pos);
+			if(read < 0) break;
+			for(int i = 0; i < read; i++) {
+				if(buf.get(i) == '\n') return pos + i + 1;
+			}
+			pos += read;
+		}
+		return size;
+	}
+
+	/**
+	 * Joins the books of each range in file order. A record without a
+	 * checksum is only kept if no record before it in the file had one.
+	 * @param chunks The parsed ranges, in file order
+	 */
+	private void merge(List<Chunk> chunks) {
+
+		int total = 0;
+		for(Chunk c : chunks) total += c.books.size();
+		this.books.ensureCapacity(total);
+
+		boolean checked = false;  // Whether a record with a checksum has been read
+
+		for(Chunk c : chunks) {
+
+			this.corrupt += c.corrupt;
+
+			if(c.legacy.isEmpty()) {
+				this.books.addAll(c.books);
+			}
+			else {
+				for(int i = 0; i < c.books.size(); i++) {
+					if(!c.legacy.get(i)) {
+						checked = true;
+					}
+					else if(checked) {
+						this.corrupt++;
+						continue;
+					}
+					this.books.add(c.books.get(i));
+				}
+			}
+
+			checked |= c.books.size() > c.legacy.cardinality();
+		}
+	}
+
+	/**
+	 * The books parsed from one range of the file
+	 */
+	private static class Chunk {
+
+		final ArrayList<Book> books = new ArrayList<Book>();
+		final BitSet legacy = new BitSet();  // The books whose records had no checksum
+		int corrupt;
+
+		/**
+		 * Reads and parses one range of the file
+		 * @param fc The file
+		 * @param from The offset of the first byte, at the start of a line
+		 * @param to The offset after the last byte, at the start of a line or the end of the file
+		 * @return The parsed range
+		 */
+		static Chunk parse(FileChannel fc, long from, long to) {
+
+			Chunk chunk = new Chunk();
+			byte[] bytes = new byte[(int) (to - from)];
+			ByteBuffer buf = ByteBuffer.wrap(bytes);
+
+			try {
+				while(buf.hasRemaining()) {
+					if(fc.read(buf, from + buf.position()) < 0) break;
+				}
+			}
+			catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+
+			// The data file is UTF-8, which the record checksums are taken over. The range starts
+			// and ends next to a newline byte, which is never part of a multi-byte character.
+			String text = new String(bytes, 0, buf.position(), StandardCharsets.UTF_8);
+			int start = 0;
+
+			while(start < text.length()) {
+
+				int end = text.indexOf('\n', start);
+				if(end < 0) end = text.length();
+
+				int lineEnd = end > start && text.charAt(end - 1) == '\r' ? end - 1 : end;
+				chunk.add(text.substring(start, lineEnd));
+				start = end + 1;
+			}
+
+			return chunk;
+		}
+
+		/**
+		 * Parses a single record
+		 * @param line The record
+		 */
+		private void add(String line) {
+
+			// Split the line by the delimiter, skipping it if the checksum doesn't match
+			String[] fields = LibraryStore.verify(line, LibraryStore.BOOK_FIELDS);
+			Book b = fields == null ? null : LibraryStore.parseBook(fields, 0);
+
+			if(b == null) {
+				this.corrupt++;
+				return;
+			}
+
+			if(fields.length == LibraryStore.BOOK_FIELDS) this.legacy.set(this.books.size());
+			this.books.add(b);
+		}
+	}
+
+}
@@ -0,0 +1,287 @@
+import java.time.*;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * A time series, such as the pages read each day, kept at four resolutions
+ * at once: totals for each day, week, month and year. A chart asks for the
+ * series with the number of points it has room for, and gets the finest
+ * resolution that fits. If even the yearly totals don't fit, the points are
+ * thinned out with the Largest Triangle Three Buckets algorithm, which keeps
+ * the peaks and dips that give the line its shape.
+ *
+ * Has no dependency on JavaFX. Main turns a Series into chart data.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class ChartData {
+
+	/**
+	 * The length of time each point of a series covers
+	 */
+	public enum Resolution {
+
+		DAY, WEEK, MONTH, YEAR;
+
+		/**
+		 * @param date Any date
+		 * @return The first day of the period that date falls in
+		 */
+		public LocalDate start(LocalDate date) {
+			switch(this) {
+			case WEEK: return date.minusDays(date.getDayOfWeek().getValue() - 1);  // Weeks start on Monday
+			case MONTH: return date.withDayOfMonth(1);
+			case YEAR: return date.withDayOfYear(1);
+			default: return date;
+			}
+		}
+
+		/**
+		 * @param start The first day of a period
+		 * @return The first day of the period after it
+		 */
+		public LocalDate next(LocalDate start) {
+			switch(this) {
+			case WEEK: return start.plusWeeks(1);
+			case MONTH: return start.plusMonths(1);
+			case YEAR: return start.plusYears(1);
+			default: return start.plusDays(1);
+			}
+		}
+
+		/**
+		 * @param from The first day of the first period
+		 * @param to The first day of the last period
+		 * @return The number of periods from the first to the last, inclusive
+		 */
+		public long count(LocalDate from, LocalDate to) {
+			switch(this) {
+			case WEEK: return ChronoUnit.WEEKS.between(from, to) + 1;
+			case MONTH: return ChronoUnit.MONTHS.between(from, to) + 1;
+			case YEAR: return ChronoUnit.YEARS.between(from, to) + 1;
+			default: return ChronoUnit.DAYS.between(from, to) + 1;
+			}
+		}
+
+		/**
+		 * @param start The first day of a period
+		 * @return A short label for the period, such as 2020-03 for a month
+		 */
+		public String label(LocalDate start) {
+			switch(this) {
+			case MONTH: return YearMonth.from(start).toString();
+			case YEAR: return String.valueOf(start.getYear());
+			default: return start.toString();
+			}
+		}
+	}
+
+	// The total for each period at each resolution, keyed by the first day of the period
+	private final EnumMap<Resolution, TreeMap<LocalDate, Double>> rollups =
+			new EnumMap<Resolution, TreeMap<LocalDate, Double>>(Resolution.class);
+
+	/**
+	 * Creates an empty series
+	 */
+	public ChartData() {
+		for(Resolution r : Resolution.values()) {
+			this.rollups.put(r, new TreeMap<LocalDate, Double>());
+		}
+	}
+
+	/**
+	 * Creates a series from daily values
+	 * @param daily The value for each day, such as the pages read that day
+	 */
+	public ChartData(Map<LocalDate, Double> daily) {
+		this();
+		for(Map.Entry<LocalDate, Double> et : daily.entrySet()) {
+			add(et.getKey(), et.getValue());
+		}
+	}
+
+	/**
+	 * Adds to the value of a day, updating the total of every period it falls in.
+	 * A period whose total comes back to zero is dropped, so taking away what
+	 * was added leaves the series as it was.
+	 * @param date The day
+	 * @param value The amount to add, which may be negative
+	 */
+	public void add(LocalDate date, double value) {
+		for(Resolution r : Resolution.values()) {
+			this.rollups.get(r).merge(r.start(date), value, (a, b) -> a + b == 0 ? null : a + b);
+		}
+	}
+
+	/**
+	 * @param r The resolution
+	 * @return The total for each period that has a value, keyed by the first day of the period
+	 */
+	public SortedMap<LocalDate, Double> getRollup(Resolution r) {
+		return Collections.unmodifiableSortedMap(this.rollups.get(r));
+	}
+
+	/**
+	 * @return true if there are no values
+	 */
+	public boolean isEmpty() {
+		return this.rollups.get(Resolution.DAY).isEmpty();
+	}
+
+	/**
+	 * Finds the finest resolution at which the series fits in a chart
+	 * @param maxPoints The most points the chart has room for
+	 * @return The finest resolution with no more periods than maxPoints, or
+	 * YEAR if none of them fit
+	 */
+	public Resolution pick(int maxPoints) {
+
+		if(isEmpty()) return Resolution.DAY;
+
+		TreeMap<LocalDate, Double> days = this.rollups.get(Resolution.DAY);
+		for(Resolution r : Resolution.values()) {
+			if(r.count(r.start(days.firstKey()), r.start(days.lastKey())) <= maxPoints) return r;
+		}
+		return Resolution.YEAR;
+	}
+
+	/**
+	 * Gets the series at the finest resolution that fits in a chart
+	 * @param maxPoints The most points the chart has room for, at least 3
+	 * @return No more than maxPoints points
+	 */
+	public Series series(int maxPoints) {
+		return series(pick(maxPoints), maxPoints);
+	}
+
+	/**
+	 * Gets the series at a resolution, thinned out if there are too many periods
+	 * @param r The resolution
+	 * @param maxPoints The most points the chart has room for, at least 3
+	 * @return One point for every period from the first value to the last,
+	 * including periods with nothing in them, thinned out to maxPoints
+	 */
+	public Series series(Resolution r, int maxPoints) {
+
+		TreeMap<LocalDate, Double> totals = this.rollups.get(r);
+		if(totals.isEmpty()) return new Series(r, new long[0], new double[0]);
+
+		LocalDate first = totals.firstKey();
+		int n = (int) r.count(first, totals.lastKey());
+		long[] x = new long[n];    // The first day of each period, as an epoch day
+		double[] y = new double[n];
+
+		// Fill in every period so gaps show up as zero rather than as a straight line
+		LocalDate d = first;
+		for(int i = 0; i < n; i++) {
+			x[i] = d.toEpochDay();
+			y[i] = totals.getOrDefault(d, 0.0);
+			d = r.next(d);
+		}
+
+		return downsample(new Series(r, x, y), maxPoints);
+	}
+
+	/**
+	 * Thins a series out with the Largest Triangle Three Buckets algorithm.
+	 * The first and last points are always kept. The points between them
+	 * are split into buckets, and from each bucket the point that makes the
+	 * largest triangle with the point kept before it and the average of the
+	 * next bucket is kept.
+	 * @param s The series
+	 * @param maxPoints The most points to keep, at least 3
+	 * @return s if it already fits, otherwise a series of maxPoints points
+	 */
+	public static Series downsample(Series s, int maxPoints) {
+
+		int n = s.size();
+		if(n <= maxPoints || maxPoints < 3) return s;
+
+		long[] x = new long[maxPoints];
+		double[] y = new double[maxPoints];
+		double every = (double) (n - 2) / (maxPoints - 2);  // Points in each bucket
+		int a = 0;  // The last point kept
+
+		x[0] = s.x[0];
+		y[0] = s.y[0];
+
+		for(int i = 0; i < maxPoints - 2; i++) {
+
+			// The average of the next bucket
+			int avgFrom = (int) ((i + 1) * every) + 1;
+			int avgTo = Math.min((int) ((i + 2) * every) + 1, n);
+			double avgX = 0;
+			double avgY = 0;
+			for(int j = avgFrom; j < avgTo; j++) {
+				avgX += s.x[j];
+				avgY += s.y[j];
+			}
+			avgX /= avgTo - avgFrom;
+			avgY /= avgTo - avgFrom;
+
+			// The point in this bucket that makes the largest triangle
+			int from = (int) (i * every) + 1;
+			int to = (int) ((i + 1) * every) + 1;
+			double maxArea = -1;
+			int kept = from;
+			for(int j = from; j < to; j++) {
+				double area = Math.abs((s.x[a] - avgX) * (s.y[j] - s.y[a])
+						- (s.x[a] - s.x[j]) * (avgY - s.y[a]));
+				if(area > maxArea) {
+					maxArea = area;
+					kept = j;
+				}
+			}
+
+			x[i + 1] = s.x[kept];
+			y[i + 1] = s.y[kept];
+			a = kept;
+		}
+
+		x[maxPoints - 1] = s.x[n - 1];
+		y[maxPoints - 1] = s.y[n - 1];
+		return new Series(s.resolution, x, y);
+	}
+
+	/**
+	 * Points ready to be drawn, in date order
+	 */
+	public static class Series {
+
+		private final Resolution resolution;
+		private final long[] x;    // The first day of each period, as an epoch day
+		private final double[] y;  // The total for each period
+
+		Series(Resolution resolution, long[] x, double[] y) {
+			this.resolution = resolution;
+			this.x = x;
+			this.y = y;
+		}
+
+		public Resolution getResolution() {
+			return this.resolution;
+		}
+
+		public int size() {
+			return this.x.length;
+		}
+
+		public LocalDate getDate(int i) {
+			return LocalDate.ofEpochDay(this.x[i]);
+		}
+
+		public double getValue(int i) {
+			return this.y[i];
+		}
+
+		/**
+		 * @param i The position of the point
+		 * @return A label for the period of the point
+		 */
+		public String getLabel(int i) {
+			return this.resolution.label(getDate(i));
+		}
+	}
+
+}
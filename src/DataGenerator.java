@@ -0,0 +1,278 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.util.*;
+
+/**
+ * Generates large, realistic Book and reading data sets for load testing.
+ * The same seed always produces the same data, and books are generated one
+ * at a time so that files with tens of millions of rows can be written
+ * without holding them in memory.
+ *
+ * Usage: java DataGenerator numBooks [years] [seed] [bookFile] [readFile]
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class DataGenerator {
+
+	private static final String[] FIRST_NAMES = {"George", "Brandon", "Robin", "Ursula", "Terry", "Patrick",
+			"Neil", "Margaret", "Stephen", "Jordan", "Frank", "Isaac", "Octavia", "Joe", "Mary", "Jane",
+			"Agatha", "Leo", "Fyodor", "Haruki", "Toni", "Kazuo", "Cormac", "Ann", "Philip", "Arthur"};
+	private static final String[] LAST_NAMES = {"Martin", "Sanderson", "Hobb", "Le Guin", "Pratchett",
+			"Rothfuss", "Gaiman", "Atwood", "King", "Peterson", "Herbert", "Asimov", "Butler", "Abercrombie",
+			"Shelley", "Austen", "Christie", "Tolstoy", "Dostoevsky", "Murakami", "Morrison", "Ishiguro",
+			"McCarthy", "Leckie", "Dick", "Clarke", "Jemisin", "Banks", "Wolfe", "Vance", "Zelazny"};
+	private static final String[] INITIALS = {"A.", "B.", "C.", "J.", "K.", "L.", "M.", "R.", "S.", "T."};
+	private static final String[] ADJECTIVES = {"Silent", "Broken", "Golden", "Last", "Hidden", "Burning",
+			"Winter", "Forgotten", "Iron", "Crimson", "Endless", "Shattered", "Hollow", "Distant", "Wise"};
+	private static final String[] NOUNS = {"Kings", "Swords", "Crows", "Dragons", "Empire", "Storm",
+			"River", "Tower", "Night", "Throne", "Sea", "Stars", "Garden", "Winds", "Shadow", "Dawn", "Time"};
+	private static final String[] GENRES = {"Philosophy", "Science", "Science Fiction", "Fantasy", "History",
+			"Biography", "Self Help", "Mystery", "Horror", "Poetry", "Economics", "Psychology"};
+
+	private final Random rnd;            // Source of all randomness, seeded in the constructor
+	private final LocalDate end;         // The last day any book or reading data can be dated
+	private final int years;             // How many years before end the data can start
+
+	private String seriesName;           // The series that is currently being generated
+	private String seriesAuthor;         // The author of the current series
+	private int seriesLeft;              // The number of books left in the current series
+	private long count;                  // The number of books that have been generated
+
+	/**
+	 * Creates a generator for data dated from years before end up until end
+	 * @param seed The seed used for all random values
+	 * @param years The number of years the data spans
+	 * @param end The last date of the data set
+	 */
+	public DataGenerator(long seed, int years, LocalDate end) {
+		this.rnd = new Random(seed);
+		this.years = years;
+		this.end = end;
+	}
+
+	public static void main(String[] args) throws IOException {
+
+		if(args.length < 1) {
+			System.out.println("Usage: java DataGenerator numBooks [years] [seed] [bookFile] [readFile]");
+			return;
+		}
+
+		long books = Long.parseLong(args[0].replace("_", ""));
+		int years = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 20200305L;
+		String bookFile = args.length > 3 ? args[3] : "bookData";
+		String readFile = args.length > 4 ? args[4] : "ReadingData";
+
+		DataGenerator gen = new DataGenerator(seed, years, LocalDate.now());
+		gen.writeBooks(bookFile, books);
+		gen.writeReadingData(readFile);
+
+		System.out.println("Wrote " + books + " books to " + bookFile + " and " + years +
+				" years of reading data to " + readFile);
+	}
+
+	/**
+	 * Generates the next Book. Books in a series are generated one after
+	 * another by the same author, and roughly a third of all books belong
+	 * to a series.
+	 * @return The generated Book
+	 */
+	public Book nextBook() {
+
+		String author;
+		String series;
+		String title;
+
+		// Start a new series every now and then
+		if(this.seriesLeft == 0 && this.rnd.nextInt(10) == 0) {
+			this.seriesName = (this.rnd.nextBoolean() ? "A " : "The ") + pick(ADJECTIVES) + " " + pick(NOUNS);
+			this.seriesAuthor = nextAuthor();
+			this.seriesLeft = 3 + this.rnd.nextInt(12);
+		}
+
+		if(this.seriesLeft > 0) {
+			// Books in a series share the author and series name
+			author = this.seriesAuthor;
+			series = this.seriesName;
+			title = "A " + pick(ADJECTIVES) + " " + pick(NOUNS);
+			this.seriesLeft--;
+		}
+		else {
+			author = nextAuthor();
+			series = this.rnd.nextInt(3) == 0 ? pick(GENRES) : "NA";
+			title = pick(ADJECTIVES) + " " + pick(NOUNS) + " of " + pick(NOUNS);
+		}
+
+		// Make larger data sets less repetitive without making titles look generated
+		if(this.count >= 1000 && this.rnd.nextInt(4) != 0) {
+			title += " " + Long.toString(this.count, 36).toUpperCase();
+		}
+		this.count++;
+
+		// Page counts are skewed, most books are around 300 pages with a long tail
+		int pages = (int) Math.round(Math.exp(5.8 + 0.5 * this.rnd.nextGaussian()));
+		pages = Math.max(24, Math.min(pages, 3000));
+		// Not every book has a known word count
+		int words = this.rnd.nextInt(8) == 0 ? -1 : pages * (250 + this.rnd.nextInt(80));
+
+		String start = "NA";
+		String finish = "NA";
+		int state = this.rnd.nextInt(10);
+
+		if(state < 7) {
+			// Finished books take a few days to a few months depending on length
+			LocalDate startDate = randomDate();
+			LocalDate endDate = startDate.plusDays(1 + pages / (10 + this.rnd.nextInt(60)));
+			if(endDate.isAfter(this.end)) endDate = this.end;
+			start = startDate.toString();
+			finish = endDate.toString();
+		}
+		else if(state < 8) {
+			// Books that are currently being read
+			start = this.end.minusDays(this.rnd.nextInt(90)).toString();
+		}
+
+		return new Book(title, author, series, pages, words, start, finish);
+	}
+
+	/**
+	 * Generates a Library in memory.
+	 * @param size The number of books to generate
+	 * @return The generated Library
+	 */
+	public Library generateLibrary(int size) {
+
+		Library lib = new Library();
+		for(int i = 0; i < size; i++) {
+			lib.add(nextBook());
+		}
+		return lib;
+	}
+
+	/**
+	 * Generates daily reading data for every year of the data set. The user
+	 * reads on most days, and reads more on weekends.
+	 * @return A TreeMap with the pages read on each date
+	 */
+	public TreeMap<LocalDate, Double> generateReadingData() {
+
+		TreeMap<LocalDate, Double> readingMap = new TreeMap<LocalDate, Double>();
+		for(LocalDate d = this.end.minusYears(this.years); !d.isAfter(this.end); d = d.plusDays(1)) {
+			double pages = nextPages(d);
+			if(pages > 0) readingMap.put(d, pages);
+		}
+		return readingMap;
+	}
+
+	/**
+	 * Writes books to a file in the same format as LibraryStore.save()
+	 * @param path The file to write to
+	 * @param size The number of books to write
+	 * @throws IOException If the file could not be written
+	 */
+	public void writeBooks(String path, long size) throws IOException {
+
+		try(BufferedWriter bw = new BufferedWriter(new FileWriter(path, StandardCharsets.UTF_8), 1 << 16)) {
+
+			StringBuilder sb = new StringBuilder();
+
+			for(long i = 0; i < size; i++) {
+
+				Book b = nextBook();
+
+				sb.append(b.getTitle());
+				sb.append("@!@");
+				sb.append(b.getAuthor());
+				sb.append("@!@");
+				sb.append(b.getSeries());
+				sb.append("@!@");
+				sb.append(b.getNumPages());
+				sb.append("@!@");
+				sb.append(b.getWordCount());
+				sb.append("@!@");
+				sb.append(b.getStartDate());
+				sb.append("@!@");
+				sb.append(b.getEndDate());
+				sb.append("\n");
+
+				bw.write(sb.toString());
+				sb.setLength(0);
+			}
+		}
+	}
+
+	/**
+	 * Writes daily reading data to a file in the same format as LibraryStore.saveReadData()
+	 * @param path The file to write to
+	 * @throws IOException If the file could not be written
+	 */
+	public void writeReadingData(String path) throws IOException {
+
+		try(BufferedWriter bw = new BufferedWriter(new FileWriter(path, StandardCharsets.UTF_8), 1 << 16)) {
+
+			StringBuilder sb = new StringBuilder();
+
+			for(LocalDate d = this.end.minusYears(this.years); !d.isAfter(this.end); d = d.plusDays(1)) {
+
+				double pages = nextPages(d);
+				if(pages <= 0) continue;  // No reading was done on this day
+
+				sb.append(d.getDayOfWeek());
+				sb.append("@!@");
+				sb.append(d.getMonth());
+				sb.append("@!@");
+				sb.append(d.getDayOfMonth());
+				sb.append("@!@");
+				sb.append(d.getYear());
+				sb.append("@!@");
+				sb.append(pages);
+				sb.append("\n");
+
+				bw.write(sb.toString());
+				sb.setLength(0);
+			}
+		}
+	}
+
+	/**
+	 * Generates the number of pages read on a date
+	 * @param d The date being read on
+	 * @return The number of pages read, 0 if the user did not read that day
+	 */
+	private double nextPages(LocalDate d) {
+
+		if(this.rnd.nextInt(5) == 0) return 0;  // Skip about one day in five
+
+		double pages = Math.exp(3.5 + 0.6 * this.rnd.nextGaussian());
+		if(d.getDayOfWeek() == DayOfWeek.SATURDAY || d.getDayOfWeek() == DayOfWeek.SUNDAY) {
+			pages *= 1.6;
+		}
+		return Math.max(1, Math.round(pages));
+	}
+
+	/**
+	 * Generates an author name, sometimes with a middle initial
+	 * @return The authors name
+	 */
+	private String nextAuthor() {
+
+		if(this.rnd.nextInt(4) == 0) {
+			return pick(FIRST_NAMES) + " " + pick(INITIALS) + " " + pick(LAST_NAMES);
+		}
+		return pick(FIRST_NAMES) + " " + pick(LAST_NAMES);
+	}
+
+	/**
+	 * @return A random date within the span of the data set
+	 */
+	private LocalDate randomDate() {
+		return this.end.minusDays(this.rnd.nextInt(Math.max(1, 365 * this.years)));
+	}
+
+	private String pick(String[] values) {
+		return values[this.rnd.nextInt(values.length)];
+	}
+
+}
@@ -0,0 +1,57 @@
+import java.time.*;
+import java.util.*;
+
+/**
+ * The number of books finished each day, as a ChartData series for the
+ * Books Read history chart. Like MonthHistogram, it is built with one pass
+ * over a Library and then listens to it, so adding, editing or removing a
+ * book only changes the totals of the day it was finished on and the
+ * periods around it. Like the Library, it is not safe to use from more
+ * than one thread.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class FinishedHistory extends ChartData implements LibraryListener {
+
+	/**
+	 * Counts the finished books of a Library and keeps the counts up to date
+	 * as the Library changes
+	 * @param lib The Library to count
+	 */
+	public FinishedHistory(Library lib) {
+		for(Book b : lib.getAll()) {
+			change(b, 1);
+		}
+		lib.addListener(this);
+	}
+
+	@Override
+	public void booksAdded(Library lib, int index, List<Book> books) {
+		for(Book b : books) {
+			change(b, 1);
+		}
+	}
+
+	@Override
+	public void bookRemoved(Library lib, int index, Book book) {
+		change(book, -1);
+	}
+
+	@Override
+	public void bookUpdated(Library lib, int index, Book old, Book book) {
+		change(old, -1);
+		change(book, 1);
+	}
+
+	/**
+	 * Adds to the count of the day a book was finished on
+	 * @param b The book. Books that haven't been finished are ignored
+	 * @param amount 1 for a book that was added, -1 for one that was removed
+	 */
+	private void change(Book b, int amount) {
+		LocalDate end = LibraryStats.getFinishDate(b);
+		if(end != null) add(end, amount);
+	}
+
+}
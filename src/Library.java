@@ -1,4 +1,6 @@
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.*;
@@ -12,9 +14,39 @@ import java.time.temporal.ChronoUnit;
  */
 public class Library {
 	
+	// The orders each sort puts the books in. Each compares keys that are worked out once per Book
+	private static final Comparator<String> KEY_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+	private static final Comparator<Book> BY_TITLE = Comparator.comparing(Book::getTitleKey, KEY_ORDER);
+	private static final Comparator<Book> BY_AUTHOR = Comparator.comparing(Book::getAuthorKey, KEY_ORDER);
+	private static final Comparator<Book> BY_SERIES = Comparator.comparing(Book::getSeriesKey, KEY_ORDER);
+	private static final Comparator<Book> BY_PAGES = Comparator.comparingInt(Book::getNumPages);
+	private static final Comparator<Book> BY_WORDS = Comparator.comparingInt(Book::getWordCount);
+	private static final Comparator<Book> BY_END_DATE = (a, b) -> {
+		boolean aDone = isDate(a.getEndDate());
+		boolean bDone = isDate(b.getEndDate());
+		if(aDone != bDone) return aDone ? 1 : -1;                          // Unfinished books first
+		return aDone ? b.getEndDate().compareTo(a.getEndDate()) : 0;     // ISO dates sort as text, newest first
+	};
+	
+	// Hands out versions, so that no two Libraries with different books share one
+	private static final AtomicLong VERSIONS = new AtomicLong();
+	
 	// An ArrayList of the current book data
 	private ArrayList<Book> library = new ArrayList<Book>();
 	
+	// Changes every time a book is added or removed. Sorting doesn't change it
+	private long version = nextVersion();
+	
+	// Books added, edited or removed since the Library was last saved, in the order it was done.
+	// null until markSaved() is called
+	private ArrayList<Change> changes;
+	
+	// Told about every change to the books
+	private final List<LibraryListener> listeners = new CopyOnWriteArrayList<LibraryListener>();
+	
+	// Bitmap indexes for filtering the books, built the first time they are asked for
+	private LibraryIndex index;
+	
 	/**
 	 * Takes a single Book object and adds it to the library list
 	 * @param book A book object that will be added to the list
@@ -22,6 +54,8 @@ public class Library {
 	public void add(Book book) {
 		
 		this.library.add(book);
+		added(book);
+		fireAdded(this.library.size() - 1, Collections.singletonList(book));
 		
 	}
 	
@@ -41,6 +75,67 @@ public class Library {
 	public boolean add(String name, String author, String series, String pages,
 			String word, String start, String end) {
 		
+		Book b = create(name, author, series, pages, word, start, end);
+		
+		// All of the values are valid
+		if(b != null) {
+			// Add the new Book to the existing Library
+			add(b);
+		}
+		
+		return b != null;
+	}
+	
+	/**
+	 * Replaces a Book with an edited copy, keeping its place in the Library.
+	 * Takes in all of the values for the edited Book as Strings and checks
+	 * that they are valid the same way add() does. If old isn't in the
+	 * Library the edited Book is added to the end.
+	 * @param old The Book being edited
+	 * @param name The Title of the Book
+	 * @param author The Author of the Book
+	 * @param series The series that the book belongs to
+	 * @param pages The number of pages the book contains
+	 * @param word The number of words the Book contains. NA if String is empty
+	 * @param start The Date the Book was started
+	 * @param end The Date the Book was finished
+	 * @return true if the Book is updated successfully. false otherwise.
+	 */
+	public boolean update(Book old, String name, String author, String series, String pages,
+			String word, String start, String end) {
+		
+		Book b = create(name, author, series, pages, word, start, end);
+		if(b == null) return false;
+		
+		int index = indexOf(old);
+		if(index < 0) {
+			add(b);
+			return true;
+		}
+		
+		Book replaced = this.library.set(index, b);
+		updated(replaced, b);
+		
+		for(LibraryListener l : this.listeners) {
+			l.bookUpdated(this, index, replaced, b);
+		}
+		return true;
+	}
+	
+	/**
+	 * Creates a Book from values entered as Strings, checking that they are valid
+	 * @param name The Title of the Book
+	 * @param author The Author of the Book
+	 * @param series The series that the book belongs to
+	 * @param pages The number of pages the book contains. NA if String is empty
+	 * @param word The number of words the Book contains. NA if String is empty
+	 * @param start The Date the Book was started. NA if String is empty
+	 * @param end The Date the Book was finished. NA if the String is empty
+	 * @return The Book, or null if any of the values are invalid
+	 */
+	private static Book create(String name, String author, String series, String pages,
+			String word, String start, String end) {
+		
 		boolean success = true;  // Initialize boolean to true
 		int pageCount = -1;      // Used to store the number of pages
 		int wordCount = -1;      // Used to store the number of words
@@ -77,14 +172,8 @@ public class Library {
 			success = false;
 		}
 		
-		// All of the values are valid
-		if(success) {
-			// Create a Book object and add it to the existing Library
-			Book b = new Book(name, author, bSeries, pageCount, wordCount, start, end);
-			this.library.add(b);
-		}
-		
-		return success;
+		if(!success) return null;
+		return new Book(name, author, bSeries, pageCount, wordCount, start, end);
 	}
 	
 	/**
@@ -92,7 +181,10 @@ public class Library {
 	 * @param bookList The ArrayList of type Book
 	 */
 	public void add(ArrayList<Book> bookList) {
+		int index = this.library.size();
 		this.library.addAll(bookList);
+		for(Book b : bookList) added(b);
+		if(!bookList.isEmpty()) fireAdded(index, Collections.unmodifiableList(bookList));
 	}
 	
 	/**
@@ -125,7 +217,9 @@ public class Library {
 	 * @param pos
 	 */
 	public void remove(int pos) {
-		this.library.remove(pos);
+		Book b = this.library.remove(pos);
+		removed(b);
+		fireRemoved(pos, b);
 	}
 	
 	/**
@@ -136,16 +230,151 @@ public class Library {
 	 */
 	public void remove(Book b) {
 		
+		int i = indexOf(b);
+		if(i >= 0) remove(i);
+	}
+	
+	/**
+	 * Finds where a Book is in the Library
+	 * @param b The Book to look for
+	 * @return The position of the first Book equal to b, -1 if there isn't one
+	 */
+	private int indexOf(Book b) {
+		
 		// Cycle through each book in the library
-		for(int i = 0; i < this.library.size() - 1; i++) {
+		for(int i = 0; i < this.library.size(); i++) {
 			
-			// Get the current book in the list
-			Book temp = this.library.get(i);
 			// Compare the current book with b
-			if(temp.equals(b)) {
-				this.library.remove(i);
-			}
+			if(this.library.get(i).equals(b)) return i;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Registers a listener to be told about every change to the books
+	 * @param listener The listener to add
+	 */
+	public void addListener(LibraryListener listener) {
+		this.listeners.add(listener);
+	}
+	
+	/**
+	 * Gets the bitmap indexes of the books, building them the first time.
+	 * From then on they are kept up to date as books are added, edited
+	 * and removed.
+	 * @return The indexes of the books in this Library
+	 */
+	public LibraryIndex getIndex() {
+		
+		if(this.index == null) {
+			this.index = new LibraryIndex(this);
 		}
+		return this.index;
+	}
+	
+	/**
+	 * Stops a listener from being told about changes
+	 * @param listener The listener to remove
+	 */
+	public void removeListener(LibraryListener listener) {
+		this.listeners.remove(listener);
+	}
+	
+	private void fireAdded(int index, List<Book> books) {
+		for(LibraryListener l : this.listeners) {
+			l.booksAdded(this, index, books);
+		}
+	}
+	
+	private void fireRemoved(int index, Book b) {
+		for(LibraryListener l : this.listeners) {
+			l.bookRemoved(this, index, b);
+		}
+	}
+	
+	/**
+	 * Gets the version of the books in the Library. Two Libraries with the
+	 * same version hold the same books, so anything calculated from one of
+	 * them can be reused for the other.
+	 * @return The version
+	 */
+	public long getVersion() {
+		return this.version;
+	}
+	
+	/**
+	 * Sets the version of the books in the Library. Used by LibraryStore so
+	 * that every Library loaded from the same data file has the same version.
+	 * @param version A version from nextVersion()
+	 */
+	public void setVersion(long version) {
+		this.version = version;
+	}
+	
+	/**
+	 * @return A version that hasn't been used before
+	 */
+	public static long nextVersion() {
+		return VERSIONS.incrementAndGet();
+	}
+	
+	/**
+	 * Starts keeping track of the books that are added and removed, so
+	 * that only those have to be written the next time the Library is
+	 * saved. Called by LibraryStore once the Library matches the data file.
+	 */
+	public void markSaved() {
+		this.changes = new ArrayList<Change>();
+	}
+	
+	/**
+	 * @return true if changes are being tracked, false if the whole Library has to be saved
+	 */
+	public boolean isTracked() {
+		return this.changes != null;
+	}
+	
+	/**
+	 * Gets every change since the last save. Each copy of a book is a
+	 * change of its own, so replaying them in order on the saved books
+	 * gives the same books as the Library has now.
+	 * @return The changes in the order they were made, empty if changes aren't tracked
+	 */
+	public List<Change> getChanges() {
+		
+		if(this.changes == null) return Collections.emptyList();
+		return Collections.unmodifiableList(this.changes);
+	}
+	
+	/**
+	 * Records that a book was added
+	 * @param b The book that was added
+	 */
+	private void added(Book b) {
+		
+		this.version = nextVersion();
+		if(this.changes != null) this.changes.add(new Change(null, b));
+	}
+	
+	/**
+	 * Records that a book was removed
+	 * @param b The book that was removed
+	 */
+	private void removed(Book b) {
+		
+		this.version = nextVersion();
+		if(this.changes != null) this.changes.add(new Change(b, null));
+	}
+	
+	/**
+	 * Records that a book was replaced by an edited copy in the same place
+	 * @param old The book that was replaced
+	 * @param b The book that replaced it
+	 */
+	private void updated(Book old, Book b) {
+		
+		this.version = nextVersion();
+		if(this.changes != null) this.changes.add(new Change(old, b));
 	}
 	
 	/**
@@ -156,6 +385,9 @@ public class Library {
 	 */
 	public Book searchTitle(String title) {
 		
+		long timer = Metrics.start();  // Time how long the search takes
+		LibraryEvents.Search event = LibraryEvents.search("title", this.library.size());
+		
 		// Create an empty book object
 		Book book = new Book();
 		
@@ -167,6 +399,12 @@ public class Library {
 			}
 		}
 		
+		Metrics.stop("search.title", timer);
+		if(event != null) {
+			event.hits = book.isEmpty() ? 0 : 1;
+			event.commit();
+		}
+		
 		// return the book whether or not it was found
 		return book;
 	}
@@ -179,17 +417,29 @@ public class Library {
 	 */
 	public ArrayList<Book> searchAuthor(String author) {
 		
+		long timer = Metrics.start();  // Time how long the search takes
+		LibraryEvents.Search event = LibraryEvents.search("author", this.library.size());
+		
 		// Create an empty ArrayList of Books
 		ArrayList<Book> bookList = new ArrayList<Book>();
 		
+		// Books with the same author ignoring case share a code, -1 if no book has ever had this author
+		int code = StringPool.AUTHORS.find(author);
+		
 		// Go through each book in the library
 		for(Book book : this.library) {
 			// Compare book author with author being searched for
-			if(book.getAuthor().equalsIgnoreCase(author)) {
+			if(code >= 0 && book.getAuthorCode() == code) {
 				bookList.add(book);  // Add the book to the list
 			}
 		}
 		
+		Metrics.stop("search.author", timer);
+		if(event != null) {
+			event.hits = bookList.size();
+			event.commit();
+		}
+		
 		// Return the list 
 		return bookList;
 	}
@@ -203,245 +453,107 @@ public class Library {
 	 */
 	public ArrayList<Book> searchSeries(String series) {
 		
+		long timer = Metrics.start();  // Time how long the search takes
+		LibraryEvents.Search event = LibraryEvents.search("series", this.library.size());
+		
 		// Create an empty ArrayList of Books
 		ArrayList<Book> bookList = new ArrayList<Book>();
 		
+		// Books in the same series ignoring case share a code, -1 if no book has ever been in this series
+		int code = StringPool.SERIES.find(series);
+		
 		// Go through each of the book in the library
 		for(Book book : this.library) {
 			// Compare the series name of book with the series being searched for
-			if(book.getSeries().equalsIgnoreCase(series)) {
+			if(code >= 0 && book.getSeriesCode() == code) {
 				bookList.add(book);  // Add the book to the list
 			}
 		}
 		
+		Metrics.stop("search.series", timer);
+		if(event != null) {
+			event.hits = bookList.size();
+			event.commit();
+		}
+		
 		// Return the list
 		return bookList;
 		
 	}
 	
 	/**
-	 * Sorts the list of books by the author of each book using a 
-	 * bubble sort algorithm.
+	 * Sorts the list of books by the author of each book, surname first.
 	 */
 	public void sortByAuthor() {
-		
-		boolean sorted = false;  // Set boolean initially to false
-		
-		// Loop through the list until it is sorted
-		while(!sorted) {
-			
-			sorted = true;
-			
-			// Cycle through the entire list
-			for(int i = 0; i < this.library.size() - 1; i++) {
-				
-				// Get the Book items to compare
-				Book book1 = this.library.get(i);
-				Book book2 = this.library.get(i + 1);
-				
-				String bookOneAuthor = book1.getAuthor().split(" ")[1];
-				String bookTwoAuthor = book2.getAuthor().split(" ")[1];
-				
-				// Compare the current Book item and the next in the list
-				if(bookOneAuthor.compareToIgnoreCase(bookTwoAuthor) > 0) {
-					
-					// Swap the two books in the list
-					Book temp = book2;
-					this.library.set(i + 1, book1);
-					this.library.set(i, temp);
-					
-					sorted = false;  // Set sorted to false so loop continues
-					
-				}  // END IF
-			}  // END FOR
-		}  // END WHILE
+		sort("author", BY_AUTHOR);
 	}  // SortByAuthor()
 	
 	/**
-	 * Sorts the list of books by the title of each book using 
-	 * a bubble sort algorithm.
+	 * Sorts the list of books by the title of each book.
 	 */
 	public void sortByTitle() {
-		
-		boolean sorted = false;
-		
-		while(!sorted) {
-			
-			sorted = true;
-			
-			for(int i = 0; i < this.library.size() - 1; i++) {
-				
-				Book book1 = this.library.get(i);
-				Book book2 = this.library.get(i + 1);
-				
-				if(book1.getTitle().compareToIgnoreCase(book2.getTitle()) > 0) {
-					
-					Book temp = book2;
-					this.library.set(i + 1, book1);
-					this.library.set(i, temp);
-					
-					sorted = false;
-					
-				}
-				
-			}
-			
-		}
-		
+		sort("title", BY_TITLE);
 	}
 	
 	/**
-	 * Sorts the list of books by the series name using a 
-	 * bubble sort algorithm.
+	 * Sorts the list of books by the series name.
 	 */
 	public void sortBySeries() {
-		
-		boolean sorted = false;
-		
-		while(!sorted) {
-			
-			sorted = true;
-			
-			for(int i = 0; i < this.library.size() - 1; i++) {
-				
-				Book book1 = this.library.get(i);
-				Book book2 = this.library.get(i + 1);
-				
-				if(book1.getSeries().compareToIgnoreCase(book2.getSeries()) > 0) {
-					
-					Book temp = book2;
-					this.library.set(i + 1, book1);
-					this.library.set(i, temp);
-					
-					sorted = false;
-					
-				}
-				
-			}
-			
-		}
-		
+		sort("series", BY_SERIES);
 	}
 	
 	/**
-	 * Sorts the list of books by the Date they were finished
-	 * using a bubble sort algorithm.
+	 * Sorts the list of books by the Date they were finished, with
+	 * the most recent first. Books that haven't been finished come
+	 * before all of the others.
 	 */
 	public void sortByEndDate() {
-		
-		boolean sorted = false;  // Initialize sort value to false
-		
-		// Go until the list is sorted
-		while(!sorted) {
-			
-			sorted = true;
-			
-			// Cycle through the entire list
-			for(int i = 0; i < this.library.size() - 1; i++) {
-				
-				// Get each books endDate and split by '/' delimiter
-				String endDate1 = this.library.get(i).getEndDate();
-				String endDate2 = this.library.get(i + 1).getEndDate();
-				
-				if(!((endDate1.equals("NA")) || (endDate2.equals("NA")))) {  // Make sure both dates can be compared
-					
-					String[] date1 = endDate1.split("-");
-					String[] date2 = endDate2.split("-");
-				
-					// Create Date objects for the Books at position i and i + 1
-					LocalDate book1 = LocalDate.of(Integer.parseInt(date1[0]), Integer.parseInt(date1[1]), Integer.parseInt(date1[2]));
-					LocalDate book2 = LocalDate.of(Integer.parseInt(date2[0]), Integer.parseInt(date2[1]), Integer.parseInt(date2[2]));
-				
-					if(book1.isBefore(book2)) {
-					
-						// Switch the two books
-						Book temp = this.library.get(i + 1);
-						this.library.set(i + 1, this.library.get(i));
-						this.library.set(i, temp);
-					
-						sorted = false;
-					
-					}
-				
-				} 
-				else {  // One of the two end dates is NA
-					
-					Book temp = this.library.get(i+1);  // Get the book at the position i + 1
-					this.library.remove(i+1);           // Remove the Book at position i + 1
-					this.library.add(0, temp);          // Add the Book back at the start of the list
-				}
-				
-			}
-			
-		}
-		
+		sort("endDate", BY_END_DATE);
 	}
 	
 	/**
-	 * Sorts the list of books by the page count using a 
-	 * bubble sort algorithm.
+	 * Sorts the list of books by the page count.
 	 */
 	public void sortByPages() {
-		
-		boolean sorted = false;  // Used as a flag
-		
-		while(!sorted) {
-			
-			sorted = true;
-			
-			for(int i = 0; i < this.library.size() - 1; i++) {
-				
-				// Get the page numbers of the current book and the one ahead of it
-				int book1 = this.library.get(i).getNumPages();
-				int book2 = this.library.get(i + 1).getNumPages();
-				
-				// Compare the two
-				if(book1 > book2) {
-					
-					// Swap them if book1 has more pages than book2 
-					Book temp = this.library.get(i + 1);
-					this.library.set(i + 1, this.library.get(i));
-					this.library.set(i, temp);
-					
-					sorted = false;
-				}
-			}
-			
-		}  // END WHILE
-		
+		sort("pages", BY_PAGES);
 	}  // sortByPages()
 	
 	/**
-	 * Sorts the list of books by the word count using a 
-	 * bubble sort algorithm.
+	 * Sorts the list of books by the word count.
 	 */
 	public void sortByWords() {
+		sort("words", BY_WORDS);
+	}
+	
+	/**
+	 * Sorts the list of books, across every core for large libraries. The
+	 * sort is stable, so books that are equal stay in the order they were in.
+	 * @param key The name of the attribute being sorted by
+	 * @param order The order to put the books in
+	 */
+	private void sort(String key, Comparator<Book> order) {
 		
-		boolean sorted = false;
+		long timer = Metrics.start();  // Time how long the sort takes
+		LibraryEvents.Sort event = LibraryEvents.sort(key, this.library.size());
 		
-		while(!sorted) {
-			
-			sorted = true;
-			
-			for(int i = 0; i < this.library.size() - 1; i++) {
-				
-				int book1 = this.library.get(i).getWordCount();
-				int book2 = this.library.get(i + 1).getWordCount();
-				
-				if(book1 > book2) {
-					
-					Book temp = this.library.get(i + 1);
-					this.library.set(i + 1, this.library.get(i));
-					this.library.set(i, temp);
-					
-					sorted = false;
-					
-				}
-				
-			}
-			
-		}
+		Parallel.sort(this.library, order);
+		
+		Metrics.stop("sort." + key, timer);
+		if(event != null) event.commit();
 		
+		for(LibraryListener l : this.listeners) {
+			l.librarySorted(this);
+		}
+	}
+	
+	/**
+	 * Tells a start or end date apart from NA. Used by everything that keeps
+	 * track of which books have been started or finished.
+	 * @param date A date from a Book
+	 * @return true if date is a date, false if it is NA or missing
+	 */
+	static boolean isDate(String date) {
+		return date != null && !date.equalsIgnoreCase("NA");
 	}
 	
 	/**
@@ -493,5 +605,33 @@ public class Library {
 		
 		return sb.toString();
 	}
+	
+	/**
+	 * A book that was added, edited or removed since the Library was saved
+	 */
+	public static class Change {
+		
+		private final Book old;
+		private final Book book;
+		
+		Change(Book old, Book book) {
+			this.old = old;
+			this.book = book;
+		}
+		
+		/**
+		 * @return The book that was removed or replaced, null if a book was added
+		 */
+		public Book getOld() {
+			return this.old;
+		}
+		
+		/**
+		 * @return The book that was added or replaced the old one, null if a book was removed
+		 */
+		public Book getBook() {
+			return this.book;
+		}
+	}
 
 }
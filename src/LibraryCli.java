@@ -0,0 +1,289 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.time.*;
+import java.util.*;
+
+/**
+ * Command line launcher for scripted exports and statistics jobs. Uses
+ * LibraryStore and LibraryStats directly, so it starts without loading
+ * the JavaFX toolkit.
+ *
+ * Usage: java LibraryCli [options] command [arguments]
+ *
+ * Commands:
+ *   list [title|author|series|pages|words|endDate]  Lists every book, optionally sorted
+ *   search title|author|series text                  Searches the Library
+ *   lookup title|author text                         Finds books with the index files, without loading the Library
+ *   range title|author from [to]                     Lists books from one title or author up to another, using the index files
+ *   filter name=value ...                            Lists the books matching every filter, using the bitmap indexes.
+ *                                                    A name given more than once matches either value. Names are
+ *                                                    status (finished or unfinished), series, author and year
+ *   stats                                            Prints the Statistics page values
+ *   export                                           Writes every book as CSV
+ *
+ * Options:
+ *   --books file     The Book data file, bookData by default
+ *   --reading file   The reading data file, ReadingData by default
+ *   --timing         Prints the startup and total time to standard error
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class LibraryCli {
+
+	private static final int RANGE_LIMIT = 1000;  // Most books printed by the range command
+
+	public static void main(String[] args) {
+
+		String bookFile = "bookData";
+		String readFile = "ReadingData";
+		boolean timing = false;
+		List<String> command = new ArrayList<String>();
+
+		// Separate the options from the command
+		for(int i = 0; i < args.length; i++) {
+			switch(args[i]) {
+			case "--books": bookFile = args[++i]; break;
+			case "--reading": readFile = args[++i]; break;
+			case "--timing": timing = true; break;
+			default: command.add(args[i]);
+			}
+		}
+
+		if(command.isEmpty()) {
+			System.out.println("Usage: java LibraryCli [--books file] [--reading file] [--timing] " +
+					"list|search|lookup|range|filter|stats|export [arguments]");
+			System.exit(1);
+		}
+
+		long ready = System.nanoTime();
+		LibraryStore store = new LibraryStore(bookFile, readFile);
+		boolean success = run(store, command);
+
+		if(timing) {
+			// The JVM uptime when the command started is the startup time of the launcher
+			long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+			long commandMillis = (System.nanoTime() - ready) / 1_000_000;
+			System.err.println("Startup: " + (uptime - commandMillis) + " ms, total: " + uptime + " ms");
+		}
+
+		if(!success) System.exit(1);
+	}
+
+	/**
+	 * Runs a single command
+	 * @param store The store to read the data files from
+	 * @param command The command followed by its arguments
+	 * @return true if the command was valid. false otherwise.
+	 */
+	private static boolean run(LibraryStore store, List<String> command) {
+
+		switch(command.get(0)) {
+		case "list":
+			return list(store.load(), command.size() > 1 ? command.get(1) : "");
+		case "search":
+			if(command.size() < 3) break;
+			return search(store.load(), command.get(1), String.join(" ", command.subList(2, command.size())));
+		case "lookup":
+			if(command.size() < 3) break;
+			return print(store.lookup(command.get(1), String.join(" ", command.subList(2, command.size()))));
+		case "range":
+			if(command.size() < 3) break;
+			return print(store.lookupRange(command.get(1), command.get(2), command.size() > 3 ? command.get(3) : null, RANGE_LIMIT));
+		case "filter":
+			if(command.size() < 2) break;
+			return filter(store.load(), command.subList(1, command.size()));
+		case "stats":
+			LoadReport report = store.loadAll();
+			report.printErrors();
+			stats(report.getLibrary(), report.getReadingData());
+			return true;
+		case "export":
+			export(store.load());
+			return true;
+		}
+
+		System.out.println("ERROR: Unknown command " + String.join(" ", command));
+		return false;
+	}
+
+	/**
+	 * Prints every book in the Library
+	 * @param lib The Library to print
+	 * @param sort The attribute to sort by, empty to keep the file order
+	 * @return true if sort was valid. false otherwise.
+	 */
+	private static boolean list(Library lib, String sort) {
+
+		switch(sort) {
+		case "": break;
+		case "title": lib.sortByTitle(); break;
+		case "author": lib.sortByAuthor(); break;
+		case "series": lib.sortBySeries(); break;
+		case "pages": lib.sortByPages(); break;
+		case "words": lib.sortByWords(); break;
+		case "endDate": lib.sortByEndDate(); break;
+		default:
+			System.out.println("ERROR: Unknown sort " + sort);
+			return false;
+		}
+
+		System.out.print(lib.toString());
+		return true;
+	}
+
+	/**
+	 * Prints the results of a search
+	 * @param lib The Library to search
+	 * @param mode Whether to search by title, author or series
+	 * @param query The text being searched for
+	 * @return true if mode was valid. false otherwise.
+	 */
+	private static boolean search(Library lib, String mode, String query) {
+
+		Library results = new Library();
+
+		switch(mode) {
+		case "title":
+			Book b = lib.searchTitle(query);
+			if(!b.isEmpty()) results.add(b);
+			break;
+		case "author":
+			results.add(lib.searchAuthor(query));
+			break;
+		case "series":
+			results.add(lib.searchSeries(query));
+			break;
+		default:
+			System.out.println("ERROR: Unknown search mode " + mode);
+			return false;
+		}
+
+		System.out.print(results.toString());
+		return true;
+	}
+
+	/**
+	 * Prints the books that match every filter. Filters with the same name
+	 * are combined with OR, and filters with different names with AND.
+	 * @param lib The Library to filter
+	 * @param filters Each filter as name=value
+	 * @return true if every filter was valid. false otherwise.
+	 */
+	private static boolean filter(Library lib, List<String> filters) {
+
+		LibraryIndex index = lib.getIndex();
+		LinkedHashMap<String, Bitmap> byName = new LinkedHashMap<String, Bitmap>();
+
+		for(String f : filters) {
+
+			int eq = f.indexOf('=');
+			String name = eq < 0 ? f : f.substring(0, eq);
+			String value = eq < 0 ? "" : f.substring(eq + 1);
+			Bitmap match;
+
+			switch(name) {
+			case "status":
+				if(value.equals("finished")) match = index.finished();
+				else if(value.equals("unfinished")) match = index.unfinished();
+				else match = null;
+				break;
+			case "series": match = index.series(value); break;
+			case "author": match = index.author(value); break;
+			case "year":
+				try {
+					match = index.finishedIn(Integer.parseInt(value));
+				}
+				catch(NumberFormatException e) {
+					match = null;
+				}
+				break;
+			default: match = null;
+			}
+
+			if(match == null) {
+				System.out.println("ERROR: Unknown filter " + f);
+				return false;
+			}
+			byName.merge(name, match, Bitmap::or);
+		}
+
+		Bitmap rows = index.all();
+		for(Bitmap match : byName.values()) {
+			rows = rows.and(match);
+		}
+		return print(index.books(rows));
+	}
+
+	/**
+	 * Prints the books found by an index lookup
+	 * @param books The books that were found
+	 * @return true, the store has already reported any problem
+	 */
+	private static boolean print(List<Book> books) {
+
+		Library results = new Library();
+		results.add(new ArrayList<Book>(books));
+		System.out.print(results.toString());
+		return true;
+	}
+
+	/**
+	 * Prints the same values that are shown on the Statistics page
+	 * @param lib The Library holding all of the users books
+	 * @param readingMap All of the users reading data
+	 */
+	private static void stats(Library lib, TreeMap<LocalDate, Double> readingMap) {
+
+		LibraryStats stats = new LibraryStats();
+
+		if(readingMap.isEmpty()) {
+			System.out.println("Total number of Books: " + lib.size());
+			System.out.println("There is no reading data yet.");
+			return;
+		}
+
+		ArrayList<Double> genStats = stats.getGenStats(lib, readingMap);
+		double[] dayData = stats.getDayData(readingMap);
+		double[] monthData = stats.getMonthData(lib, readingMap);
+
+		System.out.println("Total number of Books: " + String.format("%.0f", genStats.get(0)));
+		System.out.println("Average pages per book: " + String.format("%.2f", genStats.get(1)));
+		System.out.println("Total Pages Read: " + String.format("%.0f", genStats.get(2)));
+		System.out.println("Current Reading Streak: " + String.format("%.0f", genStats.get(3)) + " Days");
+		System.out.println("Average Pages Per Day Read: " + String.format("%.2f", genStats.get(4)));
+		System.out.println("Pages Read Today: " + String.format("%.0f", dayData[0]));
+		System.out.println("Pages Read This Month: " + String.format("%.0f", monthData[1]));
+		System.out.println("Pages Read This Year: " + String.format("%.0f", dayData[1]));
+		System.out.println("Books Read This Month: " + String.format("%.0f", monthData[0]));
+		System.out.println("Books Read This Year: " + String.format("%.0f", monthData[2]));
+	}
+
+	/**
+	 * Prints every book in the Library as CSV
+	 * @param lib The Library to export
+	 */
+	private static void export(Library lib) {
+
+		// Write through a buffer so that large libraries aren't built up in memory
+		PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
+		out.print("title,author,series,pages,words,startDate,endDate\n");
+
+		for(Book b : lib.getAll()) {
+			out.print(csv(b.getTitle()) + ',' + csv(b.getAuthor()) + ',' + csv(b.getSeries()) + ',' +
+					b.getNumPages() + ',' + b.getWordCount() + ',' + b.getStartDate() + ',' + b.getEndDate() + '\n');
+		}
+
+		out.flush();
+	}
+
+	/**
+	 * Quotes a CSV value if it contains a comma or a quote
+	 */
+	private static String csv(String s) {
+
+		if(s.indexOf(',') < 0 && s.indexOf('"') < 0) return s;
+		return "\"" + s.replace("\"", "\"\"") + "\"";
+	}
+
+}
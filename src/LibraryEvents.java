@@ -0,0 +1,190 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events for the work done by the Library and the
+ * persistence and statistics code, so that it can be told apart from
+ * JavaFX layout in a recording.
+ *
+ * Each factory method creates an event and starts its timer. The caller
+ * fills in the remaining fields and calls commit() once the work is done.
+ * When no recording is running for an event, its factory method returns
+ * null, so that nothing is allocated and callers can skip counting records
+ * and bytes. Callers check for null before touching the event.
+ *
+ * Every event carries the number of records it worked on. Only the Load
+ * and Save events carry bytes: sorting, searching and the statistics work
+ * on books already in memory and don't read or write any.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public final class LibraryEvents {
+
+	// Looked up once, so checking whether an event is recorded costs a field read
+	private static final EventType LOAD = EventType.getEventType(Load.class);
+	private static final EventType SAVE = EventType.getEventType(Save.class);
+	private static final EventType SORT = EventType.getEventType(Sort.class);
+	private static final EventType SEARCH = EventType.getEventType(Search.class);
+	private static final EventType STATS = EventType.getEventType(Stats.class);
+
+	private LibraryEvents() {}
+
+	/**
+	 * Starts a Load event for a data file
+	 * @param file The file being read
+	 * @return The started event, or null if it isn't being recorded
+	 */
+	public static Load load(String file) {
+		if(!LOAD.isEnabled()) return null;  // No recording wants it
+
+		Load event = new Load();
+		event.file = file;
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Starts a Save event for a data file
+	 * @param file The file being written
+	 * @return The started event, or null if it isn't being recorded
+	 */
+	public static Save save(String file) {
+		if(!SAVE.isEnabled()) return null;  // No recording wants it
+
+		Save event = new Save();
+		event.file = file;
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Starts a Sort event
+	 * @param key The attribute the books are being sorted by
+	 * @param records The number of books being sorted
+	 * @return The started event, or null if it isn't being recorded
+	 */
+	public static Sort sort(String key, int records) {
+		if(!SORT.isEnabled()) return null;  // No recording wants it
+
+		Sort event = new Sort();
+		event.key = key;
+		event.records = records;
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Starts a Search event
+	 * @param mode The attribute being searched
+	 * @param records The number of books being searched
+	 * @return The started event, or null if it isn't being recorded
+	 */
+	public static Search search(String mode, int records) {
+		if(!SEARCH.isEnabled()) return null;  // No recording wants it
+
+		Search event = new Search();
+		event.mode = mode;
+		event.records = records;
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Starts a Stats event
+	 * @param name The statistic being calculated
+	 * @param records The number of books or reading entries being read
+	 * @return The started event, or null if it isn't being recorded
+	 */
+	public static Stats stats(String name, int records) {
+		if(!STATS.isEnabled()) return null;  // No recording wants it
+
+		Stats event = new Stats();
+		event.name = name;
+		event.records = records;
+		event.begin();
+		return event;
+	}
+
+	@Name("library.Load")
+	@Label("Load")
+	@Description("Reading and parsing a data file")
+	@Category({"Personal Library", "Persistence"})
+	public static class Load extends Event {
+
+		@Label("File")
+		public String file;
+
+		@Label("Records")
+		public long records;
+
+		@Label("Bytes")
+		@DataAmount
+		public long bytes;
+	}
+
+	@Name("library.Save")
+	@Label("Save")
+	@Description("Writing a data file to disk")
+	@Category({"Personal Library", "Persistence"})
+	public static class Save extends Event {
+
+		@Label("File")
+		public String file;
+
+		@Label("Records")
+		public long records;
+
+		@Label("Bytes")
+		@DataAmount
+		public long bytes;
+	}
+
+	@Name("library.Sort")
+	@Label("Sort")
+	@Description("Sorting the books in a Library")
+	@Category({"Personal Library", "Library"})
+	public static class Sort extends Event {
+
+		@Label("Key")
+		public String key;
+
+		@Label("Records")
+		public long records;
+	}
+
+	@Name("library.Search")
+	@Label("Search")
+	@Description("Searching the books in a Library")
+	@Category({"Personal Library", "Library"})
+	public static class Search extends Event {
+
+		@Label("Mode")
+		public String mode;
+
+		@Label("Records")
+		public long records;
+
+		@Label("Hits")
+		public long hits;
+	}
+
+	@Name("library.Stats")
+	@Label("Statistics")
+	@Description("Recomputing statistics for the Statistics page")
+	@Category({"Personal Library", "Statistics"})
+	public static class Stats extends Event {
+
+		@Label("Statistic")
+		public String name;
+
+		@Label("Records")
+		public long records;
+	}
+
+}
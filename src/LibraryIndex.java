@@ -0,0 +1,265 @@
+import java.time.*;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Bitmap indexes of the books in a Library, for filters such as "unfinished
+ * books", "books in a series" or "finished in 2020". Each book is given a
+ * row number when it is added, and there is a Bitmap of row numbers for
+ * finished books, unfinished books, each series, each author and each
+ * finish year. Filters are combined with Bitmap.and() and Bitmap.or(), and
+ * the number of books that match is the cardinality of the result, so
+ * nothing has to go through the books or compare their NA dates.
+ *
+ * Series and authors are looked up by their StringPool code, so matching
+ * ignores case the same way searchSeries() and searchAuthor() do. Books
+ * without a series are not in any series bitmap.
+ *
+ * The Library keeps its index up to date through its listeners. Row
+ * numbers don't change when the Library is sorted, and the row of a
+ * removed book is given to the next book added. A Book that is in the
+ * Library more than once has a row for each copy, so the index counts the
+ * same books the Library does. The bitmaps returned are
+ * the index itself and must not be changed. Like the Library, an index is
+ * not safe to use from more than one thread.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class LibraryIndex implements LibraryListener {
+
+	private Book[] rows = new Book[16];  // The book in each row, null if the row is free
+	private final IdentityHashMap<Book, int[]> rowOf = new IdentityHashMap<Book, int[]>();  // A row for each time the book is in the Library
+	private final Bitmap free = new Bitmap();  // Rows of removed books, to be used again
+	private int nextRow;
+
+	private final Bitmap all = new Bitmap();
+	private final Bitmap finished = new Bitmap();
+	private final Bitmap unfinished = new Bitmap();
+	private final Bitmap inSeries = new Bitmap();  // Books in any series
+	private final HashMap<Integer, Bitmap> bySeries = new HashMap<Integer, Bitmap>();  // By StringPool code
+	private final HashMap<Integer, Bitmap> byAuthor = new HashMap<Integer, Bitmap>();  // By StringPool code
+	private final TreeMap<Integer, Bitmap> byYear = new TreeMap<Integer, Bitmap>();    // By finish year
+
+	/**
+	 * Indexes every book in a Library and keeps the index up to date as it changes
+	 * @param lib The Library
+	 */
+	public LibraryIndex(Library lib) {
+		for(Book b : lib.getAll()) {
+			add(b);
+		}
+		lib.addListener(this);
+	}
+
+	/**
+	 * @return Every book
+	 */
+	public Bitmap all() {
+		return this.all;
+	}
+
+	/**
+	 * @return The books with an end date
+	 */
+	public Bitmap finished() {
+		return this.finished;
+	}
+
+	/**
+	 * @return The books whose end date is NA
+	 */
+	public Bitmap unfinished() {
+		return this.unfinished;
+	}
+
+	/**
+	 * @param series A series name, ignoring case
+	 * @return The books in the series
+	 */
+	public Bitmap series(String series) {
+		return get(this.bySeries, StringPool.SERIES.find(series));
+	}
+
+	/**
+	 * @param author An author, ignoring case
+	 * @return The books by the author
+	 */
+	public Bitmap author(String author) {
+		return get(this.byAuthor, StringPool.AUTHORS.find(author));
+	}
+
+	/**
+	 * @param year A year
+	 * @return The books finished in the year
+	 */
+	public Bitmap finishedIn(int year) {
+		return get(this.byYear, year);
+	}
+
+	/**
+	 * @return The number of books finished in each year that any were, earliest first
+	 */
+	public SortedMap<Integer, Integer> getYearCounts() {
+
+		TreeMap<Integer, Integer> counts = new TreeMap<Integer, Integer>();
+		for(Map.Entry<Integer, Bitmap> et : this.byYear.entrySet()) {
+			counts.put(et.getKey(), et.getValue().getCardinality());
+		}
+		return counts;
+	}
+
+	/**
+	 * @return The number of different series the books are in
+	 */
+	public int getSeriesCount() {
+		return this.bySeries.size();
+	}
+
+	/**
+	 * @return The number of different authors of the books
+	 */
+	public int getAuthorCount() {
+		return this.byAuthor.size();
+	}
+
+	/**
+	 * @return The books that are in any series
+	 */
+	public Bitmap inAnySeries() {
+		return this.inSeries;
+	}
+
+	/**
+	 * @param rows A set of rows, such as the result of a filter
+	 * @return The books in those rows, in row order
+	 */
+	public List<Book> books(Bitmap rows) {
+
+		List<Book> books = new ArrayList<Book>(rows.getCardinality());
+		rows.forEach(row -> books.add(this.rows[row]));
+		return books;
+	}
+
+	@Override
+	public void booksAdded(Library lib, int index, List<Book> books) {
+		for(Book b : books) {
+			add(b);
+		}
+	}
+
+	@Override
+	public void bookRemoved(Library lib, int index, Book book) {
+		remove(book);
+	}
+
+	@Override
+	public void bookUpdated(Library lib, int index, Book old, Book book) {
+		remove(old);
+		add(book);
+	}
+
+	/**
+	 * Gives a book a row and sets it in each bitmap it belongs to
+	 * @param b The book
+	 */
+	private void add(Book b) {
+
+		int row;
+		if(this.free.isEmpty()) {
+			row = this.nextRow++;
+			if(row == this.rows.length) this.rows = Arrays.copyOf(this.rows, row * 2);
+		}
+		else {
+			row = this.free.first();
+			this.free.remove(row);
+		}
+		this.rows[row] = b;
+		this.rowOf.merge(b, new int[] {row}, LibraryIndex::concat);
+
+		this.all.add(row);
+		(Library.isDate(b.getEndDate()) ? this.finished : this.unfinished).add(row);
+		if(b.getAuthorCode() >= 0) this.byAuthor.computeIfAbsent(b.getAuthorCode(), k -> new Bitmap()).add(row);
+		if(inSeries(b)) {
+			this.inSeries.add(row);
+			this.bySeries.computeIfAbsent(b.getSeriesCode(), k -> new Bitmap()).add(row);
+		}
+
+		int year = finishYear(b);
+		if(year != Integer.MIN_VALUE) this.byYear.computeIfAbsent(year, k -> new Bitmap()).add(row);
+	}
+
+	/**
+	 * Clears one copy of a book from every bitmap and frees its row
+	 * @param b The book
+	 */
+	private void remove(Book b) {
+
+		int[] copies = this.rowOf.get(b);
+		if(copies == null) return;
+
+		// Every copy is indexed the same way, so any of their rows can go
+		int row = copies[copies.length - 1];
+		if(copies.length == 1) this.rowOf.remove(b);
+		else this.rowOf.put(b, Arrays.copyOf(copies, copies.length - 1));
+
+		this.rows[row] = null;
+		this.free.add(row);
+
+		this.all.remove(row);
+		this.finished.remove(row);
+		this.unfinished.remove(row);
+		this.inSeries.remove(row);
+		clear(this.byAuthor, b.getAuthorCode(), row);
+		clear(this.bySeries, b.getSeriesCode(), row);
+		clear(this.byYear, finishYear(b), row);
+	}
+
+	/**
+	 * Clears a row from one bitmap of a map, dropping the bitmap once it is empty
+	 */
+	private static void clear(Map<Integer, Bitmap> map, int key, int row) {
+
+		Bitmap b = map.get(key);
+		if(b == null) return;
+
+		b.remove(row);
+		if(b.isEmpty()) map.remove(key);
+	}
+
+	private static int[] concat(int[] a, int[] b) {
+		int[] c = Arrays.copyOf(a, a.length + b.length);
+		System.arraycopy(b, 0, c, a.length, b.length);
+		return c;
+	}
+
+	private static Bitmap get(Map<Integer, Bitmap> map, int key) {
+		Bitmap b = map.get(key);
+		return b == null ? new Bitmap() : b;
+	}
+
+	/**
+	 * @param b A book
+	 * @return true if the book has a series that isn't NA
+	 */
+	private static boolean inSeries(Book b) {
+		String series = b.getSeries();
+		return b.getSeriesCode() >= 0 && series != null && !series.isEmpty() && !series.equalsIgnoreCase("NA");
+	}
+
+	/**
+	 * @param b A book
+	 * @return The year b was finished, or Integer.MIN_VALUE if it hasn't been
+	 */
+	private static int finishYear(Book b) {
+
+		if(!Library.isDate(b.getEndDate())) return Integer.MIN_VALUE;
+		try {
+			return LocalDate.parse(b.getEndDate()).getYear();
+		}
+		catch(DateTimeParseException e) {
+			return Integer.MIN_VALUE;  // Not a date, so not in any year
+		}
+	}
+
+}
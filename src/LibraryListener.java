@@ -0,0 +1,50 @@
+import java.util.List;
+
+/**
+ * Receives every change made to a Library, so that views and anything else
+ * built from its books can apply just the change rather than being rebuilt.
+ * Listeners are called on the thread that made the change, straight after
+ * it has been made. Every method does nothing by default.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public interface LibraryListener {
+
+	/**
+	 * Called after books are added
+	 * @param lib The Library that changed
+	 * @param index The position of the first added book
+	 * @param books The added books, in order
+	 */
+	default void booksAdded(Library lib, int index, List<Book> books) {
+	}
+
+	/**
+	 * Called after a book is removed
+	 * @param lib The Library that changed
+	 * @param index The position the book was at
+	 * @param book The removed book
+	 */
+	default void bookRemoved(Library lib, int index, Book book) {
+	}
+
+	/**
+	 * Called after a book is replaced by an edited copy
+	 * @param lib The Library that changed
+	 * @param index The position of the book
+	 * @param old The book that was replaced
+	 * @param book The book that replaced it
+	 */
+	default void bookUpdated(Library lib, int index, Book old, Book book) {
+	}
+
+	/**
+	 * Called after the books are sorted. The same books are in the
+	 * Library, only their order has changed.
+	 * @param lib The Library that changed
+	 */
+	default void librarySorted(Library lib) {
+	}
+
+}
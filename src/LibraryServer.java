@@ -0,0 +1,404 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Headless entry point that serves the Library over a local HTTP API using
+ * the same Library, search and statistics code as the desktop application.
+ * The server only listens on the loopback address.
+ *
+ * Endpoints:
+ *   GET  /search?mode=title|author|series&amp;q=text
+ *   GET  /books?sort=title|author|series|pages|words|endDate&amp;page=0&amp;size=50
+ *   GET  /book?title=text                 Book details with its rankings
+ *   POST /reading?pages=n[&amp;date=yyyy-mm-dd] Logs pages read, defaults to today
+ *
+ * Usage: java LibraryServer [port] [bookFile] [readFile]
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class LibraryServer {
+
+	private static final int MAX_PAGE_SIZE = 1000;
+
+	private final LibraryStore store;                      // Reads and writes the data files
+	private final LibraryStats stats = new LibraryStats(); // Calculates the rankings of a book
+	private final Library library;                         // Every Book in the data file
+	private final TreeMap<LocalDate, Double> readingData;  // All of the users reading data
+	private final ReadingLogWriter readingLog;             // Writes reading data in the background
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<String, List<Book>> sortedViews = new ConcurrentHashMap<>();  // Sorted copies of the Library
+	private final SearchCache searchCache = new SearchCache(4096, 32 * 1024 * 1024);  // Recent search results
+	private HttpServer server;
+
+	/**
+	 * Creates a server for the given data files. The files are loaded straight away.
+	 * @param bookFile The Book data file
+	 * @param readFile The reading data file
+	 */
+	public LibraryServer(String bookFile, String readFile) {
+		this.store = new LibraryStore(bookFile, readFile);
+		this.readingLog = new ReadingLogWriter(this.store);
+
+		LoadReport report = this.readingLog.loadAll();  // Loads both files at the same time
+		report.printErrors();
+		this.library = report.getLibrary();
+		this.readingData = report.getReadingData();
+	}
+
+	public static void main(String[] args) throws IOException {
+
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+		String bookFile = args.length > 1 ? args[1] : "bookData";
+		String readFile = args.length > 2 ? args[2] : "ReadingData";
+
+		LibraryServer server = new LibraryServer(bookFile, readFile);
+		server.start(port);
+		System.out.println("Serving " + bookFile + " on http://localhost:" + port);
+	}
+
+	/**
+	 * Starts listening for requests on the loopback address
+	 * @param port The port to listen on, 0 to pick any free port
+	 * @throws IOException If the server could not be started
+	 */
+	public void start(int port) throws IOException {
+
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+		this.server.createContext("/search", exchange -> handle(exchange, "GET", this::search));
+		this.server.createContext("/books", exchange -> handle(exchange, "GET", this::books));
+		this.server.createContext("/book", exchange -> handle(exchange, "GET", this::book));
+		this.server.createContext("/reading", exchange -> handle(exchange, "POST", this::reading));
+
+		// Requests are short, so a fixed pool sized to the machine keeps up with thousands of clients
+		this.server.setExecutor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 4));
+		this.server.start();
+	}
+
+	/**
+	 * Stops the server
+	 */
+	public void stop() {
+		this.server.stop(0);
+		((ExecutorService) this.server.getExecutor()).shutdown();
+		this.readingLog.close();
+	}
+
+	/**
+	 * @return The port the server is listening on
+	 */
+	public int getPort() {
+		return this.server.getAddress().getPort();
+	}
+
+	/**
+	 * GET /search. Searches the Library by title, author or series.
+	 */
+	private Response search(Map<String, String> params) {
+
+		String mode = params.getOrDefault("mode", "title");
+		String query = params.get("q");
+		if(query == null) return Response.error(400, "Missing parameter q");
+
+		List<Book> results;
+
+		this.lock.readLock().lock();
+		try {
+			results = this.searchCache.search(this.library, mode, query);
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+
+		if(results == null) return Response.error(400, "Unknown search mode: " + mode);
+
+		StringBuilder sb = new StringBuilder("[");
+		int written = 0;
+		for(Book b : results) {
+			if(b.isEmpty()) continue;  // A title search that found nothing
+			if(written++ > 0) sb.append(',');
+			appendBook(sb, b);
+		}
+		sb.append(']');
+		return Response.ok(sb.toString());
+	}
+
+	/**
+	 * GET /books. Returns one page of the Library in the requested order.
+	 */
+	private Response books(Map<String, String> params) {
+
+		String sort = params.getOrDefault("sort", "title");
+		int page;
+		int size;
+
+		try {
+			page = Integer.parseInt(params.getOrDefault("page", "0"));
+			size = Integer.parseInt(params.getOrDefault("size", "50"));
+		}
+		catch(NumberFormatException e) {
+			return Response.error(400, "page and size must be numbers");
+		}
+		if(page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+			return Response.error(400, "page must be positive and size between 1 and " + MAX_PAGE_SIZE);
+		}
+
+		List<Book> sorted = sortedView(sort);
+		if(sorted == null) return Response.error(400, "Unknown sort: " + sort);
+
+		int from = (int) Math.min((long) page * size, sorted.size());
+		int to = Math.min(from + size, sorted.size());
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"total\":").append(sorted.size());
+		sb.append(",\"page\":").append(page);
+		sb.append(",\"size\":").append(size);
+		sb.append(",\"books\":[");
+		for(int i = from; i < to; i++) {
+			if(i > from) sb.append(',');
+			appendBook(sb, sorted.get(i));
+		}
+		sb.append("]}");
+		return Response.ok(sb.toString());
+	}
+
+	/**
+	 * GET /book. Returns a single Book along with its rankings.
+	 */
+	private Response book(Map<String, String> params) {
+
+		String title = params.get("title");
+		if(title == null) return Response.error(400, "Missing parameter title");
+
+		Book b;
+		double[] rankings;
+
+		this.lock.readLock().lock();
+		try {
+			b = this.library.searchTitle(title);
+			if(b.isEmpty()) return Response.error(404, "No book titled " + title);
+			rankings = this.stats.getRankingData(this.library, b);
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+
+		StringBuilder sb = new StringBuilder("{\"book\":");
+		appendBook(sb, b);
+		sb.append(",\"pageRank\":").append((long) rankings[0]);
+		sb.append(",\"wordRank\":").append((long) rankings[1]);
+		sb.append(",\"outOf\":").append((long) rankings[2]);
+		sb.append(",\"daysToRead\":").append((long) rankings[3]);
+		sb.append(",\"pagesPerDay\":").append(rankings[3] < 0 ? "null" : String.valueOf(rankings[4]));
+		sb.append('}');
+		return Response.ok(sb.toString());
+	}
+
+	/**
+	 * POST /reading. Adds the pages read to the reading data and saves it.
+	 */
+	private Response reading(Map<String, String> params) {
+
+		double pages;
+		LocalDate date = LocalDate.now();
+
+		try {
+			pages = Double.parseDouble(params.getOrDefault("pages", ""));
+			if(params.containsKey("date")) date = LocalDate.parse(params.get("date"));
+		}
+		catch(NumberFormatException | DateTimeParseException e) {
+			return Response.error(400, "pages must be a number and date must be yyyy-mm-dd");
+		}
+
+		double total;
+		boolean success;
+
+		this.lock.writeLock().lock();
+		try {
+			total = this.readingData.merge(date, pages, Double::sum);
+			success = this.readingLog.log(date, pages);
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+
+		if(!success) return Response.error(500, "Reading data could not be saved");
+		return Response.ok("{\"date\":\"" + date + "\",\"pages\":" + total + "}");
+	}
+
+	/**
+	 * Gets a sorted copy of the Library, sorting it only the first time it is asked for.
+	 * @param sort The attribute to sort by
+	 * @return The sorted list, null if sort is not a valid attribute
+	 */
+	private List<Book> sortedView(String sort) {
+
+		List<Book> view = this.sortedViews.get(sort);
+		if(view != null) return view;
+
+		Library copy = new Library();
+		this.lock.readLock().lock();
+		try {
+			copy.add(new ArrayList<Book>(this.library.getAll()));
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+
+		switch(sort) {
+		case "title": copy.sortByTitle(); break;
+		case "author": copy.sortByAuthor(); break;
+		case "series": copy.sortBySeries(); break;
+		case "pages": copy.sortByPages(); break;
+		case "words": copy.sortByWords(); break;
+		case "endDate": copy.sortByEndDate(); break;
+		default: return null;
+		}
+
+		view = Collections.unmodifiableList(copy.getAll());
+		this.sortedViews.put(sort, view);
+		return view;
+	}
+
+	/**
+	 * Checks the request method, runs the endpoint and writes its response.
+	 * @param exchange The request being handled
+	 * @param method The HTTP method the endpoint accepts
+	 * @param endpoint The endpoint that creates the response
+	 */
+	private void handle(HttpExchange exchange, String method, Endpoint endpoint) throws IOException {
+
+		long timer = Metrics.start();
+		Response response;
+
+		try {
+			if(!exchange.getRequestMethod().equalsIgnoreCase(method)) {
+				response = Response.error(405, "Use " + method);
+			}
+			else {
+				response = endpoint.call(parseQuery(exchange.getRequestURI().getRawQuery()));
+			}
+		}
+		catch(RuntimeException e) {
+			response = Response.error(500, String.valueOf(e));
+		}
+
+		byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(response.status, body.length);
+		try(OutputStream os = exchange.getResponseBody()) {
+			os.write(body);
+		}
+
+		Metrics.stop("http" + exchange.getHttpContext().getPath(), timer);
+	}
+
+	/**
+	 * Splits a URL query string into its parameters
+	 * @param query The raw query string, may be null
+	 * @return A Map of parameter names and decoded values
+	 */
+	private static Map<String, String> parseQuery(String query) {
+
+		Map<String, String> params = new HashMap<>();
+		if(query == null || query.isEmpty()) return params;
+
+		for(String pair : query.split("&")) {
+			int eq = pair.indexOf('=');
+			String key = eq < 0 ? pair : pair.substring(0, eq);
+			String value = eq < 0 ? "" : pair.substring(eq + 1);
+			params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+		}
+		return params;
+	}
+
+	/**
+	 * Appends a Book as a JSON object
+	 */
+	private static void appendBook(StringBuilder sb, Book b) {
+
+		sb.append("{\"title\":");
+		appendString(sb, b.getTitle());
+		sb.append(",\"author\":");
+		appendString(sb, b.getAuthor());
+		sb.append(",\"series\":");
+		appendString(sb, b.getSeries());
+		sb.append(",\"pages\":").append(b.getNumPages());
+		sb.append(",\"words\":").append(b.getWordCount());
+		sb.append(",\"startDate\":");
+		appendString(sb, b.getStartDate());
+		sb.append(",\"endDate\":");
+		appendString(sb, b.getEndDate());
+		sb.append('}');
+	}
+
+	/**
+	 * Appends a String as a quoted and escaped JSON string
+	 */
+	private static void appendString(StringBuilder sb, String s) {
+
+		if(s == null) {
+			sb.append("null");
+			return;
+		}
+
+		sb.append('"');
+		for(int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch(c) {
+			case '"': sb.append("\\\""); break;
+			case '\\': sb.append("\\\\"); break;
+			case '\n': sb.append("\\n"); break;
+			case '\r': sb.append("\\r"); break;
+			case '\t': sb.append("\\t"); break;
+			default:
+				if(c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+				else sb.append(c);
+			}
+		}
+		sb.append('"');
+	}
+
+	/**
+	 * A single API endpoint
+	 */
+	private interface Endpoint {
+		Response call(Map<String, String> params);
+	}
+
+	/**
+	 * The status code and JSON body of a response
+	 */
+	private static class Response {
+
+		final int status;
+		final String body;
+
+		Response(int status, String body) {
+			this.status = status;
+			this.body = body;
+		}
+
+		static Response ok(String body) {
+			return new Response(200, body);
+		}
+
+		static Response error(int status, String message) {
+			StringBuilder sb = new StringBuilder("{\"error\":");
+			appendString(sb, message);
+			sb.append('}');
+			return new Response(status, sb.toString());
+		}
+	}
+
+}
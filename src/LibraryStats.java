@@ -0,0 +1,337 @@
+import java.time.*;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Calculates all of the statistics shown on the Statistics page and the
+ * rankings shown for a selected book. Has no dependency on JavaFX, the
+ * charts and labels are built from these values by Main. The passes over
+ * every book are split across cores for large libraries, see Parallel.
+ * 
+ * @author Jacob Keller
+ * @since March 5, 2020
+ *
+ */
+public class LibraryStats {
+	
+	/**
+	 * Calculates the rankings and reading statistics for an individual book
+	 * without building any of the views.
+	 * @param books The entire collection of books in the users data file
+	 * @param b The book to find rankings and statistics for.
+	 * @return An Array holding the page ranking, the word ranking, the total
+	 * number of books, the days it took to read the book and the average pages
+	 * read per day, in that order. The last two are -1 if the book isn't finished
+	 */
+	public double[] getRankingData(Library books, Book b) {
+		
+		LibraryEvents.Stats event = LibraryEvents.stats("rankings", books.size());
+		
+		long timeToRead = books.getTimeToRead(b);            // Get the total time it took to read the book
+		double pagesPerDay = -1;                             // NA until the book is finished
+		if(timeToRead >= 0) {
+			// A book started and finished on the same day was read in one day
+			pagesPerDay = (double) b.getNumPages() / Math.max(1, timeToRead);
+		}
+		
+		// Count the books with more pages and more words than b, as {pages, words}
+		int[] longer = Parallel.reduce(books.getAll(), () -> new int[2], (count, current) -> {
+			if(current.getNumPages() > b.getNumPages()) count[0]++;
+			if(current.getWordCount() > b.getWordCount()) count[1]++;
+		}, LibraryStats::add);
+		
+		int pageRanking = longer[0] + 1;                     // Used to store the total ranking for page count
+		int wordRanking = longer[1] + 1;                     // Used to store the total ranking for word count
+		
+		if(event != null) event.commit();
+		return new double[] {pageRanking, wordRanking, books.size(), timeToRead, pagesPerDay};
+	}
+	
+	/**
+	 * Calculates the General stats of all of the books in the users
+	 * library. Used in the Analytics portion of the navigation menu
+	 * @param lib A Library object that holds all of the books in the 
+	 * users library
+	 * @param readingMap A TreeMap with all of the LocalDate objects as keys
+	 * and the number of pages read on each date as values
+	 * @return An ArrayList of type String that holds all of the relevant
+	 * general statistics
+	 */
+	public ArrayList<Double> getGenStats(Library lib, TreeMap<LocalDate, Double> readingMap) {
+		
+		LibraryEvents.Stats event = LibraryEvents.stats("general", lib.size() + readingMap.size());
+		
+		ArrayList<Double> genStats = new ArrayList<Double>();
+		double totalPagesRead = 0.0;
+		double currentReadingStreak = 0.0;
+		LocalDate checkDate = LocalDate.now().minusDays(1);
+		
+		String size = String.valueOf(lib.size());  // Get the total number of books in the library
+		genStats.add(Double.parseDouble(size));    // Add total number of books in list
+		
+		// Add up the pages of the books that have a page count, as {pages, books}
+		long[] pages = Parallel.reduce(lib.getAll(), () -> new long[2], (total, b) -> {
+			if(b.getNumPages() > 0) {
+				total[0] += b.getNumPages();
+				total[1]++;
+			}
+		}, LibraryStats::add);
+		
+		double avgPageLength = pages[0];
+		long count = pages[1];
+		
+		// Calculate the total pages read
+		for(double d : readingMap.values()) {
+			totalPagesRead += d;
+		}
+		
+		// Calculate the current reading Streak
+		for(int i = 0; i < readingMap.size(); i++) {
+			
+			// Check that the user has read during the correct date
+			if(readingMap.containsKey(checkDate)) {
+				currentReadingStreak++;
+				checkDate = checkDate.minusDays(1);
+			} else if (readingMap.containsKey(LocalDate.now())) {
+				currentReadingStreak++;
+				break;
+			} else {
+				break;
+			}
+		}
+		
+		// Calculate how many pages the user reads per day based on reading data
+		double avgPagesPerDay = totalPagesRead / (readingMap.firstEntry().getKey().until(LocalDate.now(), ChronoUnit.DAYS));
+		
+		avgPageLength /= count;             // Calculate average book length
+		genStats.add(avgPageLength);        // Add the average book length the the list
+		genStats.add(totalPagesRead);       // Add the total number of pages read to list
+		genStats.add(currentReadingStreak); // Add the current reading streak to the list
+		genStats.add(avgPagesPerDay);       // Add the pages read per day for the user
+		
+		if(event != null) event.commit();
+		return genStats;  // Return the list
+	}
+	
+	/**
+	 * Calculates the average number of pages read on each day of the week,
+	 * counting every day from the first reading entry up until today.
+	 * @param readingMap A TreeMap object of types LocalDate and Double
+	 * representing the Dates the user read and the number of pages they read on
+	 * that date.
+	 * @return A Map with each day of the week and the average pages read on that day
+	 */
+	public Map<DayOfWeek, Double> getDayAverages(TreeMap<LocalDate, Double> readingMap) {
+		
+		LibraryEvents.Stats event = LibraryEvents.stats("dayAverages", readingMap.size());
+		
+		// Create a Map object to hold all of the data for each day of the week
+		Map<DayOfWeek, Double> dataMap = new HashMap<>(7);
+		dataMap.put(DayOfWeek.SUNDAY, 0.0);     // Initiate all values in the map to 0.0
+		dataMap.put(DayOfWeek.MONDAY, 0.0);
+		dataMap.put(DayOfWeek.TUESDAY, 0.0);
+		dataMap.put(DayOfWeek.WEDNESDAY, 0.0);
+		dataMap.put(DayOfWeek.THURSDAY, 0.0);
+		dataMap.put(DayOfWeek.FRIDAY, 0.0);
+		dataMap.put(DayOfWeek.SATURDAY, 0.0);
+		
+		// Create ArrayList to count number of entries of each day of the week
+		ArrayList<Double> dayCounts = new ArrayList<Double>(7);
+		for(int i = 0; i < 7; i++) {
+			dayCounts.add(0.0);
+		}
+		
+		int pointer;                                     // Used to cycle through each day of the week in dayCount
+		LocalDate startingDate = readingMap.firstKey();  // Get the first Date the user read
+		LocalDate today = LocalDate.now();               // Used to increment through days from startingDate to today
+		
+		// calculate pointer based on day of the week of startingDate
+		if(startingDate.getDayOfWeek().equals(DayOfWeek.MONDAY)) pointer = 0;
+		else if(startingDate.getDayOfWeek().equals(DayOfWeek.TUESDAY)) pointer = 1;
+		else if(startingDate.getDayOfWeek().equals(DayOfWeek.WEDNESDAY)) pointer = 2;
+		else if(startingDate.getDayOfWeek().equals(DayOfWeek.THURSDAY)) pointer = 3;
+		else if(startingDate.getDayOfWeek().equals(DayOfWeek.FRIDAY)) pointer = 4;
+		else if(startingDate.getDayOfWeek().equals(DayOfWeek.SATURDAY)) pointer = 5;
+		else pointer = 6;
+		
+		// Add the value of the startingDate in reading map to dataMap
+		dataMap.replace(startingDate.getDayOfWeek(), readingMap.get(startingDate));
+		startingDate = startingDate.plusDays(1);  // Increment startingDate by 1 day
+		dayCounts.set(pointer, 1.0);              // Add one to the dayCounts at position pointer
+		// Set pointer to 0 if it is currently pointing to Saturday, otherwise increment
+		if(pointer == dayCounts.size() - 1) pointer = 0;
+		else pointer++;
+		
+		// Cycle through dates until startingDate is tomorrow
+		while(startingDate.isBefore(today) || startingDate.equals(today)) {
+			
+			// Check for a reading value at the current date
+			if(readingMap.containsKey(startingDate)) {
+				// Add the value at this key to the correct day of the week
+				double newVal = readingMap.get(startingDate) + dataMap.get(startingDate.getDayOfWeek());
+				dataMap.replace(startingDate.getDayOfWeek(), newVal);
+			}
+			// Increment the value at pointer in dayCounts by 1
+			dayCounts.set(pointer, dayCounts.get(pointer) + 1);
+			
+			startingDate = startingDate.plusDays(1);  // Increment startingDate for the next round
+			// Set pointer to 0 if it is currently pointing to a Saturday, otherwise increment
+			if(pointer == dayCounts.size()-1) pointer = 0;
+			else pointer++;
+		}
+		
+		pointer = 0;
+		for(DayOfWeek d : DayOfWeek.values()) {
+			double newVal = dataMap.get(d) / dayCounts.get(pointer++);
+			dataMap.replace(d, newVal);
+		}
+		
+		if(event != null) event.commit();
+		return dataMap;
+	}
+	
+	/**
+	 * Generates all of the data that is needed for the day section of the 
+	 * analytics tab
+	 * @param readingData All of the reading Data that the user has entered
+	 * up until this date
+	 * @return An Array that contains all of the data that represents
+	 * days based on the reading data of the user
+	 */
+	public double[] getDayData(TreeMap<LocalDate, Double> readingData) {
+		
+		LibraryEvents.Stats event = LibraryEvents.stats("dayData", readingData.size());
+		
+		double[] arr = new double[2];           // Create the Array that will hold all of the data
+		int today = LocalDate.now().getYear();  // Get the current year as an integer
+		
+		// Calculate todays reading amount
+		if(readingData.containsKey(LocalDate.now())) arr[0] = readingData.get(LocalDate.now());
+		
+		for(Map.Entry<LocalDate, Double> et : readingData.entrySet()) {
+			// check if the current reading data date matches this year
+			if(et.getKey().getYear() == today) {
+				arr[1] += et.getValue();
+			}
+		}
+		
+		if(event != null) event.commit();
+		return arr;
+	}
+	
+	/**
+	 * Generates all of the data that is needed for the month section of the
+	 * analytics tab.
+	 * @param books A Library object containing all of the users Books
+	 * @param readingData A TreeMap containing all of the user's reading data
+	 * @return An Array that contains all of the relevant data
+	 * that is need for the month section.
+	 */
+	public double[] getMonthData(Library books, TreeMap<LocalDate, Double> readingData) {
+		
+		LibraryEvents.Stats event = LibraryEvents.stats("monthData", books.size() + readingData.size());
+		
+		double[] arr = new double[3];       // Create an Array that will hold all of the data
+		
+		int countPages = 0;                 // used to count the number of pages the user has read this month
+		LocalDate today = LocalDate.now();  // Used to compare this months with each book
+		
+		// Count the books finished this month and this year, as {month, year}
+		int[] finished = Parallel.reduce(books.getAll(), () -> new int[2], (count, b) -> {
+			
+			if(!(b.getEndDate().equalsIgnoreCase("NA"))) {
+				
+				// Create a LocalDate object using date that the book was finished
+				LocalDate bookDate = LocalDate.parse(b.getEndDate());
+				
+				// Increment the month count if the book was read this month
+				if(bookDate.getMonth().equals(today.getMonth()) && bookDate.getYear() == today.getYear()) {
+					count[0]++;
+				}
+				
+				// Increment the year count if the book was read this year
+				if(bookDate.getYear() == today.getYear()) count[1]++;
+			}
+		}, LibraryStats::add);
+		
+		int countBooks = finished[0];       // The number of books the user has read this month
+		int countYear = finished[1];        // The number of books the user has read this year
+		
+		// Cycle through all of the users reading data
+		for(Map.Entry<LocalDate, Double> et : readingData.entrySet()) {
+			// Add page value if the dates month matches this month
+			if(today.getMonth().equals(et.getKey().getMonth()) && today.getYear() == et.getKey().getYear()) {
+				
+				countPages += et.getValue();
+			}
+		}
+		
+		arr[0] = countBooks;   // Add the number of books read this month to the array
+		arr[1] = countPages;   // Add the number of pages read this month to the array
+		arr[2] = countYear;    // Add the number of books read this year to the array
+		if(event != null) event.commit();
+		// Return the array
+		return arr;
+	}
+	
+	/**
+	 * Counts the books finished on each day, for the reading history chart
+	 * @param books A Library object containing all of the users Books
+	 * @return The number of books finished on each day that at least one was finished
+	 */
+	public TreeMap<LocalDate, Double> getFinishedByDay(Library books) {
+		
+		LibraryEvents.Stats event = LibraryEvents.stats("finishedByDay", books.size());
+		TreeMap<LocalDate, Double> finished = new TreeMap<LocalDate, Double>();
+		
+		for(Book b : books.getAll()) {
+			// Skip the Book if it has not yet been finished
+			LocalDate end = getFinishDate(b);
+			if(end != null) {
+				finished.merge(end, 1.0, Double::sum);
+			}
+		}
+		
+		if(event != null) event.commit();
+		return finished;
+	}
+	
+	/**
+	 * @param b A book
+	 * @return The date b was finished, or null if it hasn't been or the end date isn't a date
+	 */
+	static LocalDate getFinishDate(Book b) {
+		
+		if(!Library.isDate(b.getEndDate())) return null;
+		try {
+			return LocalDate.parse(b.getEndDate());
+		}
+		catch(DateTimeParseException e) {
+			return null;  // Not a date, so it can't be placed on any day
+		}
+	}
+	
+	/**
+	 * Adds two sets of counts together
+	 * @param a The counts being added to, which is changed
+	 * @param b The counts being added
+	 * @return a
+	 */
+	private static int[] add(int[] a, int[] b) {
+		for(int i = 0; i < a.length; i++) a[i] += b[i];
+		return a;
+	}
+	
+	/**
+	 * Adds two sets of totals together
+	 * @param a The totals being added to, which is changed
+	 * @param b The totals being added
+	 * @return a
+	 */
+	private static long[] add(long[] a, long[] b) {
+		for(int i = 0; i < a.length; i++) a[i] += b[i];
+		return a;
+	}
+	
+} // LibraryStats
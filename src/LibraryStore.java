@@ -0,0 +1,1308 @@
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads and writes the Book data file and the reading data file. Has no
+ * dependency on JavaFX, so it can be used by the desktop application, the
+ * command line launcher and the HTTP service alike.
+ * 
+ * Full saves are written to a temporary file which is synced to disk and
+ * then renamed over the data file, so the data file always holds either
+ * the old or the new contents. Every record ends with a CRC32C checksum
+ * of the rest of the line. Records that fail the check, or that can't be
+ * parsed, are skipped when loading so a torn write only loses that record.
+ * Records written before checksums were added are still accepted.
+ * 
+ * saveChanges() only appends the books that were added, edited or removed
+ * to a delta file next to the data file, which load() replays on top of
+ * the data file. Each change is a record of its own, in the order it was
+ * made, so copies of the same book are kept apart. Once the delta file
+ * grows past a threshold it is merged into a new data file on a background
+ * thread. The delta file is first renamed to the next numbered segment,
+ * bookData.delta.N, so new changes go to a fresh one. The merged books are
+ * written to bookData.merged.N, and every segment up to N is deleted before
+ * it is renamed over the data file. A merge that was cut off is finished by
+ * the next load, so no change is ever replayed on a data file that holds it.
+ * 
+ * Every time the data file is written, B+tree indexes of the books by
+ * title and by author are written next to it, so lookup() can find books
+ * without loading the whole Library.
+ * 
+ * The data file, each delta file and the reading data file are read at
+ * the same time on separate threads, so loading takes about as long as
+ * the largest file rather than all of them added up. loadAll() loads
+ * both the books and the reading data, and collects every problem found
+ * into a single LoadReport.
+ * 
+ * @author Jacob Keller
+ * @since March 5, 2020
+ *
+ */
+public class LibraryStore {
+	
+	private static final String DELIM = "@!@";      // Separates the fields of a record
+	static final int BOOK_FIELDS = 7;               // Fields in a Book record, not counting the checksum
+	private static final int READING_FIELDS = 5;    // Fields in a reading data record, not counting the checksum
+	private static final int MIN_COMPACT = 1000;    // Delta records kept before merging them into the data file
+	
+	// Merges delta files into the data file in the background
+	private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "library-compactor");
+		t.setDaemon(true);
+		return t;
+	});
+	
+	// Reads the data files at the same time. Each load only waits on its own files
+	private static final ExecutorService LOADER = Executors.newCachedThreadPool(r -> {
+		Thread t = new Thread(r, "library-loader");
+		t.setDaemon(true);
+		return t;
+	});
+	
+	private final String DATA_FILE;
+	private final String READ_FILE;
+	private final String DELTA_FILE;    // Changes saved since the data file was last written
+	private final String SESSION_FILE;  // Reading sessions of each book, see SessionLog
+	
+	// Guards the delta files, the merged data files, deltaRecords and compacting
+	private final Object segmentLock = new Object();
+	private int deltaRecords;     // Records in the delta files
+	private boolean compacting;   // Whether a merge is running
+	
+	// Guards the index files and indexes, so a merge and a lookup never build the same index at once.
+	// Taken after segmentLock when both are held
+	private final Object indexLock = new Object();
+	// The open index of each mode, kept between lookups so their page caches are reused
+	private final HashMap<String, BTreeIndex> indexes = new HashMap<String, BTreeIndex>();
+	
+	// The version given to every Library loaded until the data file changes
+	private volatile long version = Library.nextVersion();
+	
+	/**
+	 * Creates a store for the data files in the working directory
+	 */
+	public LibraryStore() {
+		this("bookData", "ReadingData");
+	}
+	
+	/**
+	 * Creates a store for the given pair of data files
+	 * @param dataFile The path of the Book data file
+	 * @param readFile The path of the reading data file
+	 */
+	public LibraryStore(String dataFile, String readFile) {
+		this.DATA_FILE = dataFile;
+		this.READ_FILE = readFile;
+		this.DELTA_FILE = dataFile + ".delta";
+		this.SESSION_FILE = readFile + ".sessions";
+	}
+	
+	/**
+	 * @return The path of the file the reading sessions of each book are kept in
+	 */
+	public String getSessionFile() {
+		return this.SESSION_FILE;
+	}
+	
+	/**
+	 * Saves the current Library of Book objects to the file
+	 * defined as apart of the LibraryStore
+	 * @param lib Library object that holds the Book data that is to be saved
+	 * to the data file.
+	 * @return True if save was successful. False otherwise
+	 */
+	public boolean save(Library lib) {
+		
+		long timer = Metrics.start();  // Time how long the method takes
+		LibraryEvents.Save event = LibraryEvents.save(this.DATA_FILE);
+		
+		lib.sortByTitle();                       // Sort by title before saving
+		boolean success;                         // Flag used to see whether or not save was successful
+		
+		synchronized(this.segmentLock) {
+			
+			// Let a running merge finish so it can't replace this data file with an older one
+			try {
+				while(this.compacting) this.segmentLock.wait();
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+			
+			// The new data file holds every change saved so far, so it replaces every segment
+			int segment = seal();
+			success = segment >= 0 && writeBooks(mergedFile(segment), lib.getAll(), event) && finishMerge();
+			
+			if(success) {
+				buildIndexes(lib.getAll());
+				this.deltaRecords = 0;
+				this.version = Library.nextVersion();
+				lib.markSaved();
+			}
+		}
+		
+		if(!success) {
+			System.out.println("Error writing to the file: " + this.DATA_FILE);
+			System.out.println("The data file was left unchanged.");
+		}
+		
+		Metrics.stop("save", timer);
+		if(event != null) {
+			event.records = lib.size();
+			event.commit();
+		}
+		// Return success boolean
+		return success;
+
+	}  //save()
+	
+	/**
+	 * Saves only the books that were added, edited or removed since the
+	 * Library was loaded or last saved, by adding them to the end of the
+	 * delta file. Falls back to save() if the Library isn't tracking its
+	 * changes or there is no data file yet.
+	 * @param lib The Library that was changed
+	 * @return True if save was successful. False otherwise
+	 */
+	public boolean saveChanges(Library lib) {
+		
+		if(!lib.isTracked() || !new File(this.DATA_FILE).exists()) {
+			return save(lib);
+		}
+		
+		List<Library.Change> changes = lib.getChanges();
+		if(changes.isEmpty()) return true;  // Nothing has changed
+		
+		long timer = Metrics.start();  // Time how long the method takes
+		LibraryEvents.Save event = LibraryEvents.save(this.DELTA_FILE);
+		boolean success;
+		
+		synchronized(this.segmentLock) {
+			
+			success = writeAppend(this.DELTA_FILE, bw -> {
+				
+				StringBuilder sb = new StringBuilder();
+				
+				// + added book, - removed book, ~ removed book and the book that replaced it
+				for(Library.Change c : changes) {
+					
+					sb.append(c.getOld() == null ? '+' : c.getBook() == null ? '-' : '~');
+					if(c.getOld() != null) {
+						sb.append(DELIM);
+						appendBook(sb, c.getOld());
+					}
+					if(c.getBook() != null) {
+						sb.append(DELIM);
+						appendBook(sb, c.getBook());
+					}
+					appendChecksum(sb);
+					
+					bw.write(sb.toString());
+					if(event != null) event.bytes += sb.length();
+					sb.setLength(0);
+				}
+			});
+			
+			if(success) {
+				this.deltaRecords += changes.size();
+				this.version = Library.nextVersion();
+				
+				// Merge the delta file into the data file once replaying it costs more than it saves
+				if(!this.compacting && this.deltaRecords >= Math.max(MIN_COMPACT, lib.size() / 10)) {
+					compact(new ArrayList<Book>(lib.getAll()));
+				}
+			}
+		}
+		
+		if(success) {
+			if(event != null) event.records = changes.size();
+			lib.markSaved();
+		} else {
+			System.out.println("Error writing to the file: " + this.DELTA_FILE);
+		}
+		
+		Metrics.stop("saveChanges", timer);
+		if(event != null) event.commit();
+		return success;
+		
+	}  // saveChanges()
+	
+	/**
+	 * Starts merging the delta file into the data file. The delta file is
+	 * renamed so that new changes go to a fresh one, and the data file is
+	 * rewritten from a copy of the Library on the background thread. Must
+	 * be called holding segmentLock.
+	 * @param books Every book in the Library, including the changes in the delta file
+	 */
+	private void compact(ArrayList<Book> books) {
+		
+		int segment = seal();
+		if(segment < 0) {
+			System.out.println("ERROR: The delta file could not be merged into " + this.DATA_FILE);
+			return;
+		}
+		
+		this.deltaRecords = 0;
+		this.compacting = true;
+		
+		COMPACTOR.execute(() -> {
+			
+			long timer = Metrics.start();  // Time how long the merge takes
+			LibraryEvents.Save event = LibraryEvents.save(this.DATA_FILE);
+			
+			boolean success = writeBooks(mergedFile(segment), books, event);
+			
+			synchronized(this.segmentLock) {
+				// If the merge failed the segments are still replayed by load()
+				success = success && finishMerge();
+				if(!success) System.out.println("ERROR: The delta file could not be merged into " + this.DATA_FILE);
+				
+				this.compacting = false;
+				this.segmentLock.notifyAll();
+			}
+			
+			if(success) buildIndexes(books);
+			Metrics.stop("compact", timer);
+			if(event != null) {
+				event.records = books.size();
+				event.commit();
+			}
+		});
+	}
+	
+	/**
+	 * Renames the delta file to the next numbered segment, so that new
+	 * changes go to a fresh delta file. Must be called holding segmentLock.
+	 * @return The number of the newest segment, 0 if there are none, or -1
+	 * if the delta file could not be renamed
+	 */
+	private int seal() {
+		
+		List<Integer> segments = numbered(this.DELTA_FILE + ".");
+		int segment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+		if(!new File(this.DELTA_FILE).exists()) return segment;
+		
+		try {
+			try {
+				Files.move(Paths.get(this.DELTA_FILE), Paths.get(segmentFile(segment + 1)), StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch(AtomicMoveNotSupportedException e) {
+				Files.move(Paths.get(this.DELTA_FILE), Paths.get(segmentFile(segment + 1)));
+			}
+			syncDirectory(Paths.get(this.DELTA_FILE).toAbsolutePath().getParent());
+			return segment + 1;
+		}
+		catch(IOException e) {
+			return -1;
+		}
+	}
+	
+	/**
+	 * Puts a merged data file in place of the data file. The segments it
+	 * holds are deleted first, so their changes are never replayed on top
+	 * of it. Called once a merge has written its data file, and by load()
+	 * to finish a merge that was cut off. Must be called holding segmentLock.
+	 * @return true if there was no merged data file or it replaced the data file. false otherwise.
+	 */
+	private boolean finishMerge() {
+		
+		for(int merged : numbered(this.DATA_FILE + ".merged.")) {
+			try {
+				for(int segment : numbered(this.DELTA_FILE + ".")) {
+					if(segment <= merged) Files.delete(Paths.get(segmentFile(segment)));
+				}
+				
+				Path target = Paths.get(this.DATA_FILE).toAbsolutePath();
+				try {
+					Files.move(Paths.get(mergedFile(merged)), target, StandardCopyOption.ATOMIC_MOVE);
+				}
+				catch(AtomicMoveNotSupportedException e) {
+					Files.move(Paths.get(mergedFile(merged)), target, StandardCopyOption.REPLACE_EXISTING);
+				}
+				syncDirectory(target.getParent());
+			}
+			catch(IOException e) {
+				System.out.println("ERROR: " + mergedFile(merged) + " could not replace " + this.DATA_FILE);
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @param segment The number of a segment
+	 * @return The path of the delta file renamed to that segment
+	 */
+	private String segmentFile(int segment) {
+		return this.DELTA_FILE + "." + segment;
+	}
+	
+	/**
+	 * @param segment The number of the newest segment the merged data file holds
+	 * @return The path of the merged data file
+	 */
+	private String mergedFile(int segment) {
+		return this.DATA_FILE + ".merged." + segment;
+	}
+	
+	/**
+	 * Finds the files named by a path followed by a number
+	 * @param prefix The path the names start with
+	 * @return The numbers, smallest first
+	 */
+	private static List<Integer> numbered(String prefix) {
+		
+		Path path = Paths.get(prefix).toAbsolutePath();
+		String name = path.getFileName().toString();
+		List<Integer> numbers = new ArrayList<Integer>();
+		
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(path.getParent())) {
+			for(Path file : files) {
+				String fileName = file.getFileName().toString();
+				if(!fileName.startsWith(name)) continue;
+				try {
+					numbers.add(Integer.parseInt(fileName.substring(name.length())));
+				}
+				catch(NumberFormatException e) {
+					// Another file next to the data file, such as a temporary one
+				}
+			}
+		}
+		catch(IOException e) {
+			// No directory, so no files
+		}
+		
+		Collections.sort(numbers);
+		return numbers;
+	}
+	
+	/**
+	 * Writes every book to a data file, replacing it atomically
+	 * @param file The path of the data file
+	 * @param books The books to write
+	 * @param event The event to add the number of bytes to, or null if it isn't being recorded
+	 * @return True if the data file was written. False otherwise
+	 */
+	private boolean writeBooks(String file, List<Book> books, LibraryEvents.Save event) {
+		
+		// Write to a temporary file and rename it over the data file once it is on disk
+		return writeAtomically(file, bw -> {
+			
+			StringBuilder sb = new StringBuilder();  // Used to build string before writing to file
+			
+			for(int i = 0; i < books.size(); i++) {
+				
+				// Append all of the books attributes into the string builder
+				appendBook(sb, books.get(i));
+				appendChecksum(sb);
+				
+				// Write the stringBuilder to file
+				bw.write(sb.toString());
+				if(event != null) event.bytes += sb.length();
+				sb.setLength(0);  // Clear the StringBuilder
+			}
+		});
+	}
+	
+	/**
+	 * Looks up books by their exact title or author using the index files,
+	 * without loading the Library. Changes in the delta files are included.
+	 * @param mode title or author
+	 * @param text The title or author, in any case
+	 * @return The matching books, empty if there are none or mode isn't valid
+	 */
+	public List<Book> lookup(String mode, String text) {
+		
+		String key = BTreeIndex.normalize(text);
+		return lookupIndex(mode, key, key + '\0', Integer.MAX_VALUE);  // key + '\0' is the smallest key after key
+	}
+	
+	/**
+	 * Looks up the books whose title or author falls between two values
+	 * using the index files, without loading the Library. Changes in the
+	 * delta files are included.
+	 * @param mode title or author
+	 * @param from The first title or author, inclusive and in any case
+	 * @param to The last title or author, exclusive. null for no end
+	 * @param limit The most books to return
+	 * @return The matching books ordered by title or author, empty if mode isn't valid
+	 */
+	public List<Book> lookupRange(String mode, String from, String to, int limit) {
+		return lookupIndex(mode, BTreeIndex.normalize(from), to == null ? null : BTreeIndex.normalize(to), limit);
+	}
+	
+	/**
+	 * Reads a range of keys from an index file, building the index first
+	 * if it is missing or older than the data file
+	 * @param mode title or author
+	 * @param from The first normalized key, inclusive
+	 * @param to The last normalized key, exclusive. null for no end
+	 * @param limit The most books to return
+	 * @return The matching books ordered by key
+	 */
+	private List<Book> lookupIndex(String mode, String from, String to, int limit) {
+		
+		if(!mode.equals("title") && !mode.equals("author")) {
+			System.out.println("ERROR: Books can only be looked up by title or author");
+			return new ArrayList<Book>();
+		}
+		
+		List<Book> results = new ArrayList<Book>();
+		
+		// Rebuilding reads the whole data file, so it is done before the delta files are locked.
+		// If a merge replaces the data file before they are, the index is checked again
+		for(int attempt = 0; ; attempt++) {
+			
+			LoadReport report = new LoadReport();
+			updateIndexes(mode, report);
+			List<String> records;  // The books in the range, as records
+			
+			synchronized(this.segmentLock) {
+				
+				// The index only covers the data file, so changes saved since are read from the delta files
+				List<Library.Change> changes = readDeltas(report).changes;
+				
+				synchronized(this.indexLock) {
+					
+					BTreeIndex index = openIndex(mode);
+					if(!isIndexCurrent(index)) {
+						if(attempt < 3) continue;
+						report.printErrors();
+						System.out.println("ERROR: The index " + indexFile(mode) + " could not be built");
+						return results;
+					}
+					
+					// Read extra records in case some of them have been removed since
+					int extra = (int) Math.min(changes.size(), Integer.MAX_VALUE - (long) limit);
+					records = new ArrayList<String>(index.range(from, to, limit + extra));
+				}
+				report.printErrors();
+				
+				// Replay the changes to the books in the range, the same way load() does
+				for(Library.Change c : changes) {
+					if(c.getOld() != null && inRange(c.getOld(), mode, from, to)) records.remove(record(c.getOld()));
+					if(c.getBook() != null && inRange(c.getBook(), mode, from, to)) records.add(record(c.getBook()));
+				}
+			}
+			
+			for(String record : records) {
+				Book b = parseBook(record.split(DELIM), 0);
+				if(b != null) results.add(b);
+			}
+			
+			// Put the books from the delta files in order with the rest
+			results.sort(Comparator.comparing(b -> BTreeIndex.normalize(mode.equals("title") ? b.getTitle() : b.getAuthor())));
+			return results.size() > limit ? new ArrayList<Book>(results.subList(0, limit)) : results;
+		}
+	}
+	
+	/**
+	 * @param b A book
+	 * @param mode title or author
+	 * @param from The first normalized key, inclusive
+	 * @param to The last normalized key, exclusive. null for no end
+	 * @return true if the title or author of b is in the range
+	 */
+	private static boolean inRange(Book b, String mode, String from, String to) {
+		
+		String key = BTreeIndex.normalize(mode.equals("title") ? b.getTitle() : b.getAuthor());
+		return key.compareTo(from) >= 0 && (to == null || key.compareTo(to) < 0);
+	}
+	
+	/**
+	 * Builds the indexes again if the index for mode is missing or older
+	 * than the data file. Takes indexLock, but not segmentLock, so changes
+	 * can still be saved while the data file is read.
+	 * @param mode title or author
+	 * @param report Where errors reading the data file are added
+	 */
+	private void updateIndexes(String mode, LoadReport report) {
+		
+		synchronized(this.indexLock) {
+			
+			// A merge that is building the indexes finishes first, so they are current by then
+			if(!isIndexCurrent(openIndex(mode))) {
+				Metrics.count("index.rebuild");
+				buildIndexes(loadDataFile(report).getAll());
+			}
+		}
+	}
+	
+	/**
+	 * Gets the open index for mode, opening its file if it isn't open yet.
+	 * Must be called holding indexLock.
+	 * @param mode title or author
+	 * @return The index, or null if its file is missing or can't be read
+	 */
+	private BTreeIndex openIndex(String mode) {
+		
+		BTreeIndex index = this.indexes.get(mode);
+		
+		if(index == null) {
+			try {
+				index = new BTreeIndex(indexFile(mode));
+				this.indexes.put(mode, index);
+			}
+			catch(IOException e) {
+				return null;  // Built by the next lookup
+			}
+		}
+		return index;
+	}
+	
+	/**
+	 * Closes the open indexes, so the next lookup opens the index files
+	 * again. Must be called holding indexLock.
+	 */
+	private void closeIndexes() {
+		
+		for(BTreeIndex index : this.indexes.values()) {
+			try {
+				index.close();
+			}
+			catch(IOException e) {
+				System.out.println("ERROR: An index of " + this.DATA_FILE + " could not be closed");
+			}
+		}
+		this.indexes.clear();
+	}
+	
+	/**
+	 * @param mode title or author
+	 * @return The path of the index file for mode
+	 */
+	private String indexFile(String mode) {
+		return this.DATA_FILE + "." + mode + ".idx";
+	}
+	
+	/**
+	 * @param index An open index, or null
+	 * @return true if the index exists and was built from the current data file
+	 */
+	private boolean isIndexCurrent(BTreeIndex index) {
+		
+		File data = new File(this.DATA_FILE);
+		return index != null && index.getSourceLength() == data.length() && index.getSourceModified() == data.lastModified();
+	}
+	
+	/**
+	 * Builds the title and author index files for the books in the data file.
+	 * Takes indexLock, which a merge holds while it builds them on its own thread.
+	 * @param books Every book in the data file
+	 * @return true if both indexes were written. false otherwise.
+	 */
+	private boolean buildIndexes(List<Book> books) {
+		
+		synchronized(this.indexLock) {
+			
+			closeIndexes();  // The files are replaced, so the next lookup opens the new ones
+			
+			File data = new File(this.DATA_FILE);
+			long length = data.length();
+			long modified = data.lastModified();
+			
+			ArrayList<String[]> titles = new ArrayList<String[]>(books.size());
+			ArrayList<String[]> authors = new ArrayList<String[]>(books.size());
+			
+			// Each entry holds the whole record, so a lookup doesn't have to read the data file
+			for(Book b : books) {
+				String record = record(b);
+				
+				titles.add(new String[] {BTreeIndex.normalize(b.getTitle()), record});
+				authors.add(new String[] {BTreeIndex.normalize(b.getAuthor()), record});
+			}
+			
+			return BTreeIndex.build(indexFile("title"), titles, length, modified)
+					&& BTreeIndex.build(indexFile("author"), authors, length, modified);
+		}
+	}
+	
+	/**
+	 * Creates a Book from the fields of a record
+	 * @param fields The fields of the record
+	 * @param start The position of the title in fields
+	 * @return The Book, or null if the page count or word count isn't a number
+	 */
+	static Book parseBook(String[] fields, int start) {
+		
+		try {
+			return new Book(fields[start], fields[start + 1], fields[start + 2], Integer.parseInt(fields[start + 3]),
+					Integer.parseInt(fields[start + 4]), fields[start + 5], fields[start + 6]);
+		}
+		catch(NumberFormatException | ArrayIndexOutOfBoundsException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * @param b A book
+	 * @return The fields of its record, without the checksum
+	 */
+	private static String record(Book b) {
+		
+		StringBuilder sb = new StringBuilder();
+		appendBook(sb, b);
+		return sb.toString();
+	}
+	
+	/**
+	 * Appends the fields of a Book record, without the checksum
+	 * @param sb The StringBuilder holding the record
+	 * @param temp The book being written
+	 */
+	private static void appendBook(StringBuilder sb, Book temp) {
+		
+		sb.append(temp.getTitle());
+		sb.append(DELIM);
+		sb.append(temp.getAuthor());
+		sb.append(DELIM);
+		sb.append(temp.getSeries());
+		sb.append(DELIM);
+		sb.append(temp.getNumPages());
+		sb.append(DELIM);
+		sb.append(temp.getWordCount());
+		sb.append(DELIM);
+		sb.append(temp.getStartDate());
+		sb.append(DELIM);
+		sb.append(temp.getEndDate());
+	}
+
+	
+	/**
+	 * Loads the Book Data from the file defined as apart of 
+	 * the LibraryStore into a Library object and then returns
+	 * that Library object. Changes in the delta files are applied
+	 * on top of the data file.
+	 * @return Library object containing all of the Book data in the data file.
+	 */
+	public Library load() {
+		
+		LoadReport report = new LoadReport();
+		Library lib = loadBooks(report);
+		report.printErrors();
+		return lib;
+		
+	}  // load()
+	
+	/**
+	 * Loads the books and the reading data at the same time
+	 * @return The books, the reading data and every problem found while
+	 * reading them
+	 */
+	public LoadReport loadAll() {
+		
+		long start = System.nanoTime();
+		LoadReport report = new LoadReport();
+		
+		CompletableFuture<TreeMap<LocalDate, Double>> reading = submit(() -> loadReadingData(report));
+		report.setLibrary(loadBooks(report));
+		report.setReadingData(await(reading, this.READ_FILE, new TreeMap<LocalDate, Double>(), report));
+		
+		report.setMillis((System.nanoTime() - start) / 1_000_000);
+		return report;
+	}
+	
+	/**
+	 * Loads the data file and the delta files at the same time, and applies
+	 * the changes in the delta files to the books in the data file
+	 * @param report Collects the problems found
+	 * @return The books
+	 */
+	private Library loadBooks(LoadReport report) {
+		
+		// Holding the lock keeps a merge from deleting a delta file between reading the data file and the delta files
+		synchronized(this.segmentLock) {
+			
+			finishMerge();  // A merge that was cut off already holds some of the delta files
+			
+			CompletableFuture<Library> data = submit(() -> loadDataFile(report));
+			Delta changes = readDeltas(report);
+			Library lib = await(data, this.DATA_FILE, new Library(), report);
+			
+			long timer = Metrics.start();  // Time how long replaying the changes takes
+			this.deltaRecords = changes.records;
+			applyChanges(lib.getAll(), changes.changes);
+			
+			Metrics.stop("load.delta", timer);
+			lib.setVersion(this.version);
+			lib.markSaved();  // The Library now matches what is on disk
+			return lib;
+		}
+	}
+	
+	/**
+	 * Reads every delta file at the same time and combines their changes.
+	 * Must be called holding segmentLock.
+	 * @param report Collects the problems found
+	 * @return Every change in the delta files, in the order they were made
+	 */
+	private Delta readDeltas(LoadReport report) {
+		
+		// The segments are older than the delta file, and lower numbered segments older than higher ones
+		List<String> segments = new ArrayList<String>();
+		for(int segment : numbered(this.DELTA_FILE + ".")) {
+			segments.add(segmentFile(segment));
+		}
+		segments.add(this.DELTA_FILE);
+		
+		List<CompletableFuture<Delta>> deltas = new ArrayList<CompletableFuture<Delta>>();
+		for(String file : segments) {
+			deltas.add(submit(() -> readDelta(file, report)));
+		}
+		
+		ArrayList<Library.Change> changes = new ArrayList<Library.Change>();
+		int records = 0;
+		
+		for(int i = 0; i < segments.size(); i++) {
+			Delta delta = await(deltas.get(i), segments.get(i), new Delta(), report);
+			records += delta.records;
+			changes.addAll(delta.changes);
+		}
+		
+		return new Delta(changes, records);
+	}
+	
+	/**
+	 * Starts reading a file on a loader thread
+	 * @param task Reads the file
+	 * @return The result of reading the file, once it is done
+	 */
+	private static <T> CompletableFuture<T> submit(Supplier<T> task) {
+		return CompletableFuture.supplyAsync(task, LOADER);
+	}
+	
+	/**
+	 * Waits for a file to be read. If reading it failed in a way the
+	 * reader didn't handle itself, the failure is added to the report.
+	 * @param future The result of reading the file
+	 * @param file The file, for the report
+	 * @param empty What to use if the file could not be read
+	 * @param report Collects the problems found
+	 * @return The result of reading the file, or empty if it failed
+	 */
+	private static <T> T await(CompletableFuture<T> future, String file, T empty, LoadReport report) {
+		
+		try {
+			return future.join();
+		}
+		catch(CompletionException e) {
+			report.error("ERROR: Could not read " + file + ": " + e.getCause());
+			return empty;
+		}
+	}
+	
+	/**
+	 * Loads the books in the data file, without the delta files
+	 * @param report Collects the problems found
+	 * @return Library object containing all of the Book data in the data file.
+	 */
+	private Library loadDataFile(LoadReport report) {
+		
+		long start = System.nanoTime();
+		long timer = Metrics.start();  // Time how long the method takes
+		LibraryEvents.Load event = LibraryEvents.load(this.DATA_FILE);
+		
+		Library lib = new Library();  // Used to store the books being loaded
+		int corrupt = 0;              // Records that were skipped because they were damaged
+		
+		try {
+			// Split the file up and parse the pieces on every core
+			BookFileParser parsed = BookFileParser.parse(this.DATA_FILE);
+			lib.add(parsed.getBooks());
+			corrupt = parsed.getCorrupt();
+			if(event != null) event.bytes = parsed.getBytes();
+		}
+		catch(NoSuchFileException e) {
+			report.error("ERROR: Data file could not found");
+		}
+		catch(IOException e) {
+			report.error("IO ERROR: There was a problem while trying to read from the data file");
+		}
+		
+		if(corrupt > 0) {
+			report.error("ERROR: Skipped " + corrupt + " damaged records in " + this.DATA_FILE);
+			Metrics.count("load.corrupt");
+		}
+		
+		Metrics.stop("load", timer);
+		report.fileLoaded(this.DATA_FILE, (System.nanoTime() - start) / 1_000_000);
+		if(event != null) {
+			event.records = lib.size();
+			event.commit();
+		}
+		// return the populated library
+		return lib;
+		
+	}  // loadDataFile()
+	
+	/**
+	 * Reads the changes in a delta file
+	 * @param file The delta file
+	 * @param report Collects the problems found
+	 * @return The changes in the file, in the order they were made
+	 */
+	private static Delta readDelta(String file, LoadReport report) {
+		
+		long start = System.nanoTime();
+		ArrayList<Library.Change> changes = new ArrayList<Library.Change>();
+		int records = 0;  // Records read from the file
+		int corrupt = 0;  // Records that were skipped because they were damaged
+		String line;
+		
+		try(BufferedReader br = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+			
+			while((line = br.readLine()) != null) {
+				
+				records++;
+				
+				// + added book, - removed book, ~ removed book and the book that replaced it
+				boolean old = line.startsWith("-") || line.startsWith("~");
+				boolean book = line.startsWith("+") || line.startsWith("~");
+				int fields = 1 + (old ? BOOK_FIELDS : 0) + (book ? BOOK_FIELDS : 0);
+				String[] split = verify(line, fields);
+				
+				// Every delta record has a checksum
+				if(!old && !book || split == null || split.length != fields + 1) {
+					corrupt++;
+					continue;
+				}
+				
+				Book removed = old ? parseBook(split, 1) : null;
+				Book added = book ? parseBook(split, old ? 1 + BOOK_FIELDS : 1) : null;
+				if(old && removed == null || book && added == null) {
+					corrupt++;
+					continue;
+				}
+				changes.add(new Library.Change(removed, added));
+			}
+		}
+		catch(FileNotFoundException e) {
+			// There are no changes waiting to be merged
+		}
+		catch(IOException e) {
+			report.error("IO ERROR: There was a problem while trying to read from " + file);
+		}
+		
+		if(corrupt > 0) {
+			report.error("ERROR: Skipped " + corrupt + " damaged records in " + file);
+			Metrics.count("load.corrupt");
+		}
+		
+		report.fileLoaded(file, (System.nanoTime() - start) / 1_000_000);
+		return new Delta(changes, records);
+	}
+	
+	/**
+	 * Applies changes read from the delta files to the books in the data
+	 * file, in the order they were made. A removed or replaced book is the
+	 * first one with exactly the same record, and an added book goes on the
+	 * end, the same as in the Library the changes were saved from. A
+	 * replaced book that isn't there has its new copy added to the end.
+	 * @param books The books in the data file
+	 * @param changes The changes in the order they were made
+	 */
+	private static void applyChanges(ArrayList<Book> books, List<Library.Change> changes) {
+		
+		if(changes.isEmpty()) return;
+		
+		// The records of the books that are removed or replaced, and where each copy of them is
+		HashMap<String, TreeSet<Integer>> positions = new HashMap<String, TreeSet<Integer>>();
+		HashSet<String> keys = new HashSet<String>();
+		for(Library.Change c : changes) {
+			if(c.getOld() == null) continue;
+			positions.putIfAbsent(record(c.getOld()), new TreeSet<Integer>());
+			keys.add(c.getOld().getKey());
+		}
+		
+		// Find every copy in a single pass, only writing out the records of books with a changed key
+		for(int i = 0; i < books.size(); i++) {
+			Book b = books.get(i);
+			if(!keys.contains(b.getKey())) continue;
+			TreeSet<Integer> copies = positions.get(record(b));
+			if(copies != null) copies.add(i);
+		}
+		
+		boolean removed = false;
+		
+		for(Library.Change c : changes) {
+			
+			Integer pos = c.getOld() == null ? null : positions.get(record(c.getOld())).pollFirst();
+			
+			if(c.getBook() == null) {
+				if(pos != null) {
+					books.set(pos, null);  // Removed all at once below, rather than shifting the list each time
+					removed = true;
+				}
+				continue;
+			}
+			
+			if(pos != null) {
+				books.set(pos, c.getBook());
+			}
+			else {
+				pos = books.size();
+				books.add(c.getBook());
+			}
+			
+			// A later change may remove or replace this copy
+			TreeSet<Integer> copies = positions.get(record(c.getBook()));
+			if(copies != null) copies.add(pos);
+		}
+		
+		if(removed) books.removeIf(Objects::isNull);
+	}
+	
+	/**
+	 * Saves the reading data that the user inputs from the 
+	 * loadReading view.
+	 * @param readingData All of the reading data, which replaces the
+	 * contents of the reading data file.
+	 * @return true if saving was a success. false otherwise.
+	 */
+	public boolean saveReadData(TreeMap<LocalDate, Double> readingData) {
+		
+		long timer = Metrics.start();  // Time how long the method takes
+		boolean success = writeReadData(readingData, false);
+		Metrics.stop("saveReadData", timer);
+		return success;
+		
+	}  // saveReadData()
+	
+	/**
+	 * Adds reading data to the end of the reading data file without
+	 * rewriting what is already there. loadReadingData() adds up every
+	 * entry for the same date, so this only needs to write the new pages.
+	 * @param readingData The pages read on each date that are being added
+	 * @return true if saving was a success. false otherwise.
+	 */
+	public boolean appendReadData(Map<LocalDate, Double> readingData) {
+		
+		long timer = Metrics.start();  // Time how long the method takes
+		boolean success = writeReadData(readingData, true);
+		Metrics.stop("appendReadData", timer);
+		return success;
+		
+	}  // appendReadData()
+	
+	/**
+	 * Writes reading data to the reading data file
+	 * @param readingData The pages read on each date
+	 * @param append true to add to the end of the file, false to replace it
+	 * @return true if saving was a success. false otherwise.
+	 */
+	private boolean writeReadData(Map<LocalDate, Double> readingData, boolean append) {
+		
+		LibraryEvents.Save event = LibraryEvents.save(this.READ_FILE);
+		boolean success;
+		
+		RecordWriter records = bw -> {
+			
+			StringBuilder sb = new StringBuilder();
+			
+			for(Map.Entry<LocalDate, Double> et : readingData.entrySet()) {
+				LocalDate key = et.getKey();
+				
+				sb.append(key.getDayOfWeek());
+				sb.append(DELIM);
+				sb.append(key.getMonth());
+				sb.append(DELIM);
+				sb.append(key.getDayOfMonth());
+				sb.append(DELIM);
+				sb.append(key.getYear());
+				sb.append(DELIM);
+				sb.append(et.getValue());
+				appendChecksum(sb);
+				
+				bw.write(sb.toString());
+				if(event != null) event.bytes += sb.length();
+				sb.setLength(0);
+			}
+		};
+		
+		if(append) {
+			success = writeAppend(this.READ_FILE, records);
+		} else {
+			success = writeAtomically(this.READ_FILE, records);
+		}
+		
+		if(!success) {
+			System.out.println("IO ERROR: There was a problem when writing to the reading data file");
+		}
+		
+		if(event != null) {
+			event.records = readingData.size();
+			event.commit();
+		}
+		return success;  // Return the final boolean value
+		
+	}  // writeReadData()
+	
+	/**
+	 * Loads the reading data from file and stores it into an ArrayList
+	 * @return An ArrayList of type String that holds all of the reading data
+	 */
+	public TreeMap<LocalDate, Double> loadReadingData() {
+		
+		LoadReport report = new LoadReport();
+		TreeMap<LocalDate, Double> readingMap = loadReadingData(report);
+		report.printErrors();
+		return readingMap;
+	}
+	
+	/**
+	 * Loads the reading data from file
+	 * @param report Collects the problems found
+	 * @return The pages read on each date
+	 */
+	private TreeMap<LocalDate, Double> loadReadingData(LoadReport report) {
+		
+		long start = System.nanoTime();
+		long timer = Metrics.start();  // Time how long the method takes
+		LibraryEvents.Load event = LibraryEvents.load(this.READ_FILE);
+		
+		// Create the TreeMap to be returned
+		TreeMap<LocalDate, Double> readingMap = new TreeMap<LocalDate, Double>();
+		
+		FileReader fr;       // Used to access the data file
+		BufferedReader br;   // Used to read each line from the file
+		String line;         // Used to store each line from the file as a String
+		int corrupt = 0;     // Records that were skipped because they were damaged
+		boolean checked = false;  // Whether a record with a checksum has been read
+		
+		try {
+			
+			// Initialize the FileReader and BufferedReader
+			fr = new FileReader(this.READ_FILE, StandardCharsets.UTF_8);
+			br = new BufferedReader(fr);
+			
+			// Read from file until it is empty
+			while((line = br.readLine()) != null) {
+				// Split the line, skipping it if the checksum doesn't match
+				String[] split = verify(line, READING_FIELDS);
+				if(event != null) event.bytes += line.length() + 1;
+				if(split == null || (checked && split.length == READING_FIELDS)) {
+					corrupt++;
+					continue;
+				}
+				
+				try {
+					// Create the local Date object
+					LocalDate tempDate = LocalDate.of(Integer.parseInt(split[3]), 
+							Month.valueOf(split[1]), 
+							Integer.parseInt(split[2]));
+					
+					// Get the pages read for the current line
+					double pageVal = Double.parseDouble(split[4]);
+					
+					// Add to the pages already read on this date, if there are any
+					readingMap.merge(tempDate, pageVal, Double::sum);
+					checked |= split.length > READING_FIELDS;
+					if(event != null) event.records++;
+				}
+				catch(IllegalArgumentException | DateTimeException e) {
+					corrupt++;
+				}
+				
+			}
+			
+			br.close();
+			
+		}
+		catch(FileNotFoundException e) {
+			// There is no reading data yet
+		}
+		catch(IOException e) {
+			report.error("ERROR: Something went wrong while trying to read from the data file.");
+		}
+		
+		if(corrupt > 0) {
+			report.error("ERROR: Skipped " + corrupt + " damaged records in " + this.READ_FILE);
+			Metrics.count("loadReadingData.corrupt");
+		}
+		
+		Metrics.stop("loadReadingData", timer);
+		report.fileLoaded(this.READ_FILE, (System.nanoTime() - start) / 1_000_000);
+		if(event != null) event.commit();
+		return readingMap;  // Return the ArrayList
+		
+	}
+	
+	/**
+	 * Writes a file by writing to a temporary file next to it, forcing that
+	 * to disk, and renaming it over the original. If anything goes wrong the
+	 * original file is left as it was.
+	 * @param file The path of the file being replaced
+	 * @param records Writes the contents of the file
+	 * @return true if the file was replaced. false otherwise.
+	 */
+	private static boolean writeAtomically(String file, RecordWriter records) {
+		
+		Path target = Paths.get(file).toAbsolutePath();
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		
+		try {
+			
+			try(FileOutputStream fos = new FileOutputStream(temp.toFile())) {
+				BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(fos, StandardCharsets.UTF_8));
+				records.write(bw);
+				bw.flush();
+				fos.getFD().sync();  // Make sure the records are on disk before the rename
+			}
+			
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch(AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			
+			syncDirectory(target.getParent());
+			return true;
+		}
+		catch(IOException e) {
+			try {
+				Files.deleteIfExists(temp);
+			}
+			catch(IOException ex) {
+				// Nothing else can be done, the next save overwrites it
+			}
+			return false;
+		}
+	}
+	
+	/**
+	 * Adds records to the end of a file and forces them to disk. If the
+	 * last write was cut off partway through a line, the line is ended
+	 * first so the new records aren't joined onto the damaged one.
+	 * @param file The path of the file being added to
+	 * @param records Writes the new records
+	 * @return true if the records were written. false otherwise.
+	 */
+	private static boolean writeAppend(String file, RecordWriter records) {
+		
+		try(RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			
+			long length = raf.length();
+			boolean torn = false;
+			if(length > 0) {
+				raf.seek(length - 1);
+				torn = raf.read() != '\n';
+			}
+			
+			FileOutputStream fos = new FileOutputStream(raf.getFD());
+			BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(fos, StandardCharsets.UTF_8));
+			if(torn) bw.write('\n');
+			records.write(bw);
+			bw.flush();
+			raf.getFD().sync();
+			return true;
+		}
+		catch(IOException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Forces a rename in a directory to disk. Not every platform allows a
+	 * directory to be opened, in which case the rename is left to the OS.
+	 * @param dir The directory holding the renamed file
+	 */
+	private static void syncDirectory(Path dir) {
+		
+		try(FileChannel fc = FileChannel.open(dir, StandardOpenOption.READ)) {
+			fc.force(true);
+		}
+		catch(IOException e) {
+			// The rename has still happened, it just might not survive a power cut
+		}
+	}
+	
+	/**
+	 * Ends a record with its checksum and a newline
+	 * @param sb The record, without the checksum
+	 */
+	private static void appendChecksum(StringBuilder sb) {
+		
+		String crc = Integer.toHexString(checksum(sb));
+		
+		sb.append(DELIM);
+		for(int i = crc.length(); i < 8; i++) sb.append('0');  // Always write 8 digits
+		sb.append(crc);
+		sb.append('\n');
+	}
+	
+	/**
+	 * Checks a record and splits it into its fields. A record without a
+	 * checksum is only valid in a file written before checksums were added,
+	 * so once a checksum has been seen the caller treats the rest of the
+	 * records without one as cut off.
+	 * @param line The line read from file
+	 * @param fields The number of fields in the record, not counting the checksum
+	 * @return The fields, or null if the checksum doesn't match or fields are missing
+	 */
+	static String[] verify(String line, int fields) {
+		
+		String[] split = line.split(DELIM);
+		
+		if(split.length == fields) return split;  // Written before checksums were added
+		if(split.length != fields + 1) return null;
+		
+		String record = line.substring(0, line.lastIndexOf(DELIM));
+		try {
+			if(Integer.parseUnsignedInt(split[fields], 16) != checksum(record)) return null;
+		}
+		catch(NumberFormatException e) {
+			return null;
+		}
+		
+		return split;
+	}
+	
+	/**
+	 * @param record The text of a record
+	 * @return The CRC32C checksum of the record
+	 */
+	private static int checksum(CharSequence record) {
+		
+		CRC32C crc = new CRC32C();
+		crc.update(record.toString().getBytes(StandardCharsets.UTF_8));
+		return (int) crc.getValue();
+	}
+	
+	/**
+	 * The changes read from a delta file
+	 */
+	private static class Delta {
+		
+		final ArrayList<Library.Change> changes;  // In the order they were made
+		final int records;                       // Records in the file, including damaged ones
+		
+		Delta() {
+			this(new ArrayList<Library.Change>(), 0);
+		}
+		
+		Delta(ArrayList<Library.Change> changes, int records) {
+			this.changes = changes;
+			this.records = records;
+		}
+	}
+	
+	/**
+	 * Writes the records of a data file
+	 */
+	private interface RecordWriter {
+		void write(Writer out) throws IOException;
+	}
+	
+} // LibraryStore
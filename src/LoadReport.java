@@ -0,0 +1,107 @@
+import java.time.*;
+import java.util.*;
+
+/**
+ * The result of loading the data files, along with every problem found
+ * while reading them and how long each file took. The files are read at
+ * the same time, so the problems are collected here instead of being
+ * printed as each file finds them.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class LoadReport {
+
+	private Library library;
+	private TreeMap<LocalDate, Double> readingData;
+	private final List<String> errors = new ArrayList<String>();         // Guarded by this
+	private final Map<String, Long> fileMillis = new LinkedHashMap<String, Long>();  // Guarded by this
+	private long millis;
+
+	/**
+	 * @return The books in the data file, with the delta files applied.
+	 * null if only the reading data was loaded.
+	 */
+	public Library getLibrary() {
+		return this.library;
+	}
+
+	void setLibrary(Library library) {
+		this.library = library;
+	}
+
+	/**
+	 * @return The pages read on each date. null if only the books were loaded.
+	 */
+	public TreeMap<LocalDate, Double> getReadingData() {
+		return this.readingData;
+	}
+
+	void setReadingData(TreeMap<LocalDate, Double> readingData) {
+		this.readingData = readingData;
+	}
+
+	/**
+	 * Records a problem found while loading
+	 * @param message The message, in the form it would be printed
+	 */
+	public synchronized void error(String message) {
+		this.errors.add(message);
+	}
+
+	/**
+	 * @return Every problem found while loading, in the order they were found
+	 */
+	public synchronized List<String> getErrors() {
+		return new ArrayList<String>(this.errors);
+	}
+
+	/**
+	 * @return true if every file was loaded without any problems
+	 */
+	public synchronized boolean isClean() {
+		return this.errors.isEmpty();
+	}
+
+	/**
+	 * Records how long a file took to read
+	 * @param file The file
+	 * @param millis The time it took in milliseconds
+	 */
+	synchronized void fileLoaded(String file, long millis) {
+		this.fileMillis.put(file, millis);
+	}
+
+	/**
+	 * @return How long each file took to read in milliseconds
+	 */
+	public synchronized Map<String, Long> getFileMillis() {
+		return new LinkedHashMap<String, Long>(this.fileMillis);
+	}
+
+	/**
+	 * @return How long the whole load took in milliseconds
+	 */
+	public long getMillis() {
+		return this.millis;
+	}
+
+	void setMillis(long millis) {
+		this.millis = millis;
+	}
+
+	/**
+	 * Prints every problem found while loading
+	 */
+	public void printErrors() {
+		for(String error : getErrors()) {
+			System.out.println(error);
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "Loaded in " + this.millis + " ms " + this.fileMillis + ", " + this.errors.size() + " errors";
+	}
+
+}
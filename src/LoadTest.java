@@ -0,0 +1,145 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test for LibraryServer. Sends a mix of search, paging and detail
+ * requests from many concurrent clients and reports the throughput and
+ * the p50 / p99 latency of every endpoint.
+ *
+ * Usage: java LoadTest [clients] [requests per client] [bookFile] [readFile]
+ *
+ * A server is started on a free port for the given data files. Reading
+ * data is only read, never logged, so the data files are left unchanged.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class LoadTest {
+
+	public static void main(String[] args) throws Exception {
+
+		int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int requests = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		String bookFile = args.length > 2 ? args[2] : "bookData";
+		String readFile = args.length > 3 ? args[3] : "ReadingData";
+
+		LibraryServer server = new LibraryServer(bookFile, readFile);
+		server.start(0);
+
+		try {
+			run("http://localhost:" + server.getPort(), new LibraryStore(bookFile, readFile).load(), clients, requests);
+		}
+		finally {
+			server.stop();
+		}
+	}
+
+	/**
+	 * Runs the load test and prints the results
+	 * @param base The base URL of the server
+	 * @param lib The Library being served, used to pick realistic queries
+	 * @param clients The number of concurrent clients
+	 * @param requests The number of requests each client sends
+	 */
+	private static void run(String base, Library lib, int clients, int requests) throws InterruptedException {
+
+		if(lib.size() == 0) {
+			System.out.println("ERROR: The data file is empty, there is nothing to test against");
+			return;
+		}
+
+		String[] endpoints = {"search", "books", "book"};
+		long[][] latencies = new long[endpoints.length][clients * requests];
+		AtomicInteger[] counts = new AtomicInteger[endpoints.length];
+		AtomicInteger errors = new AtomicInteger();
+		for(int i = 0; i < endpoints.length; i++) counts[i] = new AtomicInteger();
+
+		HttpClient client = HttpClient.newHttpClient();
+
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(clients, 512));
+		CountDownLatch done = new CountDownLatch(clients);
+		long start = System.nanoTime();
+
+		for(int c = 0; c < clients; c++) {
+
+			Random rnd = new Random(c);  // Each client gets its own repeatable mix of requests
+
+			pool.execute(() -> {
+				try {
+					for(int r = 0; r < requests; r++) {
+
+						int type = rnd.nextInt(endpoints.length);
+						Book b = lib.get(rnd.nextInt(lib.size()));
+						String path;
+
+						if(type == 0) path = "/search?mode=author&q=" + encode(b.getAuthor());
+						else if(type == 1) path = "/books?sort=title&size=50&page=" + rnd.nextInt(Math.max(1, lib.size() / 50));
+						else path = "/book?title=" + encode(b.getTitle());
+
+						HttpRequest request = HttpRequest.newBuilder(URI.create(base + path)).GET().build();
+						long sent = System.nanoTime();
+
+						try {
+							HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+							if(response.statusCode() != 200) errors.incrementAndGet();
+						}
+						catch(IOException e) {
+							errors.incrementAndGet();
+						}
+
+						latencies[type][counts[type].getAndIncrement()] = System.nanoTime() - sent;
+					}
+				}
+				catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				finally {
+					done.countDown();
+				}
+			});
+		}
+
+		done.await();
+		double seconds = (System.nanoTime() - start) / 1e9;
+		pool.shutdown();
+
+		System.out.println(String.format("%d clients x %d requests in %.2fs (%.0f req/s), %d errors",
+				clients, requests, seconds, clients * requests / seconds, errors.get()));
+		System.out.println(String.format("%-10s %10s %12s %12s %12s", "Endpoint", "Requests", "p50 (ms)", "p99 (ms)", "max (ms)"));
+
+		for(int i = 0; i < endpoints.length; i++) {
+
+			int n = counts[i].get();
+			if(n == 0) continue;
+
+			long[] sorted = Arrays.copyOf(latencies[i], n);
+			Arrays.sort(sorted);
+
+			System.out.println(String.format("%-10s %10d %12.3f %12.3f %12.3f", endpoints[i], n,
+					percentile(sorted, 50) / 1e6, percentile(sorted, 99) / 1e6, sorted[n - 1] / 1e6));
+		}
+	}
+
+	/**
+	 * @param sorted Latencies in ascending order
+	 * @param p The percentile between 0 and 100
+	 * @return The latency at the percentile
+	 */
+	private static long percentile(long[] sorted, double p) {
+		int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(0, index)];
+	}
+
+	private static String encode(String s) {
+		return URLEncoder.encode(s, StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,177 @@
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A cache that keeps the most recently used values. It is bounded both by
+ * the number of entries and by a total weight, such as an estimate of the
+ * memory each value uses. When either limit is passed, the least recently
+ * used entries are dropped until the cache fits again.
+ *
+ * Hits, misses and evictions are counted in Metrics under the name of the
+ * cache. All methods are synchronized, so a cache can be shared between threads.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class LruCache<K, V> {
+
+	/**
+	 * Estimates the weight of an entry
+	 */
+	public interface Weigher<K, V> {
+		long weigh(K key, V value);
+	}
+
+	private final String name;
+	private final int maxEntries;
+	private final long maxWeight;
+	private final Weigher<K, V> weigher;
+	private final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true);  // In access order
+	private long weight;  // Total weight of every entry
+
+	/**
+	 * Creates a cache bounded only by the number of entries
+	 * @param name The name the cache is counted under in Metrics
+	 * @param maxEntries The most entries kept
+	 */
+	public LruCache(String name, int maxEntries) {
+		this(name, maxEntries, Long.MAX_VALUE, (k, v) -> 1);
+	}
+
+	/**
+	 * Creates a cache bounded by the number of entries and their total weight
+	 * @param name The name the cache is counted under in Metrics
+	 * @param maxEntries The most entries kept
+	 * @param maxWeight The most total weight kept
+	 * @param weigher Estimates the weight of each entry
+	 */
+	public LruCache(String name, int maxEntries, long maxWeight, Weigher<K, V> weigher) {
+		this.name = name;
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
+	}
+
+	/**
+	 * Gets a value and marks it as the most recently used
+	 * @param key The key of the value
+	 * @return The value, null if it isn't in the cache
+	 */
+	public synchronized V get(K key) {
+
+		Entry<V> e = this.map.get(key);
+
+		if(e == null) {
+			Metrics.count(this.name + ".miss");
+			return null;
+		}
+
+		Metrics.count(this.name + ".hit");
+		return e.value;
+	}
+
+	/**
+	 * Gets a value, calculating and caching it if it isn't in the cache.
+	 * The value is calculated without holding the lock, so two threads
+	 * that miss at the same time may both calculate it.
+	 * @param key The key of the value
+	 * @param loader Calculates the value
+	 * @return The cached or calculated value
+	 */
+	public V get(K key, Function<? super K, ? extends V> loader) {
+
+		V value = get(key);
+
+		if(value == null) {
+			value = loader.apply(key);
+			if(value != null) put(key, value);
+		}
+		return value;
+	}
+
+	/**
+	 * Adds a value, replacing any value with the same key. A value that is
+	 * heavier than the whole cache isn't kept.
+	 * @param key The key of the value
+	 * @param value The value
+	 */
+	public synchronized void put(K key, V value) {
+
+		long w = this.weigher.weigh(key, value);
+
+		remove(key);
+		if(w > this.maxWeight) return;
+
+		this.map.put(key, new Entry<V>(value, w));
+		this.weight += w;
+
+		// Drop the least recently used entries until the cache fits
+		Iterator<Entry<V>> it = this.map.values().iterator();
+		while((this.map.size() > this.maxEntries || this.weight > this.maxWeight) && it.hasNext()) {
+			this.weight -= it.next().weight;
+			it.remove();
+			Metrics.count(this.name + ".evict");
+		}
+	}
+
+	/**
+	 * Removes a value
+	 * @param key The key of the value
+	 */
+	public synchronized void remove(K key) {
+
+		Entry<V> e = this.map.remove(key);
+		if(e != null) this.weight -= e.weight;
+	}
+
+	/**
+	 * Removes every value whose key matches
+	 * @param filter Returns true for the keys to remove
+	 */
+	public synchronized void removeIf(Predicate<? super K> filter) {
+
+		Iterator<Map.Entry<K, Entry<V>>> it = this.map.entrySet().iterator();
+		while(it.hasNext()) {
+			Map.Entry<K, Entry<V>> e = it.next();
+			if(filter.test(e.getKey())) {
+				this.weight -= e.getValue().weight;
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Removes every value
+	 */
+	public synchronized void clear() {
+		this.map.clear();
+		this.weight = 0;
+	}
+
+	/**
+	 * @return The number of entries in the cache
+	 */
+	public synchronized int size() {
+		return this.map.size();
+	}
+
+	/**
+	 * @return The total weight of the entries in the cache
+	 */
+	public synchronized long weight() {
+		return this.weight;
+	}
+
+	private static class Entry<V> {
+
+		final V value;
+		final long weight;
+
+		Entry(V value, long weight) {
+			this.value = value;
+			this.weight = weight;
+		}
+	}
+
+}
@@ -1,5 +1,9 @@
 import java.io.*;
+import java.lang.management.ManagementFactory;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
@@ -16,14 +20,21 @@ import javafx.scene.control.TextField;
 import javafx.scene.control.MenuButton;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.ListView;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.DatePicker;
+import javafx.scene.control.ComboBox;
 import javafx.scene.chart.BarChart;
 import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.LineChart;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart;
 import java.time.*;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * 
@@ -33,16 +44,107 @@ import java.util.*;
  */
 public class Main extends Application{
 	
-	private final String DATA_FILE = "bookData";
-	private final String READ_FILE = "ReadingData";
+	private final LibraryStore store;                    // Reads and writes the data files
+	private final LibraryStats stats = new LibraryStats();  // Calculates all of the statistics
+	private final ReadingLogWriter readingLog;              // Writes reading data in the background
+	
+	// Rankings of recently viewed books, for the Library version in rankingVersion
+	private final LruCache<String, double[]> rankingData = new LruCache<String, double[]>("cache.rankingData",
+			1024, 256 * 1024, (key, data) -> 2L * key.length() + 8L * data.length + 64);  // Rough size in bytes
+	private final LruCache<String, VBox> rankingViews = new LruCache<String, VBox>("cache.rankingView", 32);
+	private long rankingVersion;
+	
+	private final SearchCache searchCache = new SearchCache(256, 4 * 1024 * 1024);  // Recent search results
+	
+	private static final int HISTORY_POINTS = 250;  // Most points on a history chart, about 4 pixels apart
+	
+	// Every book, loaded once and kept for as long as the application runs. Screens change it
+	// in place, and bookItems follows each change so the home list never has to be rebuilt
+	private Library library;
+	private final ObservableList<Book> bookItems = FXCollections.observableArrayList();
+	private MonthHistogram monthHistogram;  // Books finished each month, kept up to date by the Library
+	private FinishedHistory finishedHistory; // Books finished each day for the history chart, kept up to date by the Library
+	private ChartData pagesHistory;         // Pages read each day for the history chart, made on first use
+	private ReadingForecast forecast;       // When the books being read will be finished, made on first use
+	private SessionLog sessionLog;          // Pages read of each book, opened on first use by the sessionWriter
+	
+	// Opens the session file and appends reading sessions to it off the JavaFX thread, in the order they are logged.
+	// The session log is only used on this thread
+	private final ExecutorService sessionWriter = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "reading-session-writer");
+		t.setDaemon(true);
+		return t;
+	});
+	
+	// The screens on the navigation menu, each built once and only rebuilt when the data it shows changes
+	private final CachedScreen homeScreen = new CachedScreen("myBooks",
+			() -> loadMyBooks(getLibrary(), getLibrary()), () -> 0);  // The list follows the Library by itself
+	private final CachedScreen statsScreen = new CachedScreen("stats",
+			this::loadStats, () -> this.statsRefresh.run(), this::statsVersion);
+	private final CachedScreen readingScreen = new CachedScreen("reading", this::loadReading,
+			() -> this.readingRefresh.run(), () -> getLibrary().getVersion());  // The book list changes with the Library
+	private Runnable statsRefresh;    // Puts the current statistics into the built Statistics screen
+	private Runnable readingRefresh;  // Puts the books being read into the built Read screen
+	private final CachedScreen aboutScreen = new CachedScreen("about", this::loadAbout, () -> 0);
+	private final CachedScreen diagnosticsScreen = new CachedScreen("diagnostics", this::loadDiagnostics, () -> 0);
+	
+	/**
+	 * Default constructor used by the JavaFX launcher. Reads and writes
+	 * the data files in the working directory.
+	 */
+	public Main() {
+		this(new LibraryStore());
+	}
+	
+	/**
+	 * Constructor that points the application at a different set of
+	 * data files.
+	 * @param store The LibraryStore used to read and write the data files
+	 */
+	public Main(LibraryStore store) {
+		this.store = store;
+		this.readingLog = new ReadingLogWriter(store);
+	}
+	
+	@Override
+	public void stop() {
+		this.readingLog.close();  // Write any reading data that is still queued
+		
+		// Let the queued reading sessions reach the file before it is closed
+		this.sessionWriter.shutdown();
+		try {
+			this.sessionWriter.awaitTermination(10, TimeUnit.SECONDS);
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		if(this.sessionLog != null) {
+			try {
+				this.sessionLog.close();
+			}
+			catch(IOException e) {
+				System.out.println("ERROR: The reading session file could not be closed");
+			}
+		}
+	}
 	
 	@Override
 	public void start(Stage primaryStage) {
 		
 		primaryStage.setTitle("Personal Library");    // Set the window title
 		
-		Library lib = load();                         // Load Book data from file
-		Scene scene = new Scene(loadMyBooks(lib));    // Load the initial screen
+		getLibrary();                                    // Load Book data from file
+		Scene scene = new Scene(this.homeScreen.get());  // Load the initial screen, lib already holds every book
+		
+		// Wait until the first frame has been laid out before doing anything else
+		scene.addPostLayoutPulseListener(new Runnable() {
+			@Override
+			public void run() {
+				scene.removePostLayoutPulseListener(this);
+				firstFrame(scene);
+			}
+		});
 		
 		// Set the scene and show
 		primaryStage.setScene(scene);
@@ -52,11 +154,204 @@ public class Main extends Application{
 		primaryStage.show();
 		
 	}
+	
+	/**
+	 * Runs once the first frame of the application has been laid out. Reports
+	 * the time to first frame when started with -Dlibrary.timing=true. When
+	 * started with -Dlibrary.training=true every other screen is built once
+	 * and the application exits, which is used to record the class list
+	 * for the AppCDS archive. -Dlibrary.exitAfterFirstFrame=true exits straight
+	 * away and is used by the startup benchmark.
+	 * @param scene The Scene of the main window
+	 */
+	private void firstFrame(Scene scene) {
+		
+		if(Boolean.getBoolean("library.timing")) {
+			long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+			Metrics.record("startup.firstFrame", uptime * 1_000_000);
+			System.out.println("First frame: " + uptime + " ms");
+		}
+		
+		if(Boolean.getBoolean("library.training")) {
+			// Build the remaining screens after the first paint so their classes are archived too
+			Platform.runLater(() -> {
+				scene.setRoot(this.statsScreen.get());
+				scene.setRoot(this.readingScreen.get());
+				scene.setRoot(loadAddBook(new Book()));
+				scene.setRoot(this.aboutScreen.get());
+				Platform.exit();
+			});
+		}
+		else if(Boolean.getBoolean("library.exitAfterFirstFrame")) {
+			Platform.exit();
+		}
+	}
 
 	public static void main(String[] args) {
 		launch(args);
 	}
 	
+	/**
+	 * Gets the Library of every book, loading it from file the first time
+	 * @return The Library shared by every screen
+	 */
+	private Library getLibrary() {
+		
+		if(this.library == null) {
+			this.library = this.store.load();
+			this.bookItems.setAll(this.library.getAll());
+			this.library.addListener(new BookItemsUpdater());
+			this.monthHistogram = new MonthHistogram(this.library);
+			this.finishedHistory = new FinishedHistory(this.library);
+			this.library.addListener(new SessionRenamer());
+		}
+		return this.library;
+	}
+	
+	/**
+	 * Gets the reading forecast, loading the reading data the first time it
+	 * is needed. From then on it is kept up to date as books change and
+	 * reading is logged.
+	 * @return The forecast for every book being read
+	 */
+	private ReadingForecast getForecast() {
+		
+		if(this.forecast == null) {
+			this.forecast = new ReadingForecast(getLibrary(), this.readingLog.load());
+		}
+		return this.forecast;
+	}
+	
+	/**
+	 * Opens the reading session file the first time it is needed. Opening
+	 * reads through the whole file, so this is only called on the sessionWriter.
+	 * @return The session log, or null if the file could not be opened
+	 */
+	private SessionLog getSessionLog() {
+		
+		if(this.sessionLog == null) {
+			try {
+				this.sessionLog = new SessionLog(this.store.getSessionFile());
+			}
+			catch(IOException e) {
+				System.out.println("ERROR: The reading session file could not be opened");
+			}
+		}
+		return this.sessionLog;
+	}
+	
+	/**
+	 * Gets the home screen for a Library. The screen for every book is only
+	 * built once, screens for search results are built each time.
+	 * @param lib The Library to list
+	 * @return The home screen listing the books in lib
+	 */
+	private VBox home(Library lib) {
+		return lib == getLibrary() ? this.homeScreen.get() : loadMyBooks(lib);
+	}
+	
+	/**
+	 * @return Changes whenever the books or the reading data change
+	 */
+	private Object statsVersion() {
+		return List.of(getLibrary().getVersion(), this.readingLog.getVersion());
+	}
+	
+	/**
+	 * A screen that is built the first time it is shown and then reused, so
+	 * switching between screens only swaps the root of the Scene. If the data
+	 * the screen shows has changed since, the screen refreshes its labels and
+	 * charts in place, or is built again if it has no way to refresh.
+	 */
+	private static class CachedScreen {
+		
+		private final String name;               // Used to count builds and reuses in Metrics
+		private final Supplier<VBox> builder;    // Builds the screen
+		private final Runnable refresh;          // Updates the built screen to the current data, null to build it again
+		private final Supplier<Object> version;  // Changes whenever the data the screen shows changes
+		private VBox root;
+		private Object builtVersion;
+		
+		CachedScreen(String name, Supplier<VBox> builder, Supplier<Object> version) {
+			this(name, builder, null, version);
+		}
+		
+		CachedScreen(String name, Supplier<VBox> builder, Runnable refresh, Supplier<Object> version) {
+			this.name = name;
+			this.builder = builder;
+			this.refresh = refresh;
+			this.version = version;
+		}
+		
+		/**
+		 * @return The screen, refreshed or built again only if its data has changed
+		 */
+		VBox get() {
+			
+			Object current = this.version.get();
+			
+			if(this.root == null || (this.refresh == null && !current.equals(this.builtVersion))) {
+				Metrics.count("screen." + this.name + ".build");
+				this.root = this.builder.get();
+				this.builtVersion = current;
+			}
+			else if(!current.equals(this.builtVersion)) {
+				Metrics.count("screen." + this.name + ".refresh");
+				this.refresh.run();
+				this.builtVersion = current;
+			}
+			else {
+				Metrics.count("screen." + this.name + ".reuse");
+			}
+			return this.root;
+		}
+	}
+	
+	/**
+	 * Applies each change to the Library to the list of books shown on the
+	 * home screen, so an edit only changes the rows it touched
+	 */
+	private class BookItemsUpdater implements LibraryListener {
+		
+		@Override
+		public void booksAdded(Library lib, int index, List<Book> books) {
+			bookItems.addAll(index, books);
+		}
+		
+		@Override
+		public void bookRemoved(Library lib, int index, Book book) {
+			bookItems.remove(index);
+		}
+		
+		@Override
+		public void bookUpdated(Library lib, int index, Book old, Book book) {
+			bookItems.set(index, book);
+		}
+		
+		@Override
+		public void librarySorted(Library lib) {
+			bookItems.setAll(lib.getAll());
+		}
+	}
+	
+	/**
+	 * Keeps the sessions of a book with it when its title, author or series
+	 * are edited. The session log is told on the sessionWriter, after any
+	 * sessions that were logged before the edit.
+	 */
+	private class SessionRenamer implements LibraryListener {
+		
+		@Override
+		public void bookUpdated(Library lib, int index, Book old, Book book) {
+			
+			if(old.getKey().equals(book.getKey())) return;
+			sessionWriter.execute(() -> {
+				SessionLog sessions = getSessionLog();
+				if(sessions != null) sessions.bookUpdated(lib, index, old, book);
+			});
+		}
+	}
+	
 	/**
 	 * Loads the main view of the personal library application. Includes the search bar,
 	 * the side navigation bar, and the list holding all of the current books in the 
@@ -66,8 +361,20 @@ public class Main extends Application{
 	 * view of the application.
 	 */
 	public VBox loadMyBooks(Library lib) {
+		return loadMyBooks(lib, getLibrary());
+	}
+	
+	/**
+	 * Loads the main view of the personal library application using a Library
+	 * of every book that has already been loaded, so the data file is not read again.
+	 * @param lib The Library object that holds the Book data to list
+	 * @param allBooks The Library object that holds every Book in the data file
+	 * @return A VBox object that holds all of the views that make up the main
+	 * view of the application.
+	 */
+	public VBox loadMyBooks(Library lib, Library allBooks) {
 		
-		Library allBooks = load();
+		long timer = Metrics.start();  // Time how long the method takes
 		
 		// Create the List View that will hold all of the book data
 		ListView bookList = new ListView();
@@ -76,7 +383,7 @@ public class Main extends Application{
 		bookList.setPrefWidth(1075);
 				
 		// Populate the bookList
-		populateListView(bookList, lib.getAll());
+		showBooks(bookList, lib);
 		
 		// Create menuItems for sorting
 		MenuItem sortTitle = new MenuItem("Title");
@@ -105,45 +412,45 @@ public class Main extends Application{
 		
 		//Create action events for sort menu items
 		sortTitle.setOnAction(value -> {
-			System.out.println("EVENT: Sort by Title was pressed!");
+			Metrics.count("ui.sort.title");
 			lib.sortByTitle();
-			populateListView(bookList, lib.getAll());
+			showBooks(bookList, lib);
 		});
 		
 		sortAuthor.setOnAction(value -> {
-			System.out.println("EVENT: Sort by Author was pressed!");
+			Metrics.count("ui.sort.author");
 			lib.sortByAuthor();
-			populateListView(bookList, lib.getAll());
+			showBooks(bookList, lib);
 		});
 		
 		sortSeries.setOnAction(value -> {
-			System.out.println("EVENT: Sort by Series was pressed!");
+			Metrics.count("ui.sort.series");
 			lib.sortBySeries();
-			populateListView(bookList, lib.getAll());
+			showBooks(bookList, lib);
 		});
 		
 		sortPages.setOnAction(value -> {
-			System.out.println("EVENT: Sort by pages was pressed!");
+			Metrics.count("ui.sort.pages");
 			lib.sortByPages();
-			populateListView(bookList, lib.getAll());
+			showBooks(bookList, lib);
 		});
 		
 		sortWord.setOnAction(value -> {
-			System.out.println("EVENT: Sort by Word was pressed!");
+			Metrics.count("ui.sort.words");
 			lib.sortByWords();
-			populateListView(bookList, lib.getAll());
+			showBooks(bookList, lib);
 		});
 		
 		// Create action events for select and search buttons
 		select.setOnAction(value -> {
-			System.out.println("EVENT: Select button has been pressed");
+			Metrics.count("ui.select");
 			int index = bookList.getSelectionModel().getSelectedIndex();     // Get the index of the list the user has selected
 			select.getScene().setRoot(loadSelectedBook(index, lib));         // Send the selectedBook to loadSelectedBook()
 		});
 		
 		// Create an action event for the Add Book Button
 		addBook.setOnAction(value -> {
-			System.out.println("EVENT: Loading New Book Form");
+			Metrics.count("ui.addBook");
 			addBook.getScene().setRoot(loadAddBook(new Book()));
 		});
 		
@@ -171,6 +478,7 @@ public class Main extends Application{
 		// Create the finalized VBox
 		VBox vbox = new VBox(search, menuAndList);
 		
+		Metrics.stop("screen.myBooks", timer);
 		// Return the VBox
 		return vbox;
 	}  // loadMyBooks
@@ -183,7 +491,10 @@ public class Main extends Application{
 	 */
 	public VBox loadStats() {
 		
-		Library allBooks = load();
+		long timer = Metrics.start();  // Time how long the method takes
+		
+		// The books are already loaded, only the reading data is read from file, by refresh()
+		Library allBooks = getLibrary();
 		
 		ToolBar menu = generateNavMenu(allBooks);
 		ToolBar search = generateSearchBar("Statistics", allBooks);
@@ -192,44 +503,41 @@ public class Main extends Application{
 		lv.setPrefHeight(555);
 		lv.setPrefWidth(1075);
 		
-		// Load all of the reading data as Strings
-		TreeMap<LocalDate, Double> readingMap = loadReadingData();
+		// The charts are made once and empty, refresh() below fills in their data
+		BarChart dayChart = genDayGraph(new TreeMap<LocalDate, Double>());
+		BarChart monthChart = genMonthGraph(LocalDate.now().getYear());
+		LineChart pagesHistory = genHistoryGraph("Pages Read", new ChartData());
+		LineChart booksHistory = genHistoryGraph("Books Read", new ChartData());
 		
-		// get general stats on Books
-		ArrayList<Double> genStats = getGenStats(allBooks, readingMap);
-		BarChart dayChart = genDayGraph(readingMap);
-		BarChart monthChart = genMonthGraph(allBooks);
-		double[] monthData = getMonthData(allBooks, readingMap);
-		double[] dayData = getDayData(readingMap);
-		
-		// Create all of the Labels
+		// Create all of the Labels. Their values are filled in by refresh()
 		Label genLabel = new Label("General Stats");
-		Label totalBooksLabel = new Label("Total number of Books: " + 
-				String.valueOf(genStats.get(0)) + " Books");
-		Label avgPageLabel = new Label("Average pages per book: " +
-				String.format("%.2f", genStats.get(1)) + " Pages");
-		Label pagesReadLabel = new Label("Total Pages Read: " +
-				String.valueOf(genStats.get(2)) + " Pages");
-		Label readStreakLabel = new Label("Current Reading Streak: " +
-				String.valueOf(genStats.get(3)) + " Days");
-		Label avgPagesRead = new Label("Average Pages Per Day Read: " + 
-				String.format("%.2f", genStats.get(4)));
+		Label totalBooksLabel = new Label();
+		Label avgPageLabel = new Label();
+		Label pagesReadLabel = new Label();
+		Label readStreakLabel = new Label();
+		Label avgPagesRead = new Label();
+		Label finishedLabel = new Label();
+		Label seriesLabel = new Label();
+		Label authorLabel = new Label();
 		
 		// Page Labels
 		Label dayLabel = new Label("Page Stats");
-		Label pagesToday = new Label("Pages Read Today: " + 
-				String.format("%.0f", dayData[0]));
-		Label pagesThisMonth = new Label("Pages Read This Month: " + 
-				String.format("%.0f", monthData[1]));
-		Label pagesThisYear = new Label("Pages Read This Year: " +
-				String.format("%.0f", dayData[1]));
+		Label pagesToday = new Label();
+		Label pagesThisMonth = new Label();
+		Label pagesThisYear = new Label();
 		
 		// Books Labels
 		Label monthLabel = new Label("Book Stats");
-		Label booksThisMonth = new Label("Books Read This Month: " + 
-				String.format("%.0f", monthData[0]));
-		Label booksThisYear = new Label("Books Read This Year: " + 
-				String.format("%.0f", monthData[2]));
+		Label booksThisMonth = new Label();
+		Label booksThisYear = new Label();
+		
+		// Pick the year the month chart compares with the year before it
+		ComboBox<Integer> compareYear = new ComboBox<Integer>();
+		compareYear.setOnAction(value -> {
+			if(compareYear.getValue() == null) return;  // Cleared while its years are being replaced
+			Metrics.count("ui.stats.compareYear");
+			showMonthGraph(monthChart, compareYear.getValue());  // Only reads the histogram, not the books
+		});
 		
 		// Set all of the attributes for the labels
 		genLabel.setFont(new Font(24));
@@ -240,6 +548,9 @@ public class Main extends Application{
 		pagesReadLabel.setFont(new Font(16));
 		readStreakLabel.setFont(new Font(16));
 		avgPagesRead.setFont(new Font(16));
+		finishedLabel.setFont(new Font(16));
+		seriesLabel.setFont(new Font(16));
+		authorLabel.setFont(new Font(16));
 		
 		// Day Labels
 		dayLabel.setFont(new Font(24));
@@ -258,7 +569,7 @@ public class Main extends Application{
 		
 		
 		// Create VBox for the left half of the general stats
-		VBox genLeftSide = new VBox(totalBooksLabel, avgPageLabel);
+		VBox genLeftSide = new VBox(totalBooksLabel, avgPageLabel, finishedLabel, seriesLabel, authorLabel);
 		genLeftSide.setSpacing(10);         // Set spacing between individual items
 		genLeftSide.setTranslateX(20);      // Shift to the right
 		genLeftSide.setTranslateY(5);       // Shift down
@@ -271,7 +582,7 @@ public class Main extends Application{
 		
 		// Create the HBox that holds the two halves of the general stats section
 		HBox genStatVals = new HBox(genLeftSide, genRightSide);
-		genStatVals.setPrefHeight(100);  // Sets the height of the general listView item
+		genStatVals.setPrefHeight(160);  // Sets the height of the general listView item
 		
 		VBox generalView = new VBox(genLabel, genStatVals);
 		generalView.setSpacing(20);      // Sets spacing between title and stats
@@ -289,7 +600,7 @@ public class Main extends Application{
 		dayView.setPrefHeight(500);
 		
 		// ALL OF THE VIEWS CONTAINING THE MONTH STATISTICS
-		VBox monthStats = new VBox(booksThisMonth, booksThisYear);  // VBox containing all of the stats for month
+		VBox monthStats = new VBox(booksThisMonth, booksThisYear, compareYear);  // VBox containing all of the stats for month
 		monthStats.setSpacing(20);
 		
 		HBox monthStatVals = new HBox(monthChart, monthStats);       // HBox containing the BarChart and the stats
@@ -299,15 +610,99 @@ public class Main extends Application{
 		monthView.setSpacing(50);
 		monthView.setPrefHeight(500);
 		
+		// ALL OF THE VIEWS CONTAINING THE READING HISTORY
+		Label historyLabel = new Label("Reading History");
+		historyLabel.setFont(new Font(24));
+		historyLabel.setTranslateX(15);
+		historyLabel.setTranslateY(5);
+		
+		VBox historyView = new VBox(historyLabel, pagesHistory, booksHistory);  // The entire History section
+		historyView.setSpacing(30);
+		
+		// ALL OF THE VIEWS CONTAINING THE FORECASTS FOR BOOKS BEING READ
+		Label readingLabel = new Label("Currently Reading");
+		readingLabel.setFont(new Font(24));
+		readingLabel.setTranslateX(15);
+		readingLabel.setTranslateY(5);
+		Label paceLabel = new Label();
+		paceLabel.setFont(new Font(16));
+		
+		VBox readingRows = new VBox();  // One row for each book being read, filled in by refresh()
+		readingRows.setSpacing(10);
+		VBox readingView = new VBox(readingLabel, paceLabel, readingRows);  // The entire Currently Reading section
+		readingView.setSpacing(10);
+		
+		// Puts the current data into the labels, charts and year choices. The only views it makes
+		// are the rows of the books being read. Runs once now and then whenever the data changes
+		Runnable refresh = () -> {
+			
+			long refreshTimer = Metrics.start();  // Time how long the refresh takes
+			TreeMap<LocalDate, Double> reading = this.readingLog.load();
+			if(this.pagesHistory == null) this.pagesHistory = new ChartData(reading);  // Kept up to date as reading is logged
+			ArrayList<Double> genStats = this.stats.getGenStats(allBooks, reading);
+			double[] monthData = this.stats.getMonthData(allBooks, reading);
+			double[] dayData = this.stats.getDayData(reading);
+			int year = LocalDate.now().getYear();
+			
+			totalBooksLabel.setText("Total number of Books: " + String.valueOf(genStats.get(0)) + " Books");
+			avgPageLabel.setText("Average pages per book: " + String.format("%.2f", genStats.get(1)) + " Pages");
+			pagesReadLabel.setText("Total Pages Read: " + String.valueOf(genStats.get(2)) + " Pages");
+			readStreakLabel.setText("Current Reading Streak: " + String.valueOf(genStats.get(3)) + " Days");
+			avgPagesRead.setText("Average Pages Per Day Read: " + String.format("%.2f", genStats.get(4)));
+			
+			// Counts straight from the bitmap indexes, without going through the books
+			LibraryIndex index = allBooks.getIndex();
+			finishedLabel.setText("Finished: " + index.finished().getCardinality() +
+					", Unfinished: " + index.unfinished().getCardinality());
+			seriesLabel.setText("Books in a Series: " + index.inAnySeries().getCardinality() +
+					" (" + index.getSeriesCount() + " Series)");
+			authorLabel.setText("Authors: " + index.getAuthorCount());
+			
+			pagesToday.setText("Pages Read Today: " + String.format("%.0f", dayData[0]));
+			pagesThisMonth.setText("Pages Read This Month: " + String.format("%.0f", monthData[1]));
+			pagesThisYear.setText("Pages Read This Year: " + String.format("%.0f", dayData[1]));
+			booksThisMonth.setText("Books Read This Month: " + this.monthHistogram.get(year, LocalDate.now().getMonth()));
+			booksThisYear.setText("Books Read This Year: " + this.monthHistogram.getYearTotal(year));
+			
+			// Keep the year that was picked if it still has books, and redraw the month chart for it
+			Integer picked = compareYear.getValue();
+			List<Integer> years = new ArrayList<Integer>(this.monthHistogram.getYears());
+			if(!years.contains(year)) years.add(year);
+			compareYear.getItems().setAll(years);
+			compareYear.setValue(picked != null && years.contains(picked) ? picked : year);
+			showMonthGraph(monthChart, compareYear.getValue());
+			
+			showDayGraph(dayChart, reading);
+			showHistoryGraph(pagesHistory, this.pagesHistory);
+			showHistoryGraph(booksHistory, this.finishedHistory);
+			
+			ReadingForecast forecast = getForecast();
+			paceLabel.setText("Current Pace: " + String.format("%.2f", forecast.getPace()) + " Pages Per Day");
+			readingRows.getChildren().clear();
+			for(Book b : forecast.getReading()) {
+				LocalDate finish = forecast.getFinish(b);
+				Label row = new Label(b.getTitle() + ": about " + forecast.getRemaining(b) + " Pages left, finished " +
+						(finish == null ? "NA" : finish.toString()));
+				row.setFont(new Font(16));
+				readingRows.getChildren().add(row);
+			}
+			Metrics.stop("screen.stats.refresh", refreshTimer);
+		};
+		refresh.run();
+		this.statsRefresh = refresh;
+		
 		// Add views to ListView to display
 		lv.getItems().add(generalView);
 		lv.getItems().add(dayView);
 		lv.getItems().add(monthView);
+		lv.getItems().add(historyView);
+		lv.getItems().add(readingView);
 		
 		// Combine the Navigation View with the ListView
 		HBox main = new HBox(menu, lv);
 		// Add the search bar
 		VBox view = new VBox(search, main);
+		Metrics.stop("screen.stats", timer);
 		// Return the entire view for Analytics
 		return view;
 		
@@ -324,7 +719,9 @@ public class Main extends Application{
 	 */
 	public VBox loadSelectedBook(int index, Library lib) {
 		
-		Library allBooks = load();
+		long timer = Metrics.start();  // Time how long the method takes
+		
+		Library allBooks = getLibrary();
 		
 		ToolBar menu = generateNavMenu(allBooks);                   // Load the navigation menu
 		ToolBar search = generateSearchBar("Book Info", allBooks);  // Load the search bar
@@ -422,6 +819,27 @@ public class Main extends Application{
 		
 		// Create the main view that holds the Books information
 		VBox main = new VBox(back, nameAndAuthor, seriesLine, pageAndWord, startAndEnd, editAndDelete);
+		
+		// Show when a book that is being read should be finished
+		if(getForecast().getRemaining(b) >= 0) {
+			LocalDate finish = getForecast().getFinish(b);
+			Label estimate = new Label("Estimated Finish: " + (finish == null ? "NA" : finish.toString()));
+			estimate.setFont(new Font(18));
+			main.getChildren().add(main.getChildren().size() - 1, estimate);
+		}
+		
+		// Show the pages logged against the book, if any were, once the session file has been read
+		this.sessionWriter.execute(() -> {
+			SessionLog sessions = getSessionLog();
+			long logged = sessions == null ? 0 : sessions.getPages(b);
+			if(logged > 0) {
+				Platform.runLater(() -> {
+					Label loggedLabel = new Label("Pages Logged: " + logged);
+					loggedLabel.setFont(new Font(18));
+					main.getChildren().add(main.getChildren().size() - 1, loggedLabel);
+				});
+			}
+		});
 		main.setSpacing(30);
 		main.setTranslateX(60);
 		main.setTranslateY(30);
@@ -434,26 +852,27 @@ public class Main extends Application{
 		
 		// Create an on Action event for the delete button
 		delete.setOnAction(value -> {
-			System.out.println("EVENT: The delete button was pressed");
+			Metrics.count("ui.delete");
 			allBooks.remove(b);  // Remove the current book from the complete Library
-			save(allBooks);      // Update the data file by saving the library to file
-			delete.getScene().setRoot(loadMyBooks(allBooks));  // Launch the main view with the updated bookList
+			this.store.saveChanges(allBooks);  // Update the data file with the removed book
+			delete.getScene().setRoot(home(allBooks));  // Launch the main view with the updated bookList
 		});
 		
 		// Create an on Action event for the edit button
 		edit.setOnAction(value -> {
-			System.out.println("EVENT: The edit button was pressed");
+			Metrics.count("ui.edit");
 			edit.getScene().setRoot(loadAddBook(b));
 		});
 		
 		back.setOnAction(value -> {
-			System.out.println("EVENT: Back button pressed. \n... Returning to main page");
-			back.getScene().setRoot(loadMyBooks(lib));
+			Metrics.count("ui.back");
+			back.getScene().setRoot(home(lib));
 		});
 		
 		// Create the final VBox that holds the search bar, menu, and the main view
 		VBox view = new VBox(search, menuAndDisplay);  
 		
+		Metrics.stop("screen.selectedBook", timer);
 		// Return the VBox
 		return view;
 		
@@ -470,7 +889,9 @@ public class Main extends Application{
 	 */
 	public VBox loadAddBook(Book b) {
 		
-		Library lib = load();    // Load all of the books in the data file so a book can be added
+		long timer = Metrics.start();  // Time how long the method takes
+		
+		Library lib = getLibrary();  // Every book, so a book can be added
 		
 		// Create the navigation menu and the search bar
 		ToolBar menu = generateNavMenu(lib);
@@ -537,7 +958,7 @@ public class Main extends Application{
 		// Create an action event for the done button
 		done.setOnAction(value -> {
 			
-			System.out.println("EVENT: Done button pressed.\n...Checking values");
+			Metrics.count("ui.addBook.done");
 			
 			// Get all of the book attributes to add
 			String name = bookName.getText();
@@ -557,16 +978,20 @@ public class Main extends Application{
 				end = endDate.getValue().toString();
 			}
 			
-			// Create a Book object
-			boolean success = lib.add(name, author, series, pages, words, 
-					start, end);
+			// Create a Book object, replacing b in place if it is being edited
+			boolean success;
+			if(b.isEmpty()) {
+				success = lib.add(name, author, series, pages, words, start, end);
+			}
+			else {
+				success = lib.update(b, name, author, series, pages, words, start, end);
+			}
 			
 			// If add is successful, print success statement and navigate back to home screen
 			if(success) {
-				System.out.println("PASS: Book added to Library successfully");
-				if(!b.isEmpty()) lib.remove(b);            // remove book if b is not empty
-				save(lib);                                 // Save the library since a new book was added or edited
-				done.getScene().setRoot(loadMyBooks(lib)); // Navigate back to the home screen
+				Metrics.count("book.added");
+				this.store.saveChanges(lib);               // Save the book that was added or edited
+				done.getScene().setRoot(home(lib));        // Navigate back to the home screen
 			}
 			else {
 				System.out.println("ERROR: Book was not added successfully to the Library");
@@ -599,6 +1024,7 @@ public class Main extends Application{
 		
 		// Create a VBox holding the search bar, the menu, and the entire form
 		VBox vbox = new VBox(search, menuAndForm);
+		Metrics.stop("screen.addBook", timer);
 		// Return the VBox
 		return vbox;
 	}
@@ -611,8 +1037,9 @@ public class Main extends Application{
 	 */
 	public VBox loadReading() {
 		
-		Library allBooks = load();                                   // Load all of the books from file
-		TreeMap<LocalDate, Double> readingData = loadReadingData();  // Load all of the readingData from file
+		long timer = Metrics.start();  // Time how long the method takes
+		
+		Library allBooks = getLibrary();  // Every book
 		
 		ToolBar menu = generateNavMenu(allBooks);                 // Generate the Navigation menu
 		ToolBar search = generateSearchBar("Reading", allBooks);  // Generate the search bar
@@ -620,8 +1047,27 @@ public class Main extends Application{
 		// Create the form so that the user can input data
 		Label dateLabel = new Label("Enter the Date you read:");
 		Label pageLabel = new Label("Pages you read:");
+		Label bookLabel = new Label("Book you read:");
+		Label minuteLabel = new Label("Minutes (optional):");
 		DatePicker date = new DatePicker();
 		TextField pages = new TextField();
+		TextField minutes = new TextField();
+		
+		// The books being read can be picked, so the pages are also counted for that book
+		ComboBox<String> book = new ComboBox<String>();
+		LinkedHashMap<String, Book> choices = new LinkedHashMap<String, Book>();
+		
+		// Puts the books being read into the choices, run again whenever the Library changes
+		Runnable refresh = () -> {
+			choices.clear();
+			for(Book b : getForecast().getReading()) {
+				choices.putIfAbsent(b.getTitle() + " by " + b.getAuthor(), b);
+			}
+			book.getItems().setAll(choices.keySet());
+		};
+		refresh.run();
+		this.readingRefresh = refresh;
+		book.setPromptText("No particular book");
 		Button done = new Button("Done");
 		
 		// Set all of the attributes for the done Button
@@ -634,8 +1080,12 @@ public class Main extends Application{
 		// Set Label and TextField attributes
 		dateLabel.setFont(new Font(18));
 		pageLabel.setFont(new Font(18));
+		bookLabel.setFont(new Font(18));
+		minuteLabel.setFont(new Font(18));
 		pages.setPrefWidth(150);
 		date.setPrefWidth(150);
+		minutes.setPrefWidth(150);
+		book.setPrefWidth(150);
 		
 		// Place the reading label and the textField into a VBox
 		HBox labels = new HBox(pageLabel, dateLabel);
@@ -643,8 +1093,13 @@ public class Main extends Application{
 		// PLace the date Label and the date picker into a VBox
 		HBox fields = new HBox(pages, date);
 		fields.setSpacing(60);
-		// Place both HBoxes into a VBox with the button
-		VBox form = new VBox(labels, fields, done);
+		// The book and the minutes go on a second row
+		HBox sessionLabels = new HBox(bookLabel, minuteLabel);
+		sessionLabels.setSpacing(90);
+		HBox sessionFields = new HBox(book, minutes);
+		sessionFields.setSpacing(60);
+		// Place the HBoxes into a VBox with the button
+		VBox form = new VBox(labels, fields, sessionLabels, sessionFields, done);
 		form.setSpacing(25);
 		form.setTranslateX(40);
 		form.setTranslateY(60);
@@ -655,7 +1110,7 @@ public class Main extends Application{
 		
 		// Set on action event for the button 
 		done.setOnAction(value -> {
-			System.out.println("EVENT: Done button was pressed");
+			Metrics.count("ui.reading.done");
 			// Check that the input data is valid
 			LocalDate newDate = LocalDate.now();
 			
@@ -665,32 +1120,43 @@ public class Main extends Application{
 			try {
 				
 				double pagesRead = Double.parseDouble(pages.getText());  // Get the pages read as a Double
+				int minutesRead = minutes.getText().trim().isEmpty() ? -1 : Integer.parseInt(minutes.getText().trim());
 				
-				// Add the new data to the readingData
-				if(readingData.containsKey(newDate)) {  // Add pagesRead if the radingData already contains this date
-					double newVal = readingData.get(newDate) + pagesRead;
-					readingData.replace(newDate, newVal);
-				} else {                                // Else just append new reading data
-					readingData.put(newDate, pagesRead);
-				}
+				// Queue the new data, the reading data file is written in the background
+				boolean success = this.readingLog.log(newDate, pagesRead);
 				
-				boolean success = saveReadData(readingData);
+				// Also record the session against the book, if one was picked, writing it in the background
+				Book readBook = book.getValue() == null ? null : choices.get(book.getValue());
+				if(success && readBook != null) {
+					LocalDate readDate = newDate;
+					this.sessionWriter.execute(() -> {
+						SessionLog sessions = getSessionLog();
+						if(sessions != null) sessions.log(readBook, readDate, (int) Math.round(pagesRead), minutesRead);
+					});
+				}
 				
 				if(success) {
-					System.out.println("PASS: reading data has been successfully saved.");
-					done.getScene().setRoot(loadMyBooks(allBooks));
+					Metrics.count("reading.saved");
+					if(this.forecast != null) this.forecast.log(newDate, pagesRead);
+					if(this.pagesHistory != null) this.pagesHistory.add(newDate, pagesRead);
+					pages.clear();  // The screen is reused, so start empty next time
+					minutes.clear();
+					date.setValue(null);
+					book.setValue(null);
+					done.getScene().setRoot(home(allBooks));
 				} else {
 					System.out.println("ERROR: Reading data was not saved to file.");
 				}
 				
 			} catch(NumberFormatException e) {
-				System.out.println("ERROR: The value you entered for pages read is invalid");
+				System.out.println("ERROR: The value you entered for pages or minutes read is invalid");
 			}
 		});
 		
 		// Create the completed view
 		VBox view = new VBox(search, main);
 		
+		Metrics.stop("screen.reading", timer);
 		// Return the finalized view
 		return view;
 	}
@@ -703,7 +1169,9 @@ public class Main extends Application{
 	 */
 	public VBox loadAbout() {
 		
-		Library allBooks = load();
+		long timer = Metrics.start();  // Time how long the method takes
+		
+		Library allBooks = getLibrary();
 		
 		ToolBar menu = generateNavMenu(allBooks);
 		ToolBar search = generateSearchBar("About", allBooks);
@@ -711,10 +1179,90 @@ public class Main extends Application{
 		
 		
 		VBox view = new VBox(search, menu);
+		Metrics.stop("screen.about", timer);
+		return view;
+		
+	}
+	
+	/**
+	 * Creates and returns a VBox object that holds the Diagnostics page,
+	 * which lists every counter and timer recorded by Metrics.
+	 * @return The main View that will be used as the Diagnostics page
+	 */
+	public VBox loadDiagnostics() {
+		
+		Library allBooks = getLibrary();
+		
+		ToolBar menu = generateNavMenu(allBooks);
+		ToolBar search = generateSearchBar("Diagnostics", allBooks);
+		
+		ListView lv = new ListView();
+		lv.setPrefHeight(555);
+		lv.setPrefWidth(1075);
+		
+		Button refresh = new Button("Refresh");
+		refresh.setPrefWidth(100);
+		refresh.setPrefHeight(40);
+		refresh.setStyle("-fx-background-color: #3264a8; "
+				+ "-fx-text-fill: #f5f6f7;");
+		
+		Button reset = new Button("Reset");
+		reset.setPrefWidth(100);
+		reset.setPrefHeight(40);
+		reset.setStyle("-fx-background-color: #a30202; "
+				+ "-fx-text-fill: #f5f6f7;");
+		
+		// Fill the list with the current metrics
+		populateDiagnostics(lv);
+		
+		refresh.setOnAction(value -> populateDiagnostics(lv));
+		
+		reset.setOnAction(value -> {
+			Metrics.reset();
+			populateDiagnostics(lv);
+		});
+		
+		HBox buttons = new HBox(refresh, reset);
+		buttons.setSpacing(25);
+		buttons.setTranslateX(25);
+		
+		VBox diagnostics = new VBox(buttons, lv);
+		diagnostics.setSpacing(20);
+		diagnostics.setTranslateY(20);
+		
+		HBox main = new HBox(menu, diagnostics);
+		VBox view = new VBox(search, main);
 		return view;
 		
 	}
 	
+	/**
+	 * Fills a ListView with one row for every counter and timer in Metrics
+	 * @param lv The ListView to be populated
+	 */
+	private void populateDiagnostics(ListView lv) {
+		
+		lv.getItems().clear();
+		
+		if(!Metrics.ENABLED) {
+			lv.getItems().add(new Label("Metrics are disabled. Start the application with -Dlibrary.metrics=true"));
+			return;
+		}
+		
+		// Add the timers first since they are the most useful
+		for(Map.Entry<String, String> et : Metrics.timers().entrySet()) {
+			Label row = new Label(et.getKey() + ":  " + et.getValue());
+			row.setFont(new Font(16));
+			lv.getItems().add(row);
+		}
+		
+		for(Map.Entry<String, Long> et : Metrics.counters().entrySet()) {
+			Label row = new Label(et.getKey() + ":  " + et.getValue());
+			row.setFont(new Font(16));
+			lv.getItems().add(row);
+		}
+	}
+	
 	/**
 	 * Populates a ListView with Book data from a Library object.
 	 * @param lv The ListView to be populated
@@ -723,36 +1271,71 @@ public class Main extends Application{
 	 */
 	public void populateListView(ListView lv, ArrayList<Book> lib) {
 		
-		// Clear the listView
-		lv.getItems().clear();
+		// Rows are only built for the cells that are on screen, so the
+		// size of the Library doesn't change how long this takes
+		lv.setCellFactory(view -> new BookCell());
+		lv.setItems(FXCollections.observableArrayList(lib));
+	}
+	
+	/**
+	 * Shows the books of a Library in a ListView. The Library of every book
+	 * is shown through bookItems, which already follows every change to it,
+	 * so nothing has to be copied. Any other Library, such as search results,
+	 * is copied into the list.
+	 * @param lv The ListView to show the books in
+	 * @param lib The Library to show
+	 */
+	private void showBooks(ListView lv, Library lib) {
 		
-		// Cycle through each Book object
-		for(int i = 0; i < lib.size(); i++) {
-			
-			Book current = lib.get(i);  // Get the current book in the list
+		if(lib == this.library) {
+			lv.setCellFactory(view -> new BookCell());
+			lv.setItems(this.bookItems);
+		}
+		else {
+			populateListView(lv, lib.getAll());
+		}
+	}
+	
+	/**
+	 * A single row of the book list. The same row is reused for different
+	 * books as the list is scrolled.
+	 */
+	private static class BookCell extends ListCell<Book> {
+		
+		private final Label bookNum = new Label();   // Start each row with the number of the book
+		private final Label title = new Label();     // The Title of the book
+		private final Label author = new Label();    // The author of the book
+		private final HBox row;                      // Holds the number, title and author
+		private final Label invalid = new Label("\t\t\t\t\t\t\t\t\tThe Book you are looking for does not exist.");
+		
+		BookCell() {
+			// Set the font size of each of the labels
+			this.bookNum.setFont(new Font(16));
+			this.title.setFont(new Font(18));
+			this.author.setFont(new Font(15));
+			this.invalid.setFont(new Font(20));
 			
-			if(!(current.getTitle() == null)) {  // Check that the Library does not have null values
+			VBox bookInfo = new VBox(this.title, this.author);  // Store the title and the author in a VBox
+			this.row = new HBox(this.bookNum, bookInfo);        // Store the bookNum and the VBox in a HBox
+		}
+		
+		@Override
+		protected void updateItem(Book current, boolean empty) {
 			
-				Label bookNum = new Label((i + 1) + ": ");                    // Start each row with the number of the book
-				Label title = new Label(current.getTitle());                  // Get the Title of the book
-				Label author = new Label("\tby: " + current.getAuthor());     // Get author of the book
-				// Set the font size of each of the labels
-				bookNum.setFont(new Font(16));
-				title.setFont(new Font(18));
-				author.setFont(new Font(15));
-		
-				VBox bookInfo = new VBox(title, author);  // Store the title and the author in a VBox
+			super.updateItem(current, empty);
+			setText(null);
 			
-				HBox row = new HBox(bookNum, bookInfo);   // Store the bookNUm and the VBox in a HBox
-		
-				// Populate the List View with the new HBox
-				lv.getItems().add(row);
+			if(empty || current == null) {
+				setGraphic(null);
+			}
+			else if(!(current.getTitle() == null)) {  // Check that the Library does not have null values
+				this.bookNum.setText((getIndex() + 1) + ": ");
+				this.title.setText(current.getTitle());
+				this.author.setText("\tby: " + current.getAuthor());
+				setGraphic(this.row);
 			}
 			else {
-				
-				Label invalid = new Label("\t\t\t\t\t\t\t\t\tThe Book you are looking for does not exist."); // Make a label to display
-				invalid.setFont(new Font(20));                                             // Set the font of the label
-				lv.getItems().add(invalid);                                                // Add the label to the list view
+				setGraphic(this.invalid);
 			}
 		}
 	}
@@ -790,37 +1373,30 @@ public class Main extends Application{
 		
 		// Create action events for each of the search options
 		byTitle.setOnAction(value -> {
-			System.out.println("EVENT: search bar was set to Title");
+			Metrics.count("ui.searchMode.title");
 			searchBar.setPromptText("Search by Book Title");      // Set the Search bar text to Title
 		});
 				
 		byAuthor.setOnAction(value -> {
-			System.out.println("EVENT: search bar was set to Author");
+			Metrics.count("ui.searchMode.author");
 			searchBar.setPromptText("Search by Book Author");     // Set the Search bar text to Author
 		});
 				
 		bySeries.setOnAction(value -> {
-			System.out.println("EVENT: search bar was set to Series");
+			Metrics.count("ui.searchMode.series");
 			searchBar.setPromptText("Search by Book Series");     // Set the Search bar text to Series
 		});
 		
 		searchButton.setOnAction(value -> {
-			System.out.println("EVENT: Search button has been pressed");
+			Metrics.count("ui.search");
 			String s = searchBar.getPromptText().substring(15);   // Get the Last word in the search bar prompt
 			String toSearch = searchBar.getText();                // Get the value that the user wants to search for
 			Library newLib = new Library();                       // Create an empty library object
 			
-			// Search based on search option picked by user
-			switch(s) {
-			case "Title":
-				newLib.add(lib.searchTitle(toSearch));  // Search by Title and add resulting book to the newLib
-				break;
-			case "Author":
-				newLib.add(lib.searchAuthor(toSearch)); // Search by Author and add the resulting list to newLib
-				break;
-			case "Series":
-				newLib.add(lib.searchSeries(toSearch)); // Search by Series and add the resulting list to newLib
-				break;
+			// Search based on search option picked by user, reusing the results of a recent identical search
+			List<Book> results = this.searchCache.search(lib, s.toLowerCase(), toSearch);
+			if(results != null) {
+				newLib.add(new ArrayList<Book>(results));
 			}
 			
 			// Load the main screen using the newLib as a list
@@ -880,27 +1456,42 @@ public class Main extends Application{
 		
 		// Create action events for each of the buttons
 		homeButton.setOnAction(value -> {
-			System.out.println("EVENT: Home button was pressed");
-			homeButton.getScene().setRoot(loadMyBooks(lib));
+			Metrics.count("ui.nav.home");
+			homeButton.getScene().setRoot(home(lib));
 		});
 				
 		aboutButton.setOnAction(value -> {
-			System.out.println("EVENT: About button was pressed");
-			aboutButton.getScene().setRoot(loadAbout());  // Navigate to the about screen
+			Metrics.count("ui.nav.about");
+			aboutButton.getScene().setRoot(this.aboutScreen.get());  // Navigate to the about screen
 		});
 				
 		statButton.setOnAction(value -> {
-			System.out.println("EVENT: Statistics button was pressed");
-			statButton.getScene().setRoot(loadStats());  // Navigate to the Statistics screen
+			Metrics.count("ui.nav.stats");
+			statButton.getScene().setRoot(this.statsScreen.get());  // Navigate to the Statistics screen
 		});
 		
 		readButton.setOnAction(value -> {
-			System.out.println("EVENT: Reading button was pressed");
-			readButton.getScene().setRoot(loadReading());
+			Metrics.count("ui.nav.reading");
+			readButton.getScene().setRoot(this.readingScreen.get());
 		});
 		
 		// Create the final ToolBar with all of the buttons
 		ToolBar menu = new ToolBar(homeButton, statButton, readButton, aboutButton);
+		
+		// Only show the Diagnostics page when metrics are being recorded
+		if(Metrics.ENABLED) {
+			Button diagButton = new Button("Diagnostics");
+			diagButton.setPrefWidth(100);
+			diagButton.setStyle("-fx-background-color: #f5f6f7");
+			diagButton.setPadding(new Insets(8));
+			diagButton.setTranslateX(7);
+			diagButton.setTranslateY(30);
+			diagButton.setOnAction(value -> {
+				Metrics.count("ui.nav.diagnostics");
+				diagButton.getScene().setRoot(this.diagnosticsScreen.get());
+			});
+			menu.getItems().add(diagButton);
+		}
 		menu.setOrientation(Orientation.VERTICAL);         // Sets the orientation of the menu to Vertical
 		menu.setPrefHeight(1250);                          // Sets height so it goes to the bottom of the window 
 		menu.setStyle("-fx-background-color: #3264a8");    // Sets the background color
@@ -920,12 +1511,23 @@ public class Main extends Application{
 	 */
 	public VBox getRankings(Library books, Book b) {
 		
-		long timeToRead = books.getTimeToRead(b);            // Get the total time it took to read the book
-		double pagesPerDay = b.getNumPages() / timeToRead;   // Calculate the average number of words per day read
-		int pageRanking = 1;                                 // Used to store the total ranking for page count
-		int wordRanking = 1;                                 // Used to store the total ranking for word count
+		// Every ranking changes when a book is added, edited or removed
+		if(books.getVersion() != this.rankingVersion) {
+			this.rankingData.clear();
+			this.rankingViews.clear();
+			this.rankingVersion = books.getVersion();
+		}
+		
+		// Reuse the view if this book was viewed recently
+		VBox cached = this.rankingViews.get(b.getKey());
+		if(cached != null) return cached;
+		
+		double[] data = this.rankingData.get(b.getKey(), key -> this.stats.getRankingData(books, b));  // Calculate all of the rankings for the book
+		long timeToRead = (long) data[3];                    // Get the total time it took to read the book
+		int pageRanking = (int) data[0];                     // Used to store the total ranking for page count
+		int wordRanking = (int) data[1];                     // Used to store the total ranking for word count
 		String totalValue = String.valueOf(timeToRead);      // Get the String value of timeToRead
-		String perDayValue = String.valueOf(pagesPerDay);    // Get the String vale of pagesPerDay
+		String perDayValue = String.format("%.2f", data[4]); // Get the String vale of pagesPerDay
 		
 		// Check that timeToRead and pagesPerDay are valid
 		if(timeToRead < 0) {
@@ -933,18 +1535,6 @@ public class Main extends Application{
 			perDayValue = "NA";
 		}
 		
-		// Cycle through each book in the list
-		for(Book current : books.getAll()) {
-			
-			// Compare the current books page and word count with the book b
-			if(current.getNumPages() > b.getNumPages()) {
-				pageRanking++;  // Increment pageRanking if current has more pages than b
-			}
-			if(current.getWordCount() > b.getWordCount()) {
-				wordRanking++;  // Increment wordRanking if current has more words than b
-			}
-		}
-		
 		Label rank = new Label("Rankings:");  // Create a Label for the title
 		Label pageRank = new Label("Pages: #" + pageRanking + " Out Of " + 
 				books.size());
@@ -966,76 +1556,13 @@ public class Main extends Application{
 		ranking.setTranslateX(140);           // Shift the VBox to the right
 		ranking.setTranslateY(90);            // Shift the VBox down
 		
+		this.rankingViews.put(b.getKey(), ranking);
+		
 		// Return the entire VBox holding all of the ranking details
 		return ranking;
 		
 	}
 	
-	/**
-	 * Calculates the General stats of all of the books in the users
-	 * library. Used in the Analytics portion of the navigation menu
-	 * @param lib A Library object that holds all of the books in the 
-	 * users library
-	 * @param readingMap A TreeMap with all of the LocalDate objects as keys
-	 * and the number of pages read on each date as values
-	 * @return An ArrayList of type String that holds all of the relevant
-	 * general statistics
-	 */
-	public ArrayList<Double> getGenStats(Library lib, TreeMap<LocalDate, Double> readingMap) {
-		
-		ArrayList<Double> genStats = new ArrayList<Double>();
-		double avgPageLength = 0.0;
-		double totalPagesRead = 0.0;
-		double currentReadingStreak = 0.0;
-		int count = 0;
-		LocalDate checkDate = LocalDate.now().minusDays(1);
-		
-		String size = String.valueOf(lib.size());  // Get the total number of books in the library
-		genStats.add(Double.parseDouble(size));    // Add total number of books in list
-		
-		// Get the average book length
-		for(Book b : lib.getAll()) {
-			
-			// Check that current book has a valid page count
-			if(b.getNumPages() > 0) {
-				// Only add books that have a page count
-				avgPageLength += b.getNumPages();
-				count++;  // Only count books that have a page count
-			}
-		}
-		
-		// Calculate the total pages read
-		for(double d : readingMap.values()) {
-			totalPagesRead += d;
-		}
-		
-		// Calculate the current reading Streak
-		for(int i = 0; i < readingMap.size(); i++) {
-			
-			// Check that the user has read during the correct date
-			if(readingMap.containsKey(checkDate)) {
-				currentReadingStreak++;
-				checkDate = checkDate.minusDays(1);
-			} else if (readingMap.containsKey(LocalDate.now())) {
-				currentReadingStreak++;
-				break;
-			} else {
-				break;
-			}
-		}
-		
-		// Calculate how many pages the user reads per day based on reading data
-		double avgPagesPerDay = totalPagesRead / (readingMap.firstEntry().getKey().until(LocalDate.now(), ChronoUnit.DAYS));
-		
-		avgPageLength /= count;             // Calculate average book length
-		genStats.add(avgPageLength);        // Add the average book length the the list
-		genStats.add(totalPagesRead);       // Add the total number of pages read to list
-		genStats.add(currentReadingStreak); // Add the current reading streak to the list
-		genStats.add(avgPagesPerDay);       // Add the pages read per day for the user
-		
-		return genStats;  // Return the list
-	}
-	
 	/**
 	 * Generates Statistics to be used in the Day section of the Analytics 
 	 * section of the Application
@@ -1047,67 +1574,6 @@ public class Main extends Application{
 	 */
 	public BarChart genDayGraph(TreeMap<LocalDate, Double> readingMap) {
 		
-		// Create a Map object to hold all of the data for each day of the week
-		Map<DayOfWeek, Double> dataMap = new HashMap<>(7);
-		dataMap.put(DayOfWeek.SUNDAY, 0.0);     // Initiate all values in the map to 0.0
-		dataMap.put(DayOfWeek.MONDAY, 0.0);
-		dataMap.put(DayOfWeek.TUESDAY, 0.0);
-		dataMap.put(DayOfWeek.WEDNESDAY, 0.0);
-		dataMap.put(DayOfWeek.THURSDAY, 0.0);
-		dataMap.put(DayOfWeek.FRIDAY, 0.0);
-		dataMap.put(DayOfWeek.SATURDAY, 0.0);
-		
-		// Create ArrayList to count number of entries of each day of the week
-		ArrayList<Double> dayCounts = new ArrayList<Double>(7);
-		for(int i = 0; i < 7; i++) {
-			dayCounts.add(0.0);
-		}
-		
-		int pointer;                                     // Used to cycle through each day of the week in dayCount
-		LocalDate startingDate = readingMap.firstKey();  // Get the first Date the user read
-		LocalDate today = LocalDate.now();               // Used to increment through days from startingDate to today
-		
-		// calculate pointer based on day of the week of startingDate
-		if(startingDate.getDayOfWeek().equals(DayOfWeek.MONDAY)) pointer = 0;
-		else if(startingDate.getDayOfWeek().equals(DayOfWeek.TUESDAY)) pointer = 1;
-		else if(startingDate.getDayOfWeek().equals(DayOfWeek.WEDNESDAY)) pointer = 2;
-		else if(startingDate.getDayOfWeek().equals(DayOfWeek.THURSDAY)) pointer = 3;
-		else if(startingDate.getDayOfWeek().equals(DayOfWeek.FRIDAY)) pointer = 4;
-		else if(startingDate.getDayOfWeek().equals(DayOfWeek.SATURDAY)) pointer = 5;
-		else pointer = 6;
-		
-		// Add the value of the startingDate in reading map to dataMap
-		dataMap.replace(startingDate.getDayOfWeek(), readingMap.get(startingDate));
-		startingDate = startingDate.plusDays(1);  // Increment startingDate by 1 day
-		dayCounts.set(pointer, 1.0);              // Add one to the dayCounts at position pointer
-		// Set pointer to 0 if it is currently pointing to Saturday, otherwise increment
-		if(pointer == dayCounts.size() - 1) pointer = 0;
-		else pointer++;
-		
-		// Cycle through dates until startingDate is tomorrow
-		while(startingDate.isBefore(today) || startingDate.equals(today)) {
-			
-			// Check for a reading value at the current date
-			if(readingMap.containsKey(startingDate)) {
-				// Add the value at this key to the correct day of the week
-				double newVal = readingMap.get(startingDate) + dataMap.get(startingDate.getDayOfWeek());
-				dataMap.replace(startingDate.getDayOfWeek(), newVal);
-			}
-			// Increment the value at pointer in dayCounts by 1
-			dayCounts.set(pointer, dayCounts.get(pointer) + 1);
-			
-			startingDate = startingDate.plusDays(1);  // Increment startingDate for the next round
-			// Set pointer to 0 if it is currently pointing to a Saturday, otherwise increment
-			if(pointer == dayCounts.size()-1) pointer = 0;
-			else pointer++;
-		}
-		
-		pointer = 0;
-		for(DayOfWeek d : DayOfWeek.values()) {
-			double newVal = dataMap.get(d) / dayCounts.get(pointer++);
-			dataMap.replace(d, newVal);
-		}
-		
 		// Create the X and Y axis for the BarChart
 		CategoryAxis xAxis = new CategoryAxis();
 		NumberAxis yAxis = new NumberAxis();
@@ -1116,14 +1582,15 @@ public class Main extends Application{
 		
 		// Create new DataSeries
 		XYChart.Series data = new XYChart.Series();
-		// Add all of the values to the data
+		// Add a bar for every day, showDayGraph() sets their values
 		for(DayOfWeek d : DayOfWeek.values()) {
-			data.getData().add(new XYChart.Data(d.toString(), dataMap.get(d)));
+			data.getData().add(new XYChart.Data(d.toString(), 0.0));
 		}
 		
 		// Create the BarChart that holds all of the data
 		BarChart barChart = new BarChart(xAxis, yAxis);
 		barChart.getData().add(data);
+		showDayGraph(barChart, readingMap);
 		barChart.setPrefHeight(400);
 		barChart.setLegendVisible(false);
 		barChart.setTitle("Average Pages per Day of the Week");
@@ -1140,382 +1607,120 @@ public class Main extends Application{
 	}
 	
 	/**
-	 * Generates the Month graph that is apart of the Analytics tab.
-	 * @param books The Library object that contains all of the user's 
-	 * Books
-	 * @return A BarChart that represents the data
+	 * Shows the average pages read on each day of the week in the Day
+	 * graph, changing the values of the bars it already has
+	 * @param barChart The Day graph, from genDayGraph()
+	 * @param readingMap The pages read on each date
 	 */
-	public BarChart genMonthGraph(Library books) {
+	private void showDayGraph(BarChart barChart, TreeMap<LocalDate, Double> readingMap) {
 		
-		books.sortByEndDate();
-		
-		ArrayList<Integer> arr = new ArrayList<>(
-				Arrays.asList(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0));  // Create an ArrayList that holds the number of books read each month
-		
-		// Cycle through all of the books in the Library and update the Array for each book
-		for(Book b : books.getAll()) {
-			// Skip the Book if it has not yet been finished
-			if(!(b.getEndDate().equalsIgnoreCase("NA"))) {
-				
-				int index = LocalDate.parse(b.getEndDate()).getMonthValue() - 1;  // Get the index of the current month from 0 to 11
-				int newVal = arr.get(index) + 1;                                  // Make the value what it was plus 1
-				
-				arr.set(index, newVal);  // Set the value at the index to the newVal
-			}
-		}
-		
-		// Create both the x and y axes
-		CategoryAxis xAxis = new CategoryAxis();
-		NumberAxis yAxis = new NumberAxis();
-		// Set the Label of both the axes
-		xAxis.setLabel("Month");
-		yAxis.setLabel("Books Read");
+		// Get the average number of pages read on each day of the week
+		Map<DayOfWeek, Double> dataMap = this.stats.getDayAverages(readingMap);
 		
-		// Create the data and populate it with the array values above
-		XYChart.Series data = new XYChart.Series();
-		for(Month m : Month.values()) {
-			data.getData().add(new XYChart.Data(m.toString(), arr.get(m.getValue() - 1)));
+		XYChart.Series data = (XYChart.Series) barChart.getData().get(0);
+		for(DayOfWeek d : DayOfWeek.values()) {
+			((XYChart.Data) data.getData().get(d.getValue() - 1)).setYValue(dataMap.getOrDefault(d, 0.0));
 		}
-		
-		// Create the barChart and Set the color of each bar to match the theme
-		BarChart bc = new BarChart(xAxis, yAxis);
-		bc.getData().add(data);
-		bc.setPrefHeight(400);
-		bc.setLegendVisible(false);
-		bc.setTitle("Total Books Read per Month");
-		bc.lookup(".data0.chart-bar").setStyle("-fx-bar-fill: #3264a8");
-		bc.lookup(".data1.chart-bar").setStyle("-fx-bar-fill: #3264a8");
-		bc.lookup(".data2.chart-bar").setStyle("-fx-bar-fill: #3264a8");
-		bc.lookup(".data3.chart-bar").setStyle("-fx-bar-fill: #3264a8");
-		bc.lookup(".data4.chart-bar").setStyle("-fx-bar-fill: #3264a8");
-		bc.lookup(".data5.chart-bar").setStyle("-fx-bar-fill: #3264a8");
-		bc.lookup(".data6.chart-bar").setStyle("-fx-bar-fill: #3264a8");
-		bc.lookup(".data7.chart-bar").setStyle("-fx-bar-fill: #3264a8");
-		bc.lookup(".data8.chart-bar").setStyle("-fx-bar-fill: #3264a8");
-		bc.lookup(".data9.chart-bar").setStyle("-fx-bar-fill: #3264a8");
-		bc.lookup(".data10.chart-bar").setStyle("-fx-bar-fill: #3264a8");
-		bc.lookup(".data11.chart-bar").setStyle("-fx-bar-fill: #3264a8");
-		// Return the BarChart
-		return bc;
 	}
 	
 	/**
-	 * Generates all of the data that is needed for the day section of the 
-	 * analytics tab
-	 * @param readingData All of the reading Data that the user has entered
-	 * up until this date
-	 * @return An Array that contains all of the data that represents
-	 * days based on the reading data of the user
+	 * Generates a line chart of a value over the whole reading history. The
+	 * chart shows days, weeks, months or years, whichever is the finest that
+	 * fits in the chart, so a long history never has too many points to draw.
+	 * @param name What the value is, such as Pages Read
+	 * @param data The value over time
+	 * @return A LineChart with one point per period
 	 */
-	public double[] getDayData(TreeMap<LocalDate, Double> readingData) {
-		
-		double[] arr = new double[2];           // Create the Array that will hold all of the data
-		int today = LocalDate.now().getYear();  // Get the current year as an integer
+	public LineChart genHistoryGraph(String name, ChartData data) {
 		
-		// Calculate todays reading amount
-		if(readingData.containsKey(LocalDate.now())) arr[0] = readingData.get(LocalDate.now());
-		
-		for(Map.Entry<LocalDate, Double> et : readingData.entrySet()) {
-			// check if the current reading data date matches this year
-			if(et.getKey().getYear() == today) {
-				arr[1] += et.getValue();
-			}
-		}
-		
-		return arr;
+		// Create both the x and y axes
+		CategoryAxis xAxis = new CategoryAxis();
+		NumberAxis yAxis = new NumberAxis();
+		yAxis.setLabel(name);
+		
+		LineChart chart = new LineChart(xAxis, yAxis);
+		chart.getData().add(new XYChart.Series());
+		chart.setCreateSymbols(false);  // A symbol for every point is too much to draw and read
+		chart.setAnimated(false);
+		chart.setPrefHeight(400);
+		chart.setLegendVisible(false);
+		chart.setTitle(name + " Over Time");
+		showHistoryGraph(chart, data);
+		
+		return chart;
 	}
 	
 	/**
-	 * Generates all of the data that is needed for the month section of the
-	 * analytics tab.
-	 * @param books A Library object containing all of the users Books
-	 * @param readingData A TreeMap containing all of the user's reading data
-	 * @return An Array that contains all of the relevant data
-	 * that is need for the month section.
+	 * Shows a value over time in a history graph, replacing the points of
+	 * the series it already has
+	 * @param chart A history graph, from genHistoryGraph()
+	 * @param data The value over time
 	 */
-	public double[] getMonthData(Library books, TreeMap<LocalDate, Double> readingData) {
-		
-		double[] arr = new double[3];       // Create an Array that will hold all of the data
+	private void showHistoryGraph(LineChart chart, ChartData data) {
 		
-		// Cycle through all of the Users books and get the data
-		int countBooks = 0;                 // Used to count the number of books the user has read this month
-		int countPages = 0;                 // used to count the number of pages the user has read this month
-		int countYear = 0;                  // Used to count the number of books the user has read this year
-		LocalDate today = LocalDate.now();  // Used to compare this months with each book
+		ChartData.Series points = data.series(HISTORY_POINTS);
+		chart.getXAxis().setLabel(points.getResolution().toString().charAt(0)
+				+ points.getResolution().toString().substring(1).toLowerCase());  // Day, Week, Month or Year
 		
-		for(Book b : books.getAll()) {
-			
-			if(!(b.getEndDate().equalsIgnoreCase("NA"))) {
-				
-				// Create a LocalDate object using date that the book was finished
-				LocalDate bookDate = LocalDate.parse(b.getEndDate());
-				
-				// Increment countMonth if the book was read this month
-				if(bookDate.getMonth().equals(today.getMonth()) && bookDate.getYear() == today.getYear()) {
-					countBooks++;
-				}
-				
-				// Increment countYear if the book was read this year
-				if(bookDate.getYear() == today.getYear()) countYear++;
-				
-			}
+		List<XYChart.Data> values = new ArrayList<XYChart.Data>(points.size());
+		for(int i = 0; i < points.size(); i++) {
+			values.add(new XYChart.Data(points.getLabel(i), points.getValue(i)));
 		}
-		
-		// Cycle through all of the users reading data
-		for(Map.Entry<LocalDate, Double> et : readingData.entrySet()) {
-			// Add page value if the dates month matches this month
-			if(today.getMonth().equals(et.getKey().getMonth()) && today.getYear() == et.getKey().getYear()) {
-				
-				countPages += et.getValue();
-			}
-		}
-		
-		arr[0] = countBooks;   // Add the number of books read this month to the array
-		arr[1] = countPages;   // Add the number of pages read this month to the array
-		arr[2] = countYear;    // Add the number of books read this year to the array
-		// Return the array
-		return arr;
+		((XYChart.Series) chart.getData().get(0)).getData().setAll(values);
 	}
 	
 	/**
-	 * Saves the current Library of Book objects to the file
-	 * defined as apart of Main
-	 * @param lib Library object that holds the Book data that is to be saved
-	 * to the data file.
-	 * @return True if save was successful. False otherwise
-	 */
-	public boolean save(Library lib) {
-		
-		lib.sortByTitle();                       // Sort by title before saving
-		
-		FileWriter fw;                           // Used to Write to file
-		BufferedWriter bw;                       // Used with fw to write to file
-		StringBuilder sb = new StringBuilder();  // Used to build string before writing to file
-		boolean success = true;                  // Flag used to see whether or not save was successful
-		
-		try {
-			
-			fw = new FileWriter(this.DATA_FILE);
-			bw = new BufferedWriter(fw);
-			
-			for(int i = 0; i < lib.size(); i++) {
-				
-				// Get the book at the current position
-				Book temp = lib.get(i);
-				
-				// Append all of the books attributes into the string builder
-				sb.append(temp.getTitle());
-				sb.append("@!@");
-				sb.append(temp.getAuthor());
-				sb.append("@!@");
-				sb.append(temp.getSeries());
-				sb.append("@!@");
-				sb.append(temp.getNumPages());
-				sb.append("@!@");
-				sb.append(temp.getWordCount());
-				sb.append("@!@");
-				sb.append(temp.getStartDate());
-				sb.append("@!@");
-				sb.append(temp.getEndDate());
-				sb.append("\n");
-				
-				// Write the stringBuilder to file
-				bw.write(sb.toString());
-				sb.setLength(0);  // Clear the StringBuilder
-			}
-			
-			bw.close();  // Close the BufferedWriter
-			
-		}
-		catch(IOException e) {
-			System.out.println("Error reading from the file: " + this.DATA_FILE);
-			System.out.println("Exiting, all data might not have been saved.");
-			success = false;
-		}
-		
-		// Print success message if no errors were thrown
-		if(success) {
-			System.out.println("PASS: Saved data to file successfully");
-		}
-		// Return success boolean
-		return success;
-
-	}  //save()
-	
-	/**
-	 * Loads the Book Data from the file defined as apart of 
-	 * the Main object into a Library object and then returns
-	 * that Library object
-	 * @return Library object containing all of the Book data in the data file.
+	 * Generates the Month graph that is apart of the Analytics tab. The
+	 * books read each month of a year are shown next to the same month
+	 * of the year before.
+	 * @param year The year to show
+	 * @return A BarChart that represents the data
 	 */
-	public Library load() {
-		
-		Library lib = new Library();  // Used to store the books being loaded
-		FileReader fr;                // Used to read from the file
-		BufferedReader br;            // Used to read from the file
-		String line;                  // Used to store the incoming line
-		boolean success = true;       // Flag to test whether or not load was successful
+	public BarChart genMonthGraph(int year) {
 		
-		try {
-			
-			// Initialize the FileReader and BufferedReader
-			fr = new FileReader(this.DATA_FILE);
-			br = new BufferedReader(fr);
-			
-			// Read from file until file is empty
-			while((line = br.readLine()) != null) {
-				
-				// Split the line by the delimiter
-				String[] currentBook = line.split("@!@");
-				
-				// get all of the relevant attributes for a book
-				String title = currentBook[0];
-				String author = currentBook[1];
-				String series = currentBook[2];
-				int numPages = Integer.parseInt(currentBook[3]);
-				int wordCount = Integer.parseInt(currentBook[4]);
-				String startDate = currentBook[5];
-				String endDate = currentBook[6];
-				
-				// Create a Book object using the above values
-				Book newBook = new Book(title, author, series, numPages, wordCount, startDate, endDate);
-				// Add the new book to the library
-				lib.add(newBook);
-			}
-			
-			br.close();
-			
-		}
-		catch(FileNotFoundException e) {
-			System.out.println("ERROR: Data file could not found");
-			success = false;
-		}
-		catch(IOException e) {
-			System.out.println("IO ERROR: There was a problem while trying to read from the data file");
-			success = false;
-		}
-		// Print success message if no errors were thrown
-		if(success) {
-			System.out.println("PASS: Data was loaded successfully");
-		}
+		// Create both the x and y axes
+		CategoryAxis xAxis = new CategoryAxis();
+		NumberAxis yAxis = new NumberAxis();
+		// Set the Label of both the axes
+		xAxis.setLabel("Month");
+		yAxis.setLabel("Books Read");
 		
-		// return the populated library
-		return lib;
+		// Create the barChart, one bar per year for each month
+		BarChart bc = new BarChart(xAxis, yAxis);
+		bc.setPrefHeight(400);
+		bc.setLegendVisible(true);  // Tells the two years apart
+		showMonthGraph(bc, year);
 		
-	}  // load()
+		// Return the BarChart
+		return bc;
+	}
 	
 	/**
-	 * Saves the reading data that the user inputs from the 
-	 * loadReading view.
-	 * @param date A string representing the Date that the
-	 * user is entering reading data for.
-	 * @param numPages The number of pages that the user read.
-	 * @return true if saving was a success. false otherwise.
+	 * Shows a year and the year before it in the Month graph. The counts
+	 * come from the month histogram, so the books aren't gone through again.
+	 * @param bc The Month graph
+	 * @param year The year to show
 	 */
-	public boolean saveReadData(TreeMap<LocalDate, Double> readingData) {
-		
-		FileWriter fw;
-		BufferedWriter bw;
-		StringBuilder sb = new StringBuilder();
-		boolean success = true;
-		
-		try {
-			
-			fw = new FileWriter(this.READ_FILE);
-			bw = new BufferedWriter(fw);
-			
-			for(Map.Entry<LocalDate, Double> et : readingData.entrySet()) {
-				LocalDate key = et.getKey();
-				
-				sb.append(key.getDayOfWeek());
-				sb.append("@!@");
-				sb.append(key.getMonth());
-				sb.append("@!@");
-				sb.append(key.getDayOfMonth());
-				sb.append("@!@");
-				sb.append(key.getYear());
-				sb.append("@!@");
-				sb.append(et.getValue());
-				sb.append("\n");
-				
-				bw.write(sb.toString());
-				sb.setLength(0);
-			}
-			
-			bw.close();
-			
-		}
-		catch(IOException e) {
-			System.out.println("IO ERROR: There was a problem when writing from the data file");
-			success = false;
-		}
-		catch(NumberFormatException e) {
-			System.out.println("ERROR: The Date or number of pages written is invalid");
-			success = false;
-		}
-		catch(DateTimeException e) {
-			System.out.println("ERROR: Something went wrong while trying to create the date");
-			success = false;
-		}
-		catch(IndexOutOfBoundsException e) {
-			System.out.println("ERROR: Use the date picker to pick a date");
-			success = false;
-		}
-		
-		return success;  // Return the final boolean value
+	private void showMonthGraph(BarChart bc, int year) {
 		
-	}  // saveReadData()
+		bc.getData().setAll(monthSeries(year - 1), monthSeries(year));
+		bc.setTitle("Books Read per Month, " + (year - 1) + " and " + year);
+	}
 	
 	/**
-	 * Loads the reading data from file and stores it into an ArrayList
-	 * @return An ArrayList of type String that holds all of the reading data
+	 * @param year A year
+	 * @return The books read each month of the year as chart data
 	 */
-	public TreeMap<LocalDate, Double> loadReadingData() {
+	private XYChart.Series monthSeries(int year) {
 		
-		// Create the TreeMap to be returned
-		TreeMap<LocalDate, Double> readingMap = new TreeMap<LocalDate, Double>();
+		int[] counts = this.monthHistogram.getYear(year);
 		
-		FileReader fr;       // Used to access the data file
-		BufferedReader br;   // Used to read each line from the file
-		String line;         // Used to store each line from the file as a String
-		
-		try {
-			
-			// Initialize the FileReader and BufferedReader
-			fr = new FileReader(this.READ_FILE);
-			br = new BufferedReader(fr);
-			
-			// Read from file until it is empty
-			while((line = br.readLine()) != null) {
-				// Split the line
-				String[] split = line.split("@!@");
-				// Create the local Date object
-				LocalDate tempDate = LocalDate.of(Integer.parseInt(split[3]), 
-						Month.valueOf(split[1]), 
-						Integer.parseInt(split[2]));
-				
-				// Get the pages read for the current line
-				double pageVal = Double.parseDouble(split[4]);
-				
-				// Check if the date is already in the TreeMap
-				if(readingMap.containsKey(tempDate)) {
-					
-					double newVal = readingMap.get(tempDate) + 
-							Double.parseDouble(split[4]);       // Calculate new value based on stored val and incoming val
-					readingMap.replace(tempDate, newVal);       // Associate date with new val
-				} else {
-					readingMap.put(tempDate, Double.parseDouble(split[4])); // add date with val if it is not in the map
-				}
-				
-			}
-			
-		}
-		catch(IOException e) {
-			System.out.println("ERROR: Something went wrong while trying to read from the data file.");
+		XYChart.Series data = new XYChart.Series();
+		data.setName(String.valueOf(year));
+		for(Month m : Month.values()) {
+			data.getData().add(new XYChart.Data(m.toString(), counts[m.getValue() - 1]));
 		}
-		
-		return readingMap;  // Return the ArrayList
-		
+		return data;
 	}
 	
 } // Main extends Application
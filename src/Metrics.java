@@ -0,0 +1,249 @@
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Lightweight in-process metrics for the application. Keeps event counters
+ * and latency histograms for the load, save, sort, search and screen building
+ * code paths.
+ *
+ * Metrics are off unless the JVM is started with -Dlibrary.metrics=true. When
+ * they are off every call returns straight away, so the instrumented code
+ * pays close to nothing. When they are on the values can be read from the
+ * Diagnostics screen or over JMX as PersonalLibrary:type=Metrics.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public final class Metrics {
+
+	// Whether metrics are being recorded, fixed for the life of the JVM
+	public static final boolean ENABLED = Boolean.getBoolean("library.metrics");
+
+	private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+	private static final Map<String, Histogram> TIMERS = new ConcurrentHashMap<>();
+
+	static {
+		if(ENABLED) {
+			registerMBean();
+		}
+	}
+
+	private Metrics() {}
+
+	/**
+	 * Increments the counter with the given name
+	 * @param name The name of the counter
+	 */
+	public static void count(String name) {
+		if(!ENABLED) return;
+		COUNTERS.computeIfAbsent(name, k -> new LongAdder()).increment();
+	}
+
+	/**
+	 * Starts timing an operation.
+	 * @return The start time to pass to stop(), 0 if metrics are disabled
+	 */
+	public static long start() {
+		if(!ENABLED) return 0;
+		return System.nanoTime();
+	}
+
+	/**
+	 * Stops timing an operation and records how long it took.
+	 * @param name The name of the timer
+	 * @param start The value returned by start()
+	 */
+	public static void stop(String name, long start) {
+		if(!ENABLED) return;
+		record(name, System.nanoTime() - start);
+	}
+
+	/**
+	 * Records a duration that was measured elsewhere.
+	 * @param name The name of the timer
+	 * @param nanos The duration in nanoseconds
+	 */
+	public static void record(String name, long nanos) {
+		if(!ENABLED) return;
+		TIMERS.computeIfAbsent(name, k -> new Histogram()).record(nanos);
+	}
+
+	/**
+	 * @return A sorted snapshot of every counter
+	 */
+	public static SortedMap<String, Long> counters() {
+
+		SortedMap<String, Long> snapshot = new TreeMap<>();
+		for(Map.Entry<String, LongAdder> et : COUNTERS.entrySet()) {
+			snapshot.put(et.getKey(), et.getValue().sum());
+		}
+		return snapshot;
+	}
+
+	/**
+	 * @return A sorted snapshot of every timer, formatted as one line per timer
+	 */
+	public static SortedMap<String, String> timers() {
+
+		SortedMap<String, String> snapshot = new TreeMap<>();
+		for(Map.Entry<String, Histogram> et : TIMERS.entrySet()) {
+			snapshot.put(et.getKey(), et.getValue().toString());
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Clears every counter and timer
+	 */
+	public static void reset() {
+		COUNTERS.clear();
+		TIMERS.clear();
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server so they can be
+	 * viewed with JConsole or any other JMX client.
+	 */
+	private static void registerMBean() {
+
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsBean(),
+					new ObjectName("PersonalLibrary:type=Metrics"));
+		}
+		catch(JMException e) {
+			System.out.println("ERROR: Metrics could not be registered with JMX");
+		}
+	}
+
+	/**
+	 * The JMX view of the metrics
+	 */
+	public interface MetricsMXBean {
+		Map<String, Long> getCounters();
+		Map<String, String> getTimers();
+		void reset();
+	}
+
+	private static class MetricsBean implements MetricsMXBean {
+
+		@Override
+		public Map<String, Long> getCounters() {
+			return counters();
+		}
+
+		@Override
+		public Map<String, String> getTimers() {
+			return timers();
+		}
+
+		@Override
+		public void reset() {
+			Metrics.reset();
+		}
+	}
+
+	/**
+	 * A latency histogram in the style of HdrHistogram. Values are stored in
+	 * buckets of 16 sub-buckets per power of two, so any recorded value is
+	 * accurate to within about 6% while the whole histogram is a fixed
+	 * array of counts that can be updated without locking.
+	 */
+	static final class Histogram {
+
+		private static final int SUB_BITS = 4;                 // 16 sub-buckets per power of two
+		private static final int SUB_COUNT = 1 << SUB_BITS;
+		private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT + SUB_COUNT;
+
+		private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+		private final LongAdder total = new LongAdder();       // Sum of every recorded value
+		private final LongAdder count = new LongAdder();       // Number of recorded values
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);  // Largest recorded value
+
+		/**
+		 * Records a single value
+		 * @param value The value in nanoseconds
+		 */
+		void record(long value) {
+
+			if(value < 0) value = 0;
+			this.counts.incrementAndGet(index(value));
+			this.total.add(value);
+			this.count.increment();
+			this.max.accumulate(value);
+		}
+
+		/**
+		 * @return The number of values recorded
+		 */
+		long count() {
+			return this.count.sum();
+		}
+
+		/**
+		 * Finds the value at a given percentile
+		 * @param percentile The percentile between 0 and 100
+		 * @return The highest value in the bucket that holds the percentile
+		 */
+		long percentile(double percentile) {
+
+			long n = count();
+			if(n == 0) return 0;
+
+			long rank = (long) Math.ceil(percentile / 100.0 * n);  // The position of the value being looked for
+			long seen = 0;
+
+			for(int i = 0; i < BUCKETS; i++) {
+				seen += this.counts.get(i);
+				if(seen >= Math.max(1, rank)) {
+					return Math.min(upperBound(i), this.max.get());
+				}
+			}
+			return this.max.get();
+		}
+
+		/**
+		 * Calculates which bucket a value belongs in
+		 * @param value The value to place
+		 * @return The index of the bucket
+		 */
+		private static int index(long value) {
+
+			if(value < SUB_COUNT) return (int) value;  // Small values get a bucket each
+
+			int exponent = 63 - Long.numberOfLeadingZeros(value);                   // Position of the highest bit
+			int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);    // The next SUB_BITS bits
+			return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+		}
+
+		/**
+		 * @param index The index of a bucket
+		 * @return The largest value that is placed in the bucket
+		 */
+		private static long upperBound(int index) {
+
+			if(index < SUB_COUNT) return index;
+
+			int exponent = index / SUB_COUNT + SUB_BITS - 1;
+			long sub = index % SUB_COUNT;
+			long low = (1L << exponent) | (sub << (exponent - SUB_BITS));
+			return low + (1L << (exponent - SUB_BITS)) - 1;
+		}
+
+		@Override
+		public String toString() {
+
+			long n = count();
+			double avg = n == 0 ? 0 : this.total.sum() / (double) n;
+
+			return String.format("count=%d avg=%.3fms p50=%.3fms p99=%.3fms max=%.3fms", n,
+					avg / 1e6, percentile(50) / 1e6, percentile(99) / 1e6, this.max.get() / 1e6);
+		}
+	}
+
+}
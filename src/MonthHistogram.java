@@ -0,0 +1,163 @@
+import java.time.*;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * The number of books finished in each month of each year. The counts are
+ * held in an int array indexed by year * 12 + month. The array only covers
+ * the years around the finished books rather than every possible year, and
+ * grows when a book is finished outside of them.
+ *
+ * The histogram is built with one pass over a Library and then listens to
+ * it, so every add, edit or remove changes a single count and no chart
+ * ever has to go through the books again. Like the Library, it is not safe
+ * to use from more than one thread.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class MonthHistogram implements LibraryListener {
+
+	private int[] counts = new int[0];  // Books finished in each month, from the month in base on
+	private int base;                   // year * 12 + month - 1 of counts[0]
+
+	/**
+	 * Creates a histogram of the books in a Library and keeps it up to date
+	 * as the Library changes
+	 * @param lib The Library to count
+	 */
+	public MonthHistogram(Library lib) {
+		for(Book b : lib.getAll()) {
+			change(b, 1);
+		}
+		lib.addListener(this);
+	}
+
+	/**
+	 * @param year The year
+	 * @param month The month
+	 * @return The number of books finished in that month
+	 */
+	public int get(int year, Month month) {
+		int i = key(year, month.getValue()) - this.base;
+		return i >= 0 && i < this.counts.length ? this.counts[i] : 0;
+	}
+
+	/**
+	 * @param year The year
+	 * @return The number of books finished in each month of the year, January first
+	 */
+	public int[] getYear(int year) {
+
+		int[] months = new int[12];
+		for(Month m : Month.values()) {
+			months[m.getValue() - 1] = get(year, m);
+		}
+		return months;
+	}
+
+	/**
+	 * @param year The year
+	 * @return The number of books finished in the year
+	 */
+	public int getYearTotal(int year) {
+
+		int total = 0;
+		for(int count : getYear(year)) total += count;
+		return total;
+	}
+
+	/**
+	 * @return Every year that at least one book was finished in, earliest first
+	 */
+	public List<Integer> getYears() {
+
+		List<Integer> years = new ArrayList<Integer>();
+		if(this.counts.length == 0) return years;
+
+		int first = Math.floorDiv(this.base, 12);
+		int last = Math.floorDiv(this.base + this.counts.length - 1, 12);
+		for(int year = first; year <= last; year++) {
+			if(getYearTotal(year) > 0) years.add(year);
+		}
+		return years;
+	}
+
+	@Override
+	public void booksAdded(Library lib, int index, List<Book> books) {
+		for(Book b : books) {
+			change(b, 1);
+		}
+	}
+
+	@Override
+	public void bookRemoved(Library lib, int index, Book book) {
+		change(book, -1);
+	}
+
+	@Override
+	public void bookUpdated(Library lib, int index, Book old, Book book) {
+		change(old, -1);
+		change(book, 1);
+	}
+
+	/**
+	 * Adds to the count of the month a book was finished in
+	 * @param b The book. Books that haven't been finished are ignored
+	 * @param amount 1 for a book that was added, -1 for one that was removed
+	 */
+	private void change(Book b, int amount) {
+
+		String end = b.getEndDate();
+		if(!Library.isDate(end)) return;
+
+		LocalDate date;
+		try {
+			date = LocalDate.parse(end);
+		}
+		catch(DateTimeParseException e) {
+			return;  // Not a date, so it can't be counted in any month
+		}
+
+		int key = key(date.getYear(), date.getMonthValue());
+		grow(key);
+		this.counts[key - this.base] += amount;
+	}
+
+	/**
+	 * Makes sure counts covers a month, keeping some room either side so
+	 * the array doesn't have to be copied for every new month
+	 * @param key The month, from key()
+	 */
+	private void grow(int key) {
+
+		if(this.counts.length == 0) {
+			this.base = key - Math.floorMod(key, 12);  // Start at the January of the year
+			this.counts = new int[12];
+			return;
+		}
+
+		int from = Math.min(this.base, key);
+		int to = Math.max(this.base + this.counts.length, key + 1);
+		if(from == this.base && to == this.base + this.counts.length) return;
+
+		// Grow by at least the current size in the direction needed
+		if(from < this.base) from = Math.min(from, this.base - this.counts.length);
+		if(to > this.base + this.counts.length) to = Math.max(to, this.base + 2 * this.counts.length);
+
+		int[] grown = new int[to - from];
+		System.arraycopy(this.counts, 0, grown, this.base - from, this.counts.length);
+		this.counts = grown;
+		this.base = from;
+	}
+
+	/**
+	 * @param year The year
+	 * @param month The month, from 1 to 12
+	 * @return The position of the month counting from January of year 0
+	 */
+	private static int key(int year, int month) {
+		return year * 12 + month - 1;
+	}
+
+}
@@ -0,0 +1,267 @@
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Runs sorts, statistics and parsing over large libraries on every core.
+ * Work on fewer books than the threshold is done on the calling thread,
+ * since splitting it up costs more than it saves.
+ *
+ * Both are set with system properties:
+ *   library.parallelism        The number of threads to use (default every core)
+ *   library.parallelThreshold  The fewest books worth splitting up (default 10000)
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public final class Parallel {
+
+	public static final int THRESHOLD = Integer.getInteger("library.parallelThreshold", 10000);
+
+	private static volatile ForkJoinPool pool = newPool(Integer.getInteger("library.parallelism",
+			Runtime.getRuntime().availableProcessors()));
+
+	private Parallel() {
+	}
+
+	/**
+	 * @return The number of threads parallel work is split across
+	 */
+	public static int getParallelism() {
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Changes the number of threads parallel work is split across. Work that
+	 * has already started finishes on the old threads.
+	 * @param threads The number of threads to use, at least 1
+	 */
+	public static synchronized void setParallelism(int threads) {
+
+		if(threads == pool.getParallelism()) return;
+
+		ForkJoinPool old = pool;
+		pool = newPool(threads);
+		old.shutdown();
+	}
+
+	/**
+	 * @param size The number of books being worked on
+	 * @return true if the work should be split across threads
+	 */
+	public static boolean isWorthSplitting(int size) {
+		return size >= THRESHOLD && getParallelism() > 1;
+	}
+
+	/**
+	 * Sorts a list, splitting the work across threads if the list is large
+	 * enough. The sort is stable like List.sort. The pieces are sorted and
+	 * merged in this class's pool, so library.parallelism decides how many
+	 * threads sort, whatever the size of the common pool.
+	 * @param list The list to sort
+	 * @param order The order to put the list in
+	 */
+	public static <T> void sort(List<T> list, Comparator<? super T> order) {
+
+		if(!isWorthSplitting(list.size())) {
+			list.sort(order);
+			return;
+		}
+
+		@SuppressWarnings("unchecked")
+		T[] array = (T[]) list.toArray();
+
+		// Leave a few pieces per thread so a slow thread doesn't hold the rest up
+		int pieceSize = Math.max(THRESHOLD / 4, array.length / (getParallelism() * 4));
+		pool.invoke(new MergeSort<T>(array, array.clone(), 0, array.length, pieceSize, order));
+
+		ListIterator<T> it = list.listIterator();
+		for(T t : array) {
+			it.next();
+			it.set(t);
+		}
+	}
+
+	/**
+	 * Adds up a value over every element of a list, splitting the list
+	 * across threads if it is large enough. Each piece of the list is added
+	 * into its own result and the results are then combined.
+	 * @param list The list to go through
+	 * @param identity Creates an empty result
+	 * @param accumulator Adds an element to a result
+	 * @param combiner Combines two results into one, which may be either of them
+	 * @return The result for the whole list
+	 */
+	public static <T, R> R reduce(List<T> list, Supplier<R> identity, BiConsumer<R, ? super T> accumulator,
+			BinaryOperator<R> combiner) {
+
+		if(!isWorthSplitting(list.size())) {
+			return accumulate(list, 0, list.size(), identity, accumulator);
+		}
+
+		// Leave a few pieces per thread so a slow thread doesn't hold the rest up
+		int pieceSize = Math.max(THRESHOLD / 4, list.size() / (getParallelism() * 4));
+		return pool.invoke(new Reduction<T, R>(list, 0, list.size(), pieceSize, identity, accumulator, combiner));
+	}
+
+	/**
+	 * Runs independent pieces of work across threads and waits for all of them
+	 * @param tasks The work to run
+	 * @return The result of each task, in the same order as the tasks
+	 * @throws ExecutionException If any of the tasks threw an exception
+	 */
+	public static <T> List<T> invokeAll(List<? extends Callable<T>> tasks) throws ExecutionException {
+
+		List<T> results = new ArrayList<T>(tasks.size());
+
+		for(Future<T> f : pool.invokeAll(tasks)) {
+			try {
+				results.add(f.get());
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ExecutionException(e);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Adds up a value over part of a list on the calling thread
+	 * @param list The list to go through
+	 * @param from The first index, inclusive
+	 * @param to The last index, exclusive
+	 * @param identity Creates an empty result
+	 * @param accumulator Adds an element to a result
+	 * @return The result for the part of the list
+	 */
+	private static <T, R> R accumulate(List<T> list, int from, int to, Supplier<R> identity,
+			BiConsumer<R, ? super T> accumulator) {
+
+		R result = identity.get();
+		for(int i = from; i < to; i++) {
+			accumulator.accept(result, list.get(i));
+		}
+		return result;
+	}
+
+	private static ForkJoinPool newPool(int threads) {
+		return new ForkJoinPool(Math.max(1, threads));
+	}
+
+	/**
+	 * Splits a range of a list in half until the pieces are small enough,
+	 * then combines the results of the two halves
+	 */
+	private static class Reduction<T, R> extends RecursiveTask<R> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<T> list;
+		private final int from;
+		private final int to;
+		private final int pieceSize;
+		private final Supplier<R> identity;
+		private final BiConsumer<R, ? super T> accumulator;
+		private final BinaryOperator<R> combiner;
+
+		Reduction(List<T> list, int from, int to, int pieceSize, Supplier<R> identity,
+				BiConsumer<R, ? super T> accumulator, BinaryOperator<R> combiner) {
+			this.list = list;
+			this.from = from;
+			this.to = to;
+			this.pieceSize = pieceSize;
+			this.identity = identity;
+			this.accumulator = accumulator;
+			this.combiner = combiner;
+		}
+
+		@Override
+		protected R compute() {
+
+			if(this.to - this.from <= this.pieceSize) {
+				return accumulate(this.list, this.from, this.to, this.identity, this.accumulator);
+			}
+
+			int middle = (this.from + this.to) >>> 1;
+			Reduction<T, R> left = new Reduction<T, R>(this.list, this.from, middle, this.pieceSize,
+					this.identity, this.accumulator, this.combiner);
+			Reduction<T, R> right = new Reduction<T, R>(this.list, middle, this.to, this.pieceSize,
+					this.identity, this.accumulator, this.combiner);
+
+			left.fork();
+			R r = right.compute();
+			return this.combiner.apply(left.join(), r);
+		}
+	}
+
+	/**
+	 * Splits a range of an array in half until the pieces are small enough
+	 * to sort on one thread, then merges the two sorted halves. Equal
+	 * elements are taken from the left half first, so the sort is stable.
+	 */
+	private static class MergeSort<T> extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final T[] array;
+		private final T[] buffer;  // Holds the left half while it is merged, same length as array
+		private final int from;
+		private final int to;
+		private final int pieceSize;
+		private final Comparator<? super T> order;
+
+		MergeSort(T[] array, T[] buffer, int from, int to, int pieceSize, Comparator<? super T> order) {
+			this.array = array;
+			this.buffer = buffer;
+			this.from = from;
+			this.to = to;
+			this.pieceSize = pieceSize;
+			this.order = order;
+		}
+
+		@Override
+		protected void compute() {
+
+			if(this.to - this.from <= this.pieceSize) {
+				Arrays.sort(this.array, this.from, this.to, this.order);
+				return;
+			}
+
+			int middle = (this.from + this.to) >>> 1;
+			invokeAll(new MergeSort<T>(this.array, this.buffer, this.from, middle, this.pieceSize, this.order),
+					new MergeSort<T>(this.array, this.buffer, middle, this.to, this.pieceSize, this.order));
+
+			if(this.order.compare(this.array[middle - 1], this.array[middle]) <= 0) return;  // Already in order
+			merge(middle);
+		}
+
+		/**
+		 * Merges the sorted ranges from-middle and middle-to back into the array
+		 * @param middle The start of the right half
+		 */
+		private void merge(int middle) {
+
+			System.arraycopy(this.array, this.from, this.buffer, this.from, middle - this.from);
+
+			int i = this.from;  // Next in the left half, in buffer
+			int j = middle;     // Next in the right half, in array
+			int k = this.from;  // Next place in array
+
+			while(i < middle && j < this.to) {
+				if(this.order.compare(this.buffer[i], this.array[j]) <= 0) this.array[k++] = this.buffer[i++];
+				else this.array[k++] = this.array[j++];
+			}
+			// Whatever is left of the right half is already in place
+			System.arraycopy(this.buffer, i, this.array, k, middle - i);
+		}
+	}
+
+}
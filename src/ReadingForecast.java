@@ -0,0 +1,247 @@
+import java.time.*;
+import java.util.*;
+
+/**
+ * Estimates when each book that is being read will be finished. A book is
+ * being read when it has a start date but its end date is NA.
+ *
+ * The reading pace is an exponentially weighted moving average of the pages
+ * read each day, so recent days count for more than old ones and days with
+ * no reading pull the pace down. The average is kept up to date as reading
+ * is logged, each entry changing it in constant time, whatever the date of
+ * the entry.
+ *
+ * The reading log doesn't say which book the pages were read from, so the
+ * pace is shared evenly between the books being read, and the pages read of
+ * each book are estimated the same way from the pages logged since it was
+ * started. The forecasts for every book are worked out together in a single
+ * pass over arrays of start days and page counts, and kept until the reading
+ * data, the books or the date change.
+ *
+ * The number of days the average mostly covers is set with
+ * -Dlibrary.forecastSpan (default 14). Like the Library, a forecast is not
+ * safe to use from more than one thread.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class ReadingForecast implements LibraryListener {
+
+	public static final int SPAN = Math.max(1, Integer.getInteger("library.forecastSpan", 14));
+
+	private static final double ALPHA = 2.0 / (SPAN + 1);  // Weight of the newest day
+	private static final double DECAY = 1 - ALPHA;         // Weight kept by the average each day
+
+	// The moving average of pages read per day, as of lastDay
+	private double average;
+	private long firstDay = Long.MAX_VALUE;  // The earliest day with reading, as an epoch day
+	private long lastDay = Long.MIN_VALUE;   // The latest day with reading, as an epoch day
+
+	private final TreeMap<Long, Double> pagesByDay = new TreeMap<Long, Double>();  // Pages read on each epoch day
+
+	private final Set<Book> reading = Collections.newSetFromMap(new IdentityHashMap<Book, Boolean>());  // Books being read
+
+	// The columns of the last forecast, in order of start day, latest first
+	private Book[] books = new Book[0];
+	private long[] finish = new long[0];  // The estimated finish day, or -1 if there is no estimate
+	private int[] remaining = new int[0]; // The estimated pages left
+	private final IdentityHashMap<Book, Integer> positions = new IdentityHashMap<Book, Integer>();
+	private boolean stale = true;
+	private long forecastDay;  // The day the last forecast was made on
+
+	/**
+	 * Creates the forecasts for a Library and keeps them up to date as the
+	 * Library changes
+	 * @param lib Every book
+	 * @param readingData The pages read on each date
+	 */
+	public ReadingForecast(Library lib, Map<LocalDate, Double> readingData) {
+
+		for(Map.Entry<LocalDate, Double> et : readingData.entrySet()) {
+			log(et.getKey(), et.getValue());
+		}
+		for(Book b : lib.getAll()) {
+			track(b);
+		}
+		lib.addListener(this);
+	}
+
+	/**
+	 * Adds pages read to the pace. Should be called whenever reading is logged.
+	 * @param date The date the pages were read
+	 * @param pages The number of pages read
+	 */
+	public void log(LocalDate date, double pages) {
+
+		long day = date.toEpochDay();
+		this.pagesByDay.merge(day, pages, Double::sum);
+
+		if(day > this.lastDay) {
+			// Let the average fade over the days since the last reading, then add this day
+			double faded = this.lastDay == Long.MIN_VALUE ? 0 : this.average * Math.pow(DECAY, day - this.lastDay);
+			this.average = faded + ALPHA * pages;
+			this.lastDay = day;
+		}
+		else {
+			// An earlier day only changes the average by its own faded weight
+			this.average += ALPHA * pages * Math.pow(DECAY, this.lastDay - day);
+		}
+		this.firstDay = Math.min(this.firstDay, day);
+		this.stale = true;
+	}
+
+	/**
+	 * @return The average number of pages read per day as of today, or 0 if
+	 * nothing has been read
+	 */
+	public double getPace() {
+		return getPace(LocalDate.now().toEpochDay());
+	}
+
+	/**
+	 * @return The books being read, latest started first
+	 */
+	public List<Book> getReading() {
+		forecast();
+		return Collections.unmodifiableList(Arrays.asList(this.books));
+	}
+
+	/**
+	 * @param b A book
+	 * @return The date b should be finished on at the current pace, or null
+	 * if it isn't being read or nothing has been read lately
+	 */
+	public LocalDate getFinish(Book b) {
+
+		forecast();
+		Integer i = this.positions.get(b);
+		return i == null || this.finish[i] < 0 ? null : LocalDate.ofEpochDay(this.finish[i]);
+	}
+
+	/**
+	 * @param b A book
+	 * @return The estimated number of pages of b left to read, or -1 if it isn't being read
+	 */
+	public int getRemaining(Book b) {
+
+		forecast();
+		Integer i = this.positions.get(b);
+		return i == null ? -1 : this.remaining[i];
+	}
+
+	@Override
+	public void booksAdded(Library lib, int index, List<Book> books) {
+		for(Book b : books) {
+			track(b);
+		}
+	}
+
+	@Override
+	public void bookRemoved(Library lib, int index, Book book) {
+		this.stale |= this.reading.remove(book);
+	}
+
+	@Override
+	public void bookUpdated(Library lib, int index, Book old, Book book) {
+		this.stale |= this.reading.remove(old);
+		track(book);
+	}
+
+	/**
+	 * Adds a book to the books being read if it has been started and not finished
+	 * @param b The book
+	 */
+	private void track(Book b) {
+		if(startDay(b) != Long.MIN_VALUE && !Library.isDate(b.getEndDate())) {
+			this.stale |= this.reading.add(b);
+		}
+	}
+
+	/**
+	 * @param today The day to find the pace on, as an epoch day
+	 * @return The average number of pages read per day as of today
+	 */
+	private double getPace(long today) {
+
+		if(this.lastDay == Long.MIN_VALUE) return 0;
+
+		long day = Math.max(today, this.lastDay);  // Reading logged ahead of time counts as today
+		double average = this.average * Math.pow(DECAY, day - this.lastDay);
+
+		// The average starts at 0 before the first day, so scale it up while the history is short
+		double weight = 1 - Math.pow(DECAY, day - this.firstDay + 1);
+		return average / weight;
+	}
+
+	/**
+	 * Works out the forecast for every book being read, unless the last
+	 * forecast is still up to date
+	 */
+	private void forecast() {
+
+		long today = LocalDate.now().toEpochDay();
+		if(!this.stale && this.forecastDay == today) return;
+
+		// Lay the books out as columns, latest started first
+		int n = this.reading.size();
+		Book[] books = this.reading.toArray(new Book[n]);
+		Arrays.sort(books, Comparator.comparingLong(ReadingForecast::startDay).reversed());
+
+		long[] start = new long[n];
+		int[] pages = new int[n];
+		for(int i = 0; i < n; i++) {
+			start[i] = startDay(books[i]);
+			pages[i] = books[i].getNumPages();
+		}
+
+		// The pages logged since each book was started, walking back through the days once
+		double[] logged = new double[n];
+		Iterator<Map.Entry<Long, Double>> days = this.pagesByDay.descendingMap().entrySet().iterator();
+		Map.Entry<Long, Double> day = days.hasNext() ? days.next() : null;
+		double total = 0;
+		for(int i = 0; i < n; i++) {
+			while(day != null && day.getKey() >= start[i]) {
+				total += day.getValue();
+				day = days.hasNext() ? days.next() : null;
+			}
+			logged[i] = total;
+		}
+
+		// Every book is read at an equal share of the pace
+		double share = n == 0 ? 0 : getPace(today) / n;
+		long[] finish = new long[n];
+		int[] remaining = new int[n];
+		for(int i = 0; i < n; i++) {
+			remaining[i] = pages[i] <= 0 ? 0 : (int) Math.max(0, Math.ceil(pages[i] - logged[i] / n));
+			finish[i] = pages[i] <= 0 || share <= 0 ? -1 : today + (long) Math.ceil(remaining[i] / share);
+		}
+
+		this.books = books;
+		this.finish = finish;
+		this.remaining = remaining;
+		this.positions.clear();
+		for(int i = 0; i < n; i++) {
+			this.positions.put(books[i], i);
+		}
+		this.stale = false;
+		this.forecastDay = today;
+	}
+
+	/**
+	 * @param b A book
+	 * @return The day b was started, as an epoch day, or Long.MIN_VALUE if it hasn't been
+	 */
+	private static long startDay(Book b) {
+
+		String start = b.getStartDate();
+		if(!Library.isDate(start)) return Long.MIN_VALUE;
+
+		try {
+			return LocalDate.parse(start).toEpochDay();
+		}
+		catch(DateTimeException e) {
+			return Long.MIN_VALUE;  // Not a date, so the book can't be forecast
+		}
+	}
+
+}
@@ -0,0 +1,393 @@
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes reading log entries to the reading data file on a background
+ * thread. Entries are placed in a bounded queue and the writer thread adds
+ * up every entry for the same date before appending them to the file, so
+ * a burst of updates turns into a single small write.
+ *
+ * How soon entries reach the disk is set with -Dlibrary.readingDurability:
+ *   immediate  Each batch is written as soon as it is taken off the queue (default)
+ *   on-exit    Entries are kept in memory until close() or the JVM shuts down
+ *   a number   Entries are written at most every that many milliseconds
+ *
+ * A shutdown hook writes anything still queued when the JVM exits.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class ReadingLogWriter {
+
+	/**
+	 * When queued entries are written to disk
+	 */
+	public enum Durability { IMMEDIATE, INTERVAL, ON_EXIT }
+
+	private static final int QUEUE_SIZE = 1024;     // Entries waiting for the writer thread
+	private static final long RETRY_MILLIS = 1000;  // How long to wait before trying a failed write again
+
+	private final LibraryStore store;
+	private final Durability durability;
+	private final long intervalMillis;
+	private final Thread writer;
+	private final Thread hook;
+
+	// Guarded by queue. Entries move from queue to pending to writing to the file
+	private final ArrayDeque<Entry> queue = new ArrayDeque<Entry>();
+	private TreeMap<LocalDate, Double> pending = new TreeMap<LocalDate, Double>();  // Taken off the queue, not written yet
+	private TreeMap<LocalDate, Double> writing = new TreeMap<LocalDate, Double>();  // Being appended to the file
+	private boolean closed;
+
+	// Held while the file is being appended to, so it is never read half written
+	private final Object fileLock = new Object();
+
+	// Changes every time an entry is logged, so views know when their reading data is out of date
+	private final AtomicLong version = new AtomicLong();
+
+	/**
+	 * Creates a writer using the durability set by -Dlibrary.readingDurability
+	 * @param store The store to write the reading data to
+	 */
+	public ReadingLogWriter(LibraryStore store) {
+		this(store, System.getProperty("library.readingDurability", "immediate"));
+	}
+
+	/**
+	 * Creates a writer and starts its thread
+	 * @param store The store to write the reading data to
+	 * @param durability immediate, on-exit, or the number of milliseconds between writes
+	 */
+	public ReadingLogWriter(LibraryStore store, String durability) {
+
+		this.store = store;
+
+		if(durability.equalsIgnoreCase("on-exit")) {
+			this.durability = Durability.ON_EXIT;
+			this.intervalMillis = 0;
+		}
+		else if(durability.equalsIgnoreCase("immediate")) {
+			this.durability = Durability.IMMEDIATE;
+			this.intervalMillis = 0;
+		}
+		else {
+			long millis = 0;
+			try {
+				millis = Long.parseLong(durability);
+			}
+			catch(NumberFormatException e) {
+				System.out.println("ERROR: Unknown reading durability " + durability + ", writing immediately");
+			}
+			this.durability = millis > 0 ? Durability.INTERVAL : Durability.IMMEDIATE;
+			this.intervalMillis = millis;
+		}
+
+		this.writer = new Thread(this::run, "reading-log-writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+
+		// Write anything still waiting if the application is closed without calling close()
+		this.hook = new Thread(this::drain, "reading-log-shutdown");
+		Runtime.getRuntime().addShutdownHook(this.hook);
+	}
+
+	/**
+	 * @return When this writer writes its entries to disk
+	 */
+	public Durability getDurability() {
+		return this.durability;
+	}
+
+	/**
+	 * Queues pages read on a date to be added to the reading data file.
+	 * Never waits for the disk, only for room in the queue if it is full.
+	 * @param date The date the pages were read
+	 * @param pages The number of pages read
+	 * @return true if the entry was queued. false if the writer is closed.
+	 */
+	public boolean log(LocalDate date, double pages) {
+
+		if(enqueue(new Entry(date, pages, null)) == null) return false;
+		this.version.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * @return A number that changes every time an entry is logged
+	 */
+	public long getVersion() {
+		return this.version.get();
+	}
+
+	/**
+	 * Loads the reading data from file, including entries that have been
+	 * logged but not written yet.
+	 * @return All of the users reading data
+	 */
+	public TreeMap<LocalDate, Double> load() {
+
+		synchronized(this.fileLock) {
+			return addUnwritten(this.store.loadReadingData());
+		}
+	}
+
+	/**
+	 * Loads the books and the reading data at the same time, including
+	 * reading entries that have been logged but not written yet.
+	 * @return The books, the reading data and every problem found while reading them
+	 */
+	public LoadReport loadAll() {
+
+		synchronized(this.fileLock) {
+			LoadReport report = this.store.loadAll();
+			addUnwritten(report.getReadingData());
+			return report;
+		}
+	}
+
+	/**
+	 * Adds the entries that haven't been written yet to reading data loaded
+	 * from file. Must be called holding fileLock, so no entries are written
+	 * between loading the file and adding them.
+	 * @param readingData The reading data from file, which is changed
+	 * @return readingData
+	 */
+	private TreeMap<LocalDate, Double> addUnwritten(TreeMap<LocalDate, Double> readingData) {
+
+		synchronized(this.queue) {
+			merge(readingData, this.writing);
+			merge(readingData, this.pending);
+			for(Entry e : this.queue) {
+				if(e.date != null) readingData.merge(e.date, e.pages, Double::sum);
+			}
+		}
+		return readingData;
+	}
+
+	/**
+	 * Writes every queued entry and waits for the write to finish
+	 * @return true if everything was written. false otherwise.
+	 */
+	public boolean flush() {
+
+		Entry request = enqueue(new Entry(null, 0, new CountDownLatch(1)));
+		if(request == null) return false;
+
+		try {
+			request.written.await();
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		return request.success;
+	}
+
+	/**
+	 * Writes every queued entry and stops the writer thread
+	 */
+	public void close() {
+
+		drain();
+
+		try {
+			Runtime.getRuntime().removeShutdownHook(this.hook);
+		}
+		catch(IllegalStateException e) {
+			// Already shutting down, the hook is running or has run
+		}
+	}
+
+	/**
+	 * Adds an entry to the queue, waiting if the queue is full
+	 * @param e The entry to add
+	 * @return The entry, null if the writer is closed
+	 */
+	private Entry enqueue(Entry e) {
+
+		synchronized(this.queue) {
+			try {
+				while(this.queue.size() >= QUEUE_SIZE && !this.closed) {
+					this.queue.wait();
+				}
+			}
+			catch(InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				System.out.println("ERROR: Interrupted while saving the reading data");
+				return null;
+			}
+
+			if(this.closed) {
+				System.out.println("ERROR: The reading log is closed, the entry was not saved");
+				return null;
+			}
+
+			this.queue.add(e);
+			this.queue.notifyAll();
+		}
+
+		if(e.date != null) Metrics.count("readingLog.queued");
+		return e;
+	}
+
+	/**
+	 * Stops the writer thread once it has written everything in the queue
+	 */
+	private void drain() {
+
+		synchronized(this.queue) {
+			if(this.closed) return;
+			this.closed = true;
+			this.queue.add(new Entry(null, 0, null));  // An entry with no date or latch stops the thread
+			this.queue.notifyAll();
+		}
+
+		try {
+			this.writer.join();
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * The writer thread. Takes entries off the queue, adds them to the
+	 * pending batch and writes the batch when the durability setting says to.
+	 */
+	private void run() {
+
+		boolean running = true;
+		long deadline = 0;  // When the pending entries have to be written
+
+		while(running) {
+
+			TreeMap<LocalDate, Double> batch = null;
+			List<Entry> flushes = new ArrayList<Entry>();
+
+			synchronized(this.queue) {
+
+				boolean due = false;  // Whether the deadline for the pending entries has passed
+
+				// Wait for new entries, or for the deadline if there is something to write
+				try {
+					while(this.queue.isEmpty() && !due) {
+						if(this.pending.isEmpty() || this.durability == Durability.ON_EXIT) {
+							this.queue.wait();
+						}
+						else {
+							long wait = deadline - System.currentTimeMillis();
+							if(wait > 0) this.queue.wait(wait);
+							else due = true;
+						}
+					}
+				}
+				catch(InterruptedException e) {
+					running = false;
+				}
+
+				boolean write = due || this.durability == Durability.IMMEDIATE;
+				boolean wasEmpty = this.pending.isEmpty();
+
+				// Take everything that has piled up so it goes out in one write
+				while(!this.queue.isEmpty()) {
+					Entry e = this.queue.poll();
+					if(e.date != null) {
+						this.pending.merge(e.date, e.pages, Double::sum);
+					}
+					else if(e.written != null) {
+						flushes.add(e);
+						write = true;
+					}
+					else {
+						running = false;
+					}
+				}
+				this.queue.notifyAll();  // There is room in the queue again
+
+				if(!running) write = true;
+				if(wasEmpty && !this.pending.isEmpty()) {
+					deadline = System.currentTimeMillis() + this.intervalMillis;
+				}
+
+				if(write && !this.pending.isEmpty()) {
+					batch = this.pending;
+					this.writing = batch;
+					this.pending = new TreeMap<LocalDate, Double>();
+				}
+			}
+
+			boolean success = batch == null || write(batch);
+
+			if(!success) {
+				deadline = System.currentTimeMillis() + Math.max(this.intervalMillis, RETRY_MILLIS);
+			}
+
+			for(Entry e : flushes) {
+				e.success = success;
+				e.written.countDown();
+			}
+		}
+	}
+
+	/**
+	 * Appends a batch to the reading data file. The batch is put back
+	 * with the pending entries if it could not be written, so the next
+	 * write tries again.
+	 * @param batch The pages read on each date
+	 * @return true if the batch was written. false otherwise.
+	 */
+	private boolean write(TreeMap<LocalDate, Double> batch) {
+
+		synchronized(this.fileLock) {
+
+			boolean success = this.store.appendReadData(batch);
+
+			synchronized(this.queue) {
+				this.writing = new TreeMap<LocalDate, Double>();
+				if(success) {
+					Metrics.count("readingLog.writes");
+				}
+				else {
+					this.pending = merge(batch, this.pending);
+				}
+			}
+
+			return success;
+		}
+	}
+
+	/**
+	 * Adds the pages from one set of reading data to another
+	 * @param into The reading data being added to, which is changed
+	 * @param from The reading data being added
+	 * @return into
+	 */
+	private static TreeMap<LocalDate, Double> merge(TreeMap<LocalDate, Double> into, Map<LocalDate, Double> from) {
+
+		for(Map.Entry<LocalDate, Double> et : from.entrySet()) {
+			into.merge(et.getKey(), et.getValue(), Double::sum);
+		}
+		return into;
+	}
+
+	/**
+	 * A queued reading log entry. An entry without a date is a request to
+	 * flush when written is set, and a request to stop otherwise.
+	 */
+	private static class Entry {
+
+		final LocalDate date;
+		final double pages;
+		final CountDownLatch written;  // Counted down once a flush has finished
+		boolean success;               // Whether the flush wrote everything
+
+		Entry(LocalDate date, double pages, CountDownLatch written) {
+			this.date = date;
+			this.pages = pages;
+			this.written = written;
+		}
+	}
+
+}
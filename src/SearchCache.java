@@ -0,0 +1,67 @@
+import java.util.*;
+
+/**
+ * Remembers the results of recent title, author and series searches. The
+ * results are keyed by the search mode, the query in lower case, and the
+ * version of the Library that was searched. Adding or removing a book gives
+ * the Library a new version, so results from before the change are never
+ * returned and simply age out of the cache.
+ *
+ * Hits and misses are counted in Metrics as cache.search.hit and
+ * cache.search.miss.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class SearchCache {
+
+	private final LruCache<String, List<Book>> results;
+
+	/**
+	 * Creates a cache
+	 * @param maxEntries The most searches kept
+	 * @param maxBytes Roughly the most memory the cached results may use
+	 */
+	public SearchCache(int maxEntries, long maxBytes) {
+
+		// The books themselves belong to the Library, so only the key and the list are counted
+		this.results = new LruCache<String, List<Book>>("cache.search", maxEntries, maxBytes,
+				(key, books) -> 2L * key.length() + 8L * books.size() + 96);
+	}
+
+	/**
+	 * Searches a Library, or returns the results of the same search if it
+	 * was done recently on the same version of the Library
+	 * @param lib The Library to search
+	 * @param mode title, author or series
+	 * @param query The text being searched for, in any case
+	 * @return The books found, which must not be changed. A title search
+	 * returns a single Book, which is empty if no title matched.
+	 * null if mode isn't valid.
+	 */
+	public List<Book> search(Library lib, String mode, String query) {
+
+		String key = lib.getVersion() + "@!@" + mode + "@!@" + query.toLowerCase(Locale.ROOT);
+
+		return this.results.get(key, k -> {
+			switch(mode) {
+			case "title":
+				return Collections.singletonList(lib.searchTitle(query));
+			case "author":
+				return Collections.unmodifiableList(lib.searchAuthor(query));
+			case "series":
+				return Collections.unmodifiableList(lib.searchSeries(query));
+			default:
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Removes every cached search
+	 */
+	public void clear() {
+		this.results.clear();
+	}
+
+}
@@ -0,0 +1,725 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only file of reading sessions, each one being the pages read
+ * of one book on one day and, optionally, how many minutes it took. Unlike
+ * the reading data file, every session says which book was read.
+ *
+ * Sessions themselves are not kept in memory, but their totals are. Opening
+ * the file reads through it once to build two indexes of running totals:
+ *   by day   A Fenwick tree of the pages and minutes read each day, so the
+ *            total for any range of days takes O(log days)
+ *   by book  For each book, the days it was read on with the running total
+ *            of pages and minutes up to each day, so the total for a book
+ *            over any range of days is two binary searches. Each book also
+ *            keeps the offsets of the blocks that hold its sessions, so its
+ *            sessions can be read back without going through the whole file.
+ * The by book index takes three longs for every day a book was read on,
+ * which is more than the sessions of that day take in the file, so the
+ * memory the log uses grows with the reading history.
+ *
+ * File layout:
+ *   Header   magic "LIBS", version, and the epoch day the file was created, 4 bytes each
+ *   Block    payload length (varint), CRC32C of the payload (4 bytes), payload
+ * The payload is one or more records, each starting with its type:
+ *   BOOK     book id, key length, key in UTF-8. Gives a book an id, or a new
+ *            key to an id after the book is edited.
+ *   SESSION  book id, day, pages, minutes + 1 (0 if not recorded). The day
+ *            is the difference from the day of the session before it in the
+ *            block, or from the day in the header for the first, in zigzag
+ *            form, so most days take one or two bytes.
+ * Every number is an unsigned varint. A block that is cut short or fails
+ * its checksum ends the file, and is removed when the file is opened.
+ *
+ * Sessions are written to the file as they are logged, but left to the
+ * operating system to sync. Every public method holds the log's lock, so
+ * sessions can be written on a background thread while the totals are
+ * read on another.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class SessionLog implements LibraryListener, Closeable {
+
+	private static final int MAGIC = 0x4C494253;  // "LIBS"
+	private static final int VERSION = 1;
+	private static final int HEADER = 12;
+	private static final byte BOOK = 1;
+	private static final byte SESSION = 2;
+	private static final int MAX_BLOCK = 1 << 20;  // Largest payload accepted when reading
+
+	private final String file;
+	private final FileChannel channel;
+	private long baseDay;  // The day every block starts counting from
+
+	private final HashMap<String, Integer> ids = new HashMap<String, Integer>();  // Book key to book id
+	private final ArrayList<Track> tracks = new ArrayList<Track>();               // Indexed by book id
+	private final DayTotals days = new DayTotals();
+	private long sessions;
+
+	/**
+	 * Opens a session log, creating the file if it doesn't exist
+	 * @param file The path of the session file
+	 * @throws IOException If the file could not be read or created
+	 */
+	public SessionLog(String file) throws IOException {
+
+		this.file = file;
+		this.channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try {
+			if(this.channel.size() == 0) {
+				this.baseDay = LocalDate.now().toEpochDay();
+				ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(VERSION).putInt((int) this.baseDay);
+				header.flip();
+				writeFully(header, 0);
+			}
+			else {
+				scan();
+			}
+		}
+		catch(IOException e) {
+			this.channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Adds a reading session to the end of the file
+	 * @param b The book that was read
+	 * @param date The date it was read on
+	 * @param pages The number of pages read
+	 * @param minutes The number of minutes spent reading, or -1 if not recorded
+	 * @return true if the session was written. false otherwise.
+	 */
+	public synchronized boolean log(Book b, LocalDate date, int pages, int minutes) {
+
+		if(pages < 0) {
+			System.out.println("ERROR: The pages read can't be negative");
+			return false;
+		}
+
+		Block block = new Block(this.baseDay);
+		Integer id = this.ids.get(b.getKey());
+		boolean added = id == null;
+		if(added) {
+			id = this.tracks.size();
+			block.book(id, b.getKey());
+		}
+		block.session(id, date.toEpochDay(), pages, minutes);
+
+		long offset;
+		try {
+			offset = append(block);
+		}
+		catch(IOException e) {
+			System.out.println("ERROR: The reading session could not be saved to " + this.file);
+			return false;
+		}
+
+		if(added) addBook(id, b.getKey());
+		addSession(id, date.toEpochDay(), pages, minutes, offset);
+		return true;
+	}
+
+	/**
+	 * @return The number of sessions in the file
+	 */
+	public synchronized long size() {
+		return this.sessions;
+	}
+
+	/**
+	 * @param from The first date, inclusive
+	 * @param to The last date, inclusive
+	 * @return The pages read of every book between the dates
+	 */
+	public synchronized long getPages(LocalDate from, LocalDate to) {
+		return this.days.sum(from.toEpochDay(), to.toEpochDay(), false);
+	}
+
+	/**
+	 * @param from The first date, inclusive
+	 * @param to The last date, inclusive
+	 * @return The minutes recorded for every book between the dates
+	 */
+	public synchronized long getMinutes(LocalDate from, LocalDate to) {
+		return this.days.sum(from.toEpochDay(), to.toEpochDay(), true);
+	}
+
+	/**
+	 * @param b A book
+	 * @param from The first date, inclusive
+	 * @param to The last date, inclusive
+	 * @return The pages read of b between the dates
+	 */
+	public synchronized long getPages(Book b, LocalDate from, LocalDate to) {
+		Track t = track(b);
+		return t == null ? 0 : t.sum(from.toEpochDay(), to.toEpochDay(), t.pages);
+	}
+
+	/**
+	 * @param b A book
+	 * @param from The first date, inclusive
+	 * @param to The last date, inclusive
+	 * @return The minutes recorded for b between the dates
+	 */
+	public synchronized long getMinutes(Book b, LocalDate from, LocalDate to) {
+		Track t = track(b);
+		return t == null ? 0 : t.sum(from.toEpochDay(), to.toEpochDay(), t.minutes);
+	}
+
+	/**
+	 * @param b A book
+	 * @return The pages read of b on every day
+	 */
+	public synchronized long getPages(Book b) {
+		Track t = track(b);
+		return t == null || t.size == 0 ? 0 : t.pages[t.size - 1];
+	}
+
+	/**
+	 * @param b A book
+	 * @return The pages read of b on each day it was read, in date order
+	 */
+	public synchronized SortedMap<LocalDate, Long> getPagesByDay(Book b) {
+
+		TreeMap<LocalDate, Long> byDay = new TreeMap<LocalDate, Long>();
+		Track t = track(b);
+		if(t == null) return byDay;
+
+		for(int i = 0; i < t.size; i++) {
+			byDay.put(LocalDate.ofEpochDay(t.days[i]), t.pages[i] - (i == 0 ? 0 : t.pages[i - 1]));
+		}
+		return byDay;
+	}
+
+	/**
+	 * Reads every session of a book back from the file. Only the blocks
+	 * holding its sessions are read.
+	 * @param b A book
+	 * @return The sessions of b in the order they were logged
+	 * @throws IOException If the file could not be read
+	 */
+	public synchronized List<Session> getSessions(Book b) throws IOException {
+
+		List<Session> found = new ArrayList<Session>();
+		Track t = track(b);
+		if(t == null) return found;
+
+		for(int i = 0; i < t.blockCount; i++) {
+			Block block = read(t.blocks[i]);
+			if(block == null) throw new IOException("Session block at " + t.blocks[i] + " is damaged");
+			block.decode(new Reader() {
+				public void book(int id, String key) {
+				}
+				public void session(int id, long day, int pages, int minutes) {
+					if(id == t.id) found.add(new Session(LocalDate.ofEpochDay(day), pages, minutes));
+				}
+			});
+		}
+		return found;
+	}
+
+	/**
+	 * Keeps the sessions of an edited book with it when its title, author or series change
+	 */
+	@Override
+	public synchronized void bookUpdated(Library lib, int index, Book old, Book book) {
+
+		Integer id = this.ids.get(old.getKey());
+		if(id == null || old.getKey().equals(book.getKey()) || this.ids.containsKey(book.getKey())) return;
+
+		Block block = new Block(this.baseDay);
+		block.book(id, book.getKey());
+		try {
+			append(block);
+		}
+		catch(IOException e) {
+			System.out.println("ERROR: The renamed book could not be saved to " + this.file);
+			return;
+		}
+		this.ids.remove(old.getKey());
+		this.ids.put(book.getKey(), id);
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		this.channel.close();
+	}
+
+	/**
+	 * Reads through the file once, building the indexes. A damaged block
+	 * and everything after it is removed.
+	 * @throws IOException If the file could not be read or isn't a session file
+	 */
+	private void scan() throws IOException {
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER);
+		readFully(header, 0);
+		if(header.position() < HEADER || header.getInt(0) != MAGIC) {
+			throw new IOException(this.file + " is not a session file");
+		}
+		if(header.getInt(4) != VERSION) {
+			throw new IOException(this.file + " was written by a newer version");
+		}
+		this.baseDay = header.getInt(8);
+
+		long offset = HEADER;
+		long size = this.channel.size();
+
+		while(offset < size) {
+
+			Block block = read(offset);
+			if(block == null) {
+				System.out.println("ERROR: Damaged reading session found in " + this.file + ", later sessions were skipped");
+				this.channel.truncate(offset);
+				break;
+			}
+
+			long blockOffset = offset;
+			block.decode(new Reader() {
+				public void book(int id, String key) {
+					addBook(id, key);
+				}
+				public void session(int id, long day, int pages, int minutes) {
+					addSession(id, day, pages, minutes, blockOffset);
+				}
+			});
+			offset += block.length;
+		}
+	}
+
+	/**
+	 * Gives a book key an id. If the id already had a key, the book was edited.
+	 * @param id The book id
+	 * @param key The book key
+	 */
+	private void addBook(int id, String key) {
+
+		while(this.tracks.size() <= id) {
+			this.tracks.add(new Track(this.tracks.size()));
+		}
+		Track t = this.tracks.get(id);
+		if(t.key != null) this.ids.remove(t.key);
+		t.key = key;
+		this.ids.put(key, id);
+	}
+
+	/**
+	 * Adds a session to the indexes
+	 */
+	private void addSession(int id, long day, int pages, int minutes, long blockOffset) {
+
+		while(this.tracks.size() <= id) {
+			this.tracks.add(new Track(this.tracks.size()));
+		}
+		this.tracks.get(id).add(day, pages, Math.max(minutes, 0), blockOffset);
+		this.days.add(day, pages, Math.max(minutes, 0));
+		this.sessions++;
+	}
+
+	/**
+	 * @param b A book
+	 * @return The index of the sessions of b, or null if it has none
+	 */
+	private Track track(Book b) {
+		Integer id = this.ids.get(b.getKey());
+		return id == null ? null : this.tracks.get(id);
+	}
+
+	/**
+	 * Writes a block to the end of the file
+	 * @param block The block
+	 * @return The offset the block was written at
+	 * @throws IOException If the block could not be written
+	 */
+	private long append(Block block) throws IOException {
+
+		long offset = this.channel.size();
+		try {
+			writeFully(block.encode(), offset);
+		}
+		catch(IOException e) {
+			// Don't leave half a block for the next one to be written after
+			try {
+				this.channel.truncate(offset);
+			}
+			catch(IOException ignored) {
+				// The block fails its checksum and is removed the next time the file is opened
+			}
+			throw e;
+		}
+		return offset;
+	}
+
+	/**
+	 * Reads the block at an offset
+	 * @param offset The offset of the block
+	 * @return The block, or null if it is cut short or fails its checksum
+	 * @throws IOException If the file could not be read
+	 */
+	private Block read(long offset) throws IOException {
+
+		// The length and the checksum take at most 9 bytes
+		ByteBuffer head = ByteBuffer.allocate(9);
+		readFully(head, offset);
+		head.flip();
+
+		int length;
+		try {
+			length = (int) readVarint(head);
+		}
+		catch(CutShort e) {
+			return null;
+		}
+		if(length <= 0 || length > MAX_BLOCK || head.remaining() < 4) return null;
+
+		int prefix = head.position();
+		int crc = head.getInt();
+
+		ByteBuffer payload = ByteBuffer.allocate(length);
+		readFully(payload, offset + prefix + 4);
+		if(payload.hasRemaining()) return null;
+
+		CRC32C check = new CRC32C();
+		check.update(payload.array(), 0, length);
+		if((int) check.getValue() != crc) return null;
+
+		Block block = new Block(this.baseDay);
+		block.out.write(payload.array(), 0, length);
+		block.length = prefix + 4 + length;
+		return block;
+	}
+
+	private void readFully(ByteBuffer buf, long offset) throws IOException {
+		while(buf.hasRemaining()) {
+			if(this.channel.read(buf, offset + buf.position()) < 0) break;
+		}
+	}
+
+	private void writeFully(ByteBuffer buf, long offset) throws IOException {
+		while(buf.hasRemaining()) {
+			this.channel.write(buf, offset + buf.position());
+		}
+	}
+
+	// Thrown when a varint or a key runs past the end of its buffer
+	private static class CutShort extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+	}
+
+	/**
+	 * Reads an unsigned varint, seven bits to a byte with the lowest bits first
+	 * @param buf The buffer to read from
+	 * @return The number
+	 */
+	private static long readVarint(ByteBuffer buf) {
+
+		long value = 0;
+		for(int shift = 0; shift < 64; shift += 7) {
+			if(!buf.hasRemaining()) throw new CutShort();
+			byte b = buf.get();
+			value |= (long) (b & 0x7F) << shift;
+			if(b >= 0) return value;
+		}
+		throw new CutShort();
+	}
+
+	private static void writeVarint(ByteArrayOutputStream out, long value) {
+		while((value & ~0x7FL) != 0) {
+			out.write((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	/**
+	 * A reading session read back from the file
+	 */
+	public static class Session {
+
+		private final LocalDate date;
+		private final int pages;
+		private final int minutes;
+
+		Session(LocalDate date, int pages, int minutes) {
+			this.date = date;
+			this.pages = pages;
+			this.minutes = minutes;
+		}
+
+		public LocalDate getDate() {
+			return this.date;
+		}
+
+		public int getPages() {
+			return this.pages;
+		}
+
+		/**
+		 * @return The minutes spent reading, or -1 if not recorded
+		 */
+		public int getMinutes() {
+			return this.minutes;
+		}
+	}
+
+	/**
+	 * Receives the records of a block as it is decoded
+	 */
+	private interface Reader {
+		void book(int id, String key);
+		void session(int id, long day, int pages, int minutes);
+	}
+
+	/**
+	 * The payload of a block, either being built to be written or read back from the file
+	 */
+	private static class Block {
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int length;            // Bytes the block takes in the file, once read
+		private final long baseDay;  // The day the first session is counted from
+		private long lastDay;        // The day of the last session added, for the next difference
+
+		Block(long baseDay) {
+			this.baseDay = baseDay;
+			this.lastDay = baseDay;
+		}
+
+		void book(int id, String key) {
+			byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+			this.out.write(BOOK);
+			writeVarint(this.out, id);
+			writeVarint(this.out, bytes.length);
+			this.out.write(bytes, 0, bytes.length);
+		}
+
+		void session(int id, long day, int pages, int minutes) {
+			long delta = day - this.lastDay;
+			this.out.write(SESSION);
+			writeVarint(this.out, id);
+			writeVarint(this.out, (delta << 1) ^ (delta >> 63));  // Zigzag, so earlier days stay small too
+			writeVarint(this.out, pages);
+			writeVarint(this.out, minutes < 0 ? 0 : minutes + 1L);
+			this.lastDay = day;
+		}
+
+		/**
+		 * @return The length, checksum and payload, ready to be written
+		 */
+		ByteBuffer encode() {
+
+			byte[] payload = this.out.toByteArray();
+			CRC32C crc = new CRC32C();
+			crc.update(payload, 0, payload.length);
+
+			ByteArrayOutputStream block = new ByteArrayOutputStream(payload.length + 9);
+			writeVarint(block, payload.length);
+			block.write((int) (crc.getValue() >>> 24));
+			block.write((int) (crc.getValue() >>> 16));
+			block.write((int) (crc.getValue() >>> 8));
+			block.write((int) crc.getValue());
+			block.write(payload, 0, payload.length);
+			return ByteBuffer.wrap(block.toByteArray());
+		}
+
+		/**
+		 * Passes every record of the payload to a reader
+		 * @param reader Receives the records
+		 * @throws IOException If a record is damaged
+		 */
+		void decode(Reader reader) throws IOException {
+
+			ByteBuffer buf = ByteBuffer.wrap(this.out.toByteArray());
+			long day = this.baseDay;
+
+			try {
+				while(buf.hasRemaining()) {
+					byte type = buf.get();
+					int id = (int) readVarint(buf);
+					if(type == BOOK) {
+						byte[] key = new byte[(int) readVarint(buf)];
+						if(key.length > buf.remaining()) throw new CutShort();
+						buf.get(key);
+						reader.book(id, new String(key, StandardCharsets.UTF_8));
+					}
+					else if(type == SESSION) {
+						long zigzag = readVarint(buf);
+						day += (zigzag >>> 1) ^ -(zigzag & 1);
+						int pages = (int) readVarint(buf);
+						int minutes = (int) readVarint(buf) - 1;
+						reader.session(id, day, pages, minutes);
+					}
+					else {
+						throw new IOException("Unknown session record type " + type);
+					}
+				}
+			}
+			catch(CutShort e) {
+				throw new IOException("Session record is cut short");
+			}
+		}
+	}
+
+	/**
+	 * The days one book was read on, with running totals of pages and minutes
+	 */
+	private static class Track {
+
+		final int id;
+		String key;
+		int size;
+		long[] days = new long[4];     // Epoch days, in order
+		long[] pages = new long[4];    // Pages read up to and including each day
+		long[] minutes = new long[4];  // Minutes read up to and including each day
+		int blockCount;
+		long[] blocks = new long[2];   // Offsets of the blocks holding sessions of the book
+
+		Track(int id) {
+			this.id = id;
+		}
+
+		void add(long day, int pages, int minutes, long blockOffset) {
+
+			if(this.blockCount == 0 || this.blocks[this.blockCount - 1] != blockOffset) {
+				if(this.blockCount == this.blocks.length) this.blocks = Arrays.copyOf(this.blocks, this.blockCount * 2);
+				this.blocks[this.blockCount++] = blockOffset;
+			}
+
+			int i = Arrays.binarySearch(this.days, 0, this.size, day);
+			if(i < 0) {
+				// A new day, usually the latest so nothing has to move
+				i = -i - 1;
+				if(this.size == this.days.length) {
+					this.days = Arrays.copyOf(this.days, this.size * 2);
+					this.pages = Arrays.copyOf(this.pages, this.size * 2);
+					this.minutes = Arrays.copyOf(this.minutes, this.size * 2);
+				}
+				System.arraycopy(this.days, i, this.days, i + 1, this.size - i);
+				System.arraycopy(this.pages, i, this.pages, i + 1, this.size - i);
+				System.arraycopy(this.minutes, i, this.minutes, i + 1, this.size - i);
+				this.days[i] = day;
+				this.pages[i] = i == 0 ? 0 : this.pages[i - 1];
+				this.minutes[i] = i == 0 ? 0 : this.minutes[i - 1];
+				this.size++;
+			}
+
+			// Every running total from the day on includes the session
+			for(int j = i; j < this.size; j++) {
+				this.pages[j] += pages;
+				this.minutes[j] += minutes;
+			}
+		}
+
+		/**
+		 * @param from The first epoch day, inclusive
+		 * @param to The last epoch day, inclusive
+		 * @param totals pages or minutes
+		 * @return The total between the days
+		 */
+		long sum(long from, long to, long[] totals) {
+			if(to < from) return 0;
+			return upTo(to, totals) - upTo(from - 1, totals);
+		}
+
+		private long upTo(long day, long[] totals) {
+			int i = Arrays.binarySearch(this.days, 0, this.size, day);
+			if(i < 0) i = -i - 2;  // The last day before it
+			return i < 0 ? 0 : totals[i];
+		}
+	}
+
+	/**
+	 * Fenwick trees of the pages and minutes read on each day, covering
+	 * every day from base on. They double in size when a later day is added,
+	 * and are rebuilt to start earlier when an earlier one is.
+	 */
+	private static class DayTotals {
+
+		private long base;
+		private long[] pages = new long[0];    // Fenwick tree, index 1 is base
+		private long[] minutes = new long[0];
+
+		void add(long day, int pages, int minutes) {
+
+			if(this.pages.length == 0) {
+				this.base = day;
+				this.pages = new long[65];
+				this.minutes = new long[65];
+			}
+			long last = this.base + this.pages.length - 2;  // The last day the trees cover
+			if(day < this.base) {
+				resize(day, last, true);
+			}
+			else if(day > last) {
+				resize(this.base, day, false);
+			}
+
+			for(int i = (int) (day - this.base + 1); i < this.pages.length; i += i & -i) {
+				this.pages[i] += pages;
+				this.minutes[i] += minutes;
+			}
+		}
+
+		long sum(long from, long to, boolean minutes) {
+			if(to < from || this.pages.length == 0) return 0;
+			long[] tree = minutes ? this.minutes : this.pages;
+			return upTo(to, tree) - upTo(from - 1, tree);
+		}
+
+		private long upTo(long day, long[] tree) {
+
+			if(day < this.base) return 0;
+			long total = 0;
+			for(int i = (int) Math.min(day - this.base + 1, tree.length - 1); i > 0; i -= i & -i) {
+				total += tree[i];
+			}
+			return total;
+		}
+
+		/**
+		 * Rebuilds the trees to cover the days from first to last, at least
+		 * doubling their size. The room to grow is left on the side the trees
+		 * grew towards, so days logged further back in time don't rebuild them
+		 * again until that room is used up.
+		 * @param down true to leave the room before first, false to leave it after last
+		 */
+		private void resize(long first, long last, boolean down) {
+
+			int days = (int) Math.max(last - first + 1, 2L * (this.pages.length - 1));
+			if(down) first = last - days + 1;
+			long[] pages = new long[days + 1];
+			long[] minutes = new long[days + 1];
+
+			// Turn the old trees back into daily totals, place them, then rebuild
+			for(int i = 1; i < this.pages.length; i++) {
+				long day = this.base + i - 1;
+				int j = (int) (day - first + 1);
+				pages[j] = upTo(day, this.pages) - upTo(day - 1, this.pages);
+				minutes[j] = upTo(day, this.minutes) - upTo(day - 1, this.minutes);
+			}
+			for(int i = 1; i <= days; i++) {
+				int parent = i + (i & -i);
+				if(parent <= days) {
+					pages[parent] += pages[i];
+					minutes[parent] += minutes[i];
+				}
+			}
+
+			this.base = first;
+			this.pages = pages;
+			this.minutes = minutes;
+		}
+	}
+
+}
@@ -0,0 +1,131 @@
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A dictionary of strings that repeat across many books, such as authors
+ * and series. Every Book with the same author shares one Value instead of
+ * holding its own copy of the string from the data file. Each Value also
+ * holds an int code for its lower case form, and a key to sort it by, so
+ * both are worked out once per distinct value rather than once per book
+ * or once per comparison.
+ *
+ * Two values have the same code exactly when they are equal ignoring case,
+ * so case insensitive comparisons become int comparisons.
+ *
+ * Values are never removed. Pools are safe to use from any thread.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public final class StringPool {
+
+	public static final StringPool AUTHORS = new StringPool(StringPool::surnameFirst);
+	public static final StringPool SERIES = new StringPool(s -> s.toLowerCase(Locale.ROOT));
+
+	private final ConcurrentHashMap<String, Value> values = new ConcurrentHashMap<String, Value>();    // Every value as it was added
+	private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<String, Integer>();  // Code of each lower case value
+	private final AtomicInteger nextCode = new AtomicInteger();
+	private final Function<String, String> sortKey;
+
+	/**
+	 * @param sortKey Works out the key each value is sorted by
+	 */
+	private StringPool(Function<String, String> sortKey) {
+		this.sortKey = sortKey;
+	}
+
+	/**
+	 * Gets the shared Value for a string, adding it to the pool if it isn't already there
+	 * @param value The string, which may be null
+	 * @return The shared Value, null if value is null
+	 */
+	public Value get(String value) {
+
+		if(value == null) return null;
+
+		Value v = this.values.get(value);
+		if(v != null) return v;
+
+		return this.values.computeIfAbsent(value, s -> new Value(s,
+				this.codes.computeIfAbsent(s.toLowerCase(Locale.ROOT), lower -> this.nextCode.getAndIncrement()),
+				this.sortKey.apply(s)));
+	}
+
+	/**
+	 * Gets the code of a string without adding it to the pool. Used for
+	 * search queries, since a string that was never added can't match.
+	 * @param value The string
+	 * @return The code shared by every value that is equal to it ignoring case,
+	 * -1 if no value equal to it has been added
+	 */
+	public int find(String value) {
+
+		Value v = this.values.get(value);
+		if(v != null) return v.code;
+
+		return this.codes.getOrDefault(value.toLowerCase(Locale.ROOT), -1);
+	}
+
+	/**
+	 * @return The number of distinct values in the pool
+	 */
+	public int size() {
+		return this.values.size();
+	}
+
+	/**
+	 * Works out the key an author is sorted by. The last word of the name
+	 * is taken as the surname and moved to the front, so "Jane M. Banks"
+	 * sorts as "banks jane m.". A name of a single word is sorted by itself.
+	 * @param author The author's name
+	 * @return The name, surname first and in lower case
+	 */
+	static String surnameFirst(String author) {
+
+		String name = author.strip().toLowerCase(Locale.ROOT);
+		int space = name.lastIndexOf(' ');
+
+		if(space < 0) return name;
+		return name.substring(space + 1) + ' ' + name.substring(0, space);
+	}
+
+	/**
+	 * A string in the pool, with the code of its lower case form and the
+	 * key it is sorted by
+	 */
+	public static final class Value {
+
+		private final String value;
+		private final int code;
+		private final String sortKey;
+
+		private Value(String value, int code, String sortKey) {
+			this.value = value;
+			this.code = code;
+			this.sortKey = sortKey;
+		}
+
+		public String getValue() {
+			return this.value;
+		}
+
+		/**
+		 * @return A code that is the same for every value that is equal to this one ignoring case
+		 */
+		public int getCode() {
+			return this.code;
+		}
+
+		public String getSortKey() {
+			return this.sortKey;
+		}
+
+		@Override
+		public String toString() {
+			return this.value;
+		}
+	}
+
+}
@@ -0,0 +1,127 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks Bitmap against a TreeSet holding the same ints, with chunks on
+ * both sides of the point where a sorted array turns into a bit set.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class BitmapTest {
+
+	private static final int ARRAY_MAX = 4096;  // Most ints a chunk holds as an array
+
+	@Test
+	public void addAndRemoveAcrossTheThreshold() {
+
+		Random random = new Random(1);
+		Bitmap bitmap = new Bitmap();
+		TreeSet<Integer> expected = new TreeSet<Integer>();
+
+		// Fill one chunk past ARRAY_MAX so it becomes a bit set
+		while(expected.size() < ARRAY_MAX + 1000) {
+			int x = random.nextInt(1 << 16);
+			assertEquals(expected.add(x), bitmap.add(x));
+		}
+		assertMatches(expected, bitmap);
+
+		// Empty it until it turns back into an array, then empty it completely
+		List<Integer> order = new ArrayList<Integer>(expected);
+		Collections.shuffle(order, random);
+		for(int x : order) {
+			assertTrue(bitmap.remove(x));
+			assertFalse(bitmap.remove(x));
+			expected.remove(x);
+			if(expected.size() % 500 == 0) assertMatches(expected, bitmap);
+		}
+		assertTrue(bitmap.isEmpty());
+		assertEquals(-1, bitmap.first());
+	}
+
+	@Test
+	public void andAndOrMatchTreeSet() {
+
+		Random random = new Random(2);
+		int[] sizes = {0, 10, ARRAY_MAX - 1, ARRAY_MAX, ARRAY_MAX + 1, 20000};
+
+		for(int a : sizes) {
+			for(int b : sizes) {
+				TreeSet<Integer> left = randomSet(random, a);
+				TreeSet<Integer> right = randomSet(random, b);
+
+				TreeSet<Integer> both = new TreeSet<Integer>(left);
+				both.retainAll(right);
+				TreeSet<Integer> either = new TreeSet<Integer>(left);
+				either.addAll(right);
+
+				Bitmap l = toBitmap(left);
+				Bitmap r = toBitmap(right);
+				assertMatches(both, l.and(r));
+				assertMatches(either, l.or(r));
+
+				// Neither input is changed
+				assertMatches(left, l);
+				assertMatches(right, r);
+			}
+		}
+	}
+
+	@Test
+	public void orOfTwoArraysCanBecomeABitSet() {
+
+		Bitmap evens = new Bitmap();
+		Bitmap odds = new Bitmap();
+		TreeSet<Integer> expected = new TreeSet<Integer>();
+		for(int i = 0; i < ARRAY_MAX; i++) {
+			evens.add(i * 2);
+			odds.add(i * 2 + 1);
+			expected.add(i * 2);
+			expected.add(i * 2 + 1);
+		}
+
+		Bitmap union = evens.or(odds);
+		assertMatches(expected, union);
+		assertMatches(new TreeSet<Integer>(), union.and(new Bitmap()));
+
+		// Removing from the union leaves the inputs alone
+		union.remove(0);
+		assertTrue(evens.contains(0));
+	}
+
+	/**
+	 * @return size ints spread over three chunks, most of them in the first
+	 */
+	private static TreeSet<Integer> randomSet(Random random, int size) {
+
+		TreeSet<Integer> set = new TreeSet<Integer>();
+		while(set.size() < size) {
+			int chunk = random.nextInt(4) == 0 ? 1 + random.nextInt(2) : 0;
+			set.add(chunk << 16 | random.nextInt(ARRAY_MAX * 2));
+		}
+		return set;
+	}
+
+	private static Bitmap toBitmap(Set<Integer> set) {
+
+		Bitmap bitmap = new Bitmap();
+		for(int x : set) bitmap.add(x);
+		return bitmap;
+	}
+
+	private static void assertMatches(TreeSet<Integer> expected, Bitmap actual) {
+
+		List<Integer> ints = new ArrayList<Integer>();
+		actual.forEach(ints::add);
+
+		assertEquals(new ArrayList<Integer>(expected), ints);
+		assertEquals(expected.size(), actual.getCardinality());
+		assertEquals(expected.isEmpty(), actual.isEmpty());
+		assertEquals(expected.isEmpty() ? -1 : expected.first(), actual.first());
+		for(int x : expected) assertTrue(actual.contains(x));
+	}
+
+}
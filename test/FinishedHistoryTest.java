@@ -0,0 +1,48 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the books finished each day stay the same as counting them
+ * again from the Library, as books are added, edited and removed.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class FinishedHistoryTest {
+
+	@Test
+	public void matchesACountOfTheLibrary() {
+
+		Library lib = new Library();
+		ArrayList<Book> books = new ArrayList<Book>();
+		books.add(new Book("A", "Author", "NA", 100, -1, "2019-12-01", "2020-01-03"));
+		books.add(new Book("B", "Author", "NA", 100, -1, "2020-01-01", "2020-01-03"));
+		books.add(new Book("C", "Author", "NA", 100, -1, "2020-02-01", "NA"));
+		books.add(new Book("D", "Author", "NA", 100, -1, "2020-02-01", "not a date"));
+		books.add(new Book("E", "Author", "NA", 100, -1, "2020-02-01", null));
+		lib.add(books);
+
+		FinishedHistory history = new FinishedHistory(lib);
+		assertMatches(lib, history);
+
+		lib.update(lib.get(2), "C", "Author", "NA", "100", "", "2020-02-01", "2020-03-10");
+		assertMatches(lib, history);
+
+		lib.remove(0);
+		lib.remove(0);
+		assertMatches(lib, history);
+		assertEquals(1, history.getRollup(ChartData.Resolution.YEAR).size());
+
+		lib.remove(lib.size() - 3);  // C, the only finished book left
+		assertTrue(history.isEmpty());
+	}
+
+	private static void assertMatches(Library lib, FinishedHistory history) {
+		assertEquals(new LibraryStats().getFinishedByDay(lib), history.getRollup(ChartData.Resolution.DAY));
+	}
+
+}
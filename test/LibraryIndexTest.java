@@ -0,0 +1,130 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the bitmaps of a LibraryIndex pick out the same books as
+ * going through the Library, as books are added, updated and removed.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class LibraryIndexTest {
+
+	private static final String[] AUTHORS = {"Brandon Sanderson", "Ursula K. Le Guin", "Terry Pratchett"};
+	private static final String[] SERIES = {"NA", "Mistborn", "Earthsea", "Discworld"};
+
+	@Test
+	public void matchesTheLibraryAsItChanges() {
+
+		Random random = new Random(3);
+		Library lib = new Library();
+		LibraryIndex index = lib.getIndex();
+
+		ArrayList<Book> books = new ArrayList<Book>();
+		for(int i = 0; i < 500; i++) books.add(randomBook(random, i));
+		lib.add(books);
+		assertMatches(lib, index);
+
+		for(int i = 0; i < 200; i++) {
+			Book old = lib.get(random.nextInt(lib.size()));
+			Book b = randomBook(random, 1000 + i);
+			assertTrue(lib.update(old, b.getTitle(), b.getAuthor(), b.getSeries(), String.valueOf(b.getNumPages()),
+					"", b.getStartDate(), b.getEndDate()));
+		}
+		assertMatches(lib, index);
+
+		for(int i = 0; i < 300; i++) {
+			lib.remove(random.nextInt(lib.size()));
+		}
+		assertMatches(lib, index);
+
+		// Rows freed by the removals are given to new books
+		for(int i = 0; i < 100; i++) {
+			lib.add(randomBook(random, 2000 + i));
+		}
+		assertMatches(lib, index);
+	}
+
+	@Test
+	public void indexesEachCopyOfABook() {
+
+		Library lib = new Library();
+		LibraryIndex index = lib.getIndex();
+
+		Book b = new Book("The Final Empire", "Brandon Sanderson", "Mistborn", 541, -1, "2020-01-01", "2020-02-01");
+		lib.add(b);
+		lib.add(b);
+		assertMatches(lib, index);
+		assertEquals(2, index.author("brandon sanderson").getCardinality());
+
+		lib.remove(0);
+		assertMatches(lib, index);
+		assertEquals(1, index.series("Mistborn").getCardinality());
+
+		lib.remove(b);
+		assertMatches(lib, index);
+		assertTrue(index.all().isEmpty());
+		assertEquals(0, index.getAuthorCount());
+	}
+
+	private static Book randomBook(Random random, int n) {
+
+		String start = "NA";
+		String end = "NA";
+		if(random.nextInt(4) > 0) {
+			start = String.format("%d-%02d-01", 2015 + random.nextInt(5), 1 + random.nextInt(12));
+			if(random.nextBoolean()) end = start.substring(0, 4) + "-12-31";
+		}
+		return new Book("Book " + n, AUTHORS[random.nextInt(AUTHORS.length)], SERIES[random.nextInt(SERIES.length)],
+				100 + random.nextInt(900), -1, start, end);
+	}
+
+	/**
+	 * Checks every kind of filter against the books of the Library
+	 */
+	private static void assertMatches(Library lib, LibraryIndex index) {
+
+		assertSameBooks(lib, b -> true, index.all(), index);
+		assertSameBooks(lib, b -> Library.isDate(b.getEndDate()), index.finished(), index);
+		assertSameBooks(lib, b -> !Library.isDate(b.getEndDate()), index.unfinished(), index);
+		assertSameBooks(lib, b -> !b.getSeries().equals("NA"), index.inAnySeries(), index);
+
+		for(String author : AUTHORS) {
+			assertSameBooks(lib, b -> b.getAuthor().equals(author), index.author(author.toUpperCase()), index);
+		}
+		for(String series : SERIES) {
+			if(series.equals("NA")) continue;
+			assertSameBooks(lib, b -> b.getSeries().equals(series), index.series(series), index);
+
+			// Filters combine with and()
+			Bitmap finishedInSeries = index.series(series).and(index.finished());
+			assertSameBooks(lib, b -> b.getSeries().equals(series) && Library.isDate(b.getEndDate()),
+					finishedInSeries, index);
+		}
+		for(int year = 2015; year < 2020; year++) {
+			String prefix = year + "-";
+			assertSameBooks(lib, b -> b.getEndDate().startsWith(prefix), index.finishedIn(year), index);
+		}
+	}
+
+	private static void assertSameBooks(Library lib, Predicate<Book> filter, Bitmap rows, LibraryIndex index) {
+
+		// The same Book objects, counting copies, in any order
+		IdentityHashMap<Book, Integer> expected = new IdentityHashMap<Book, Integer>();
+		for(Book b : lib.getAll()) {
+			if(filter.test(b)) expected.merge(b, 1, Integer::sum);
+		}
+		IdentityHashMap<Book, Integer> actual = new IdentityHashMap<Book, Integer>();
+		for(Book b : index.books(rows)) {
+			actual.merge(b, 1, Integer::sum);
+		}
+
+		assertEquals(expected, actual);
+		assertEquals(expected.values().stream().mapToInt(Integer::intValue).sum(), rows.getCardinality());
+	}
+
+}
@@ -0,0 +1,163 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that the books saved by a LibraryStore are the ones that are
+ * looked up and loaded again.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class LibraryStoreTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	public void looksUpSavedChangesAndNewDataFiles() {
+
+		LibraryStore store = store();
+		Library lib = new Library();
+		ArrayList<Book> books = new ArrayList<Book>();
+		books.add(new Book("Alpha", "Author", "NA", 100, -1));
+		books.add(new Book("Beta", "Writer", "NA", 200, -1));
+		lib.add(books);
+		assertTrue(store.save(lib));
+
+		assertEquals(1, store.lookup("title", "alpha").size());
+		assertEquals(1, store.lookup("author", "WRITER").size());
+
+		// Changes come from the delta file, on top of the index that is already open
+		lib = store.load();
+		lib.add("Gamma", "Author", "NA", "300", "", "NA", "NA");
+		assertTrue(store.saveChanges(lib));
+		assertEquals(2, store.lookup("author", "author").size());
+
+		// A new data file replaces the open indexes
+		lib = store.load();
+		lib.remove(lib.searchTitle("Alpha"));
+		assertTrue(store.save(lib));
+		assertEquals(0, store.lookup("title", "alpha").size());
+		assertEquals(List.of("Beta", "Gamma"), titles(store.lookupRange("title", "", null, 10)));
+	}
+
+	@Test
+	public void reloadsCopiesOfTheSameBook() {
+
+		LibraryStore store = store();
+		Library lib = new Library();
+		lib.add("Dune", "Frank Herbert", "Dune", "412", "", "NA", "NA");
+		lib.add("Emma", "Jane Austen", "", "474", "", "NA", "NA");
+		assertTrue(store.save(lib));
+
+		// A second and third copy, then one of them read
+		lib = store.load();
+		lib.add("Dune", "Frank Herbert", "Dune", "412", "", "NA", "NA");
+		lib.add("Dune", "Frank Herbert", "Dune", "412", "", "NA", "NA");
+		assertTrue(store.saveChanges(lib));
+		lib.update(lib.get(3), "Dune", "Frank Herbert", "Dune", "412", "", "2020-01-01", "2020-02-01");
+		assertTrue(store.saveChanges(lib));
+		assertSameBooks(lib, store.load());
+
+		// Removing one copy leaves the others
+		lib = store.load();
+		lib.remove(0);
+		assertTrue(store.saveChanges(lib));
+		assertSameBooks(lib, store.load());
+		assertEquals(2, store.lookup("title", "dune").size());
+	}
+
+	@Test
+	public void reloadsABookEditedToTheKeyOfAnother() {
+
+		LibraryStore store = store();
+		Library lib = new Library();
+		lib.add("Emma", "Jane Austen", "", "474", "", "NA", "NA");
+		lib.add("Persuasion", "Jane Austen", "", "249", "", "NA", "NA");
+		assertTrue(store.save(lib));
+
+		lib = store.load();
+		lib.update(lib.get(1), "emma", "Jane Austen", "", "300", "", "NA", "NA");
+		assertTrue(store.saveChanges(lib));
+		assertSameBooks(lib, store.load());
+		assertEquals(2, store.lookup("title", "EMMA").size());
+	}
+
+	@Test
+	public void mergesChangesWithoutLosingOrRepeatingThem() throws Exception {
+
+		LibraryStore store = store();
+		Library lib = new Library();
+		lib.add("Emma", "Jane Austen", "", "474", "", "NA", "NA");
+		assertTrue(store.save(lib));
+
+		// Enough copies to merge the delta file into the data file in the background
+		lib = store.load();
+		for(int i = 0; i < 1200; i++) {
+			lib.add("Emma", "Jane Austen", "", "474", "", "NA", "NA");
+			assertTrue(store.saveChanges(lib));
+		}
+		assertSameBooks(lib, store.load());
+
+		// The full save waits for the merge, after which nothing is left to replay
+		assertTrue(store.save(lib));
+		assertSameBooks(lib, store.load());
+		assertFalse(Files.exists(this.dir.resolve("bookData.delta")));
+	}
+
+	@Test
+	public void finishesAMergeThatWasCutOff() throws Exception {
+
+		LibraryStore store = store();
+		Library lib = new Library();
+		lib.add("Emma", "Jane Austen", "", "474", "", "NA", "NA");
+		assertTrue(store.save(lib));
+
+		lib = store.load();
+		lib.add("Emma", "Jane Austen", "", "474", "", "NA", "NA");
+		assertTrue(store.saveChanges(lib));
+
+		// As if the application closed after the merged data file was written, but before it
+		// replaced the data file: the delta file is segment 1 and the merged file holds it
+		Files.move(this.dir.resolve("bookData.delta"), this.dir.resolve("bookData.delta.1"));
+		Path other = Files.createDirectory(this.dir.resolve("other"));
+		assertTrue(new LibraryStore(other.resolve("bookData").toString(), other.resolve("ReadingData").toString()).save(lib));
+		Files.copy(other.resolve("bookData"), this.dir.resolve("bookData.merged.1"));
+
+		lib.add("Persuasion", "Jane Austen", "", "249", "", "NA", "NA");
+		assertTrue(store.saveChanges(lib));
+
+		assertSameBooks(lib, store.load());
+		assertFalse(Files.exists(this.dir.resolve("bookData.delta.1")));
+		assertFalse(Files.exists(this.dir.resolve("bookData.merged.1")));
+		assertSameBooks(lib, store.load());
+	}
+
+	private static void assertSameBooks(Library expected, Library actual) {
+
+		assertEquals(expected.size(), actual.size());
+		for(int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).toString(), actual.get(i).toString());
+			assertEquals(expected.get(i).getKey(), actual.get(i).getKey());
+		}
+	}
+
+	private LibraryStore store() {
+		return new LibraryStore(this.dir.resolve("bookData").toString(), this.dir.resolve("ReadingData").toString());
+	}
+
+	private static List<String> titles(List<Book> books) {
+
+		List<String> titles = new ArrayList<String>();
+		for(Book b : books) {
+			titles.add(b.getTitle());
+		}
+		return titles;
+	}
+
+}
@@ -0,0 +1,51 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a latency histogram keeps its largest value when it is
+ * recorded into from many threads at once.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class MetricsTest {
+
+	@Test
+	public void keepsTheLargestValueAcrossThreads() throws Exception {
+
+		Metrics.Histogram histogram = new Metrics.Histogram();
+		int threads = 8;
+		int values = 100000;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+
+		try {
+			List<Future<?>> done = new ArrayList<Future<?>>();
+			for(int t = 0; t < threads; t++) {
+				int thread = t;
+				done.add(pool.submit(() -> {
+					start.await();
+					// Each thread records rising values, so most of them are a new largest
+					for(int i = 1; i <= values; i++) {
+						histogram.record((long) i * threads + thread);
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for(Future<?> f : done) f.get();
+		}
+		finally {
+			pool.shutdown();
+		}
+
+		long largest = (long) values * threads + threads - 1;
+		assertEquals((long) threads * values, histogram.count());
+		assertEquals(largest, histogram.percentile(100));
+	}
+
+}
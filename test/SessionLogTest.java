@@ -0,0 +1,71 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that a session log keeps its totals across being closed and
+ * opened again, including for sessions logged out of date order.
+ *
+ * @author Jacob Keller
+ * @since March 5, 2020
+ */
+public class SessionLogTest {
+
+	private static final LocalDate START = LocalDate.of(2020, 6, 1);
+
+	@TempDir
+	Path dir;
+
+	@Test
+	public void sessionsLoggedFurtherBackEachTimeCanBeReopened() throws IOException {
+
+		String file = this.dir.resolve("bookData.txt.sessions").toString();
+		Book b = new Book("The Final Empire", "Brandon Sanderson", "Mistborn", 541, -1, "2015-01-01", "NA");
+		int days = 5000;  // Well past the point where doubling for every day would run out of memory
+
+		try(SessionLog log = new SessionLog(file)) {
+			for(int i = 0; i < days; i++) {
+				assertTrue(log.log(b, START.minusDays(i), i % 50, i % 7 == 0 ? -1 : 30));
+			}
+			assertTotals(log, b, days);
+		}
+
+		try(SessionLog log = new SessionLog(file)) {
+			assertEquals(days, log.size());
+			assertTotals(log, b, days);
+
+			// The reopened log keeps going in both directions
+			assertTrue(log.log(b, START.minusDays(days), 10, -1));
+			assertTrue(log.log(b, START.plusDays(days), 20, -1));
+			assertEquals(30, log.getPages(START.minusDays(days), START.minusDays(days))
+					+ log.getPages(START.plusDays(days), START.plusDays(days)));
+		}
+	}
+
+	private static void assertTotals(SessionLog log, Book b, int days) {
+
+		long pages = 0;
+		long minutes = 0;
+		for(int i = 0; i < days; i++) {
+			pages += i % 50;
+			minutes += i % 7 == 0 ? 0 : 30;
+		}
+
+		LocalDate first = START.minusDays(days - 1);
+		assertEquals(pages, log.getPages(first, START));
+		assertEquals(minutes, log.getMinutes(first, START));
+		assertEquals(pages, log.getPages(b));
+		assertEquals(days, log.getPagesByDay(b).size());
+
+		// A range in the middle only counts its own days, START - 100 back to START - 199
+		long middle = 0;
+		for(int i = 100; i < 200; i++) middle += i % 50;
+		assertEquals(middle, log.getPages(START.minusDays(199), START.minusDays(100)));
+	}
+
+}